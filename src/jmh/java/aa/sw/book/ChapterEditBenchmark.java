@@ -0,0 +1,57 @@
+package aa.sw.book;
+
+import aa.sw.common.Pair;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/* Edits an entry in the middle of a chapter.  Run with `-prof gc` to compare the allocation per edit. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ChapterEditBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    private int numberOfEntries;
+
+    private Chapter chapter;
+    private Entry changedEntry;
+    private Entry newEntry;
+    private int middle;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final Chapter.ChapterBuilder builder = Chapter.builder().chapterPath("chapter.json");
+        for (int i = 0; i < numberOfEntries; i++) {
+            builder.entry(Entry.builder().id(UUID.randomUUID()).type("markdown").build());
+        }
+        chapter = builder.build();
+        middle = numberOfEntries / 2;
+        changedEntry = chapter.getEntries().get(middle).toBuilder().type("code").build();
+        newEntry = Entry.builder().id(UUID.randomUUID()).type("markdown").build();
+    }
+
+    @Benchmark
+    public Chapter swapEntry() {
+        return chapter.swapEntryAt(middle, changedEntry);
+    }
+
+    @Benchmark
+    public Chapter insertEntry() {
+        return chapter.insertEntryAt(middle, newEntry);
+    }
+
+    @Benchmark
+    public Pair<Chapter, Entry> deleteEntry() {
+        return chapter.deleteEntryAt(middle);
+    }
+}
@@ -0,0 +1,58 @@
+package aa.sw.book;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/* Compares finding an entry by id, through the index, with the linear scan used before */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ChapterLookupBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    private int numberOfEntries;
+
+    private Chapter chapter;
+    private UUID lastEntryId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final Chapter.ChapterBuilder builder = Chapter.builder().chapterPath("chapter.json");
+        for (int i = 0; i < numberOfEntries; i++) {
+            builder.entry(Entry.builder().id(UUID.randomUUID()).type("markdown").build());
+        }
+        chapter = builder.build();
+        lastEntryId = chapter.getEntries().get(numberOfEntries - 1).getId();
+        chapter.findEntryWithId(lastEntryId);
+    }
+
+    @Benchmark
+    public Optional<Chapter.EntryIndex> findEntryWithId() {
+        return chapter.findEntryWithId(lastEntryId);
+    }
+
+    @Benchmark
+    public Optional<Chapter.EntryIndex> findEntryWithLinearScan() {
+        return chapter.findEntry(entry -> lastEntryId.equals(entry.getId()));
+    }
+
+    /* A create request: finds the anchor, checks that the new id is not used and inserts the entry */
+    @Benchmark
+    public Chapter createEntryAfterTheLastEntry() {
+        final int index = chapter.findEntryWithId(lastEntryId).orElseThrow().getIndex();
+        final Chapter updated = chapter.insertEntryAt(index + 1, Entry.builder().id(UUID.randomUUID()).type("markdown").build());
+        updated.findEntryWithId(lastEntryId);
+        return updated;
+    }
+}
@@ -0,0 +1,66 @@
+package aa.sw.book;
+
+import aa.sw.common.CustomPrettyPrinter;
+import aa.sw.config.JacksonConfiguration;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/* Produces the bytes of a chapter after one of its entries is saved, by writing the chapter whole and by splicing the
+   saved entry into the bytes the chapter was last written with. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ChapterSpliceBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    private int numberOfEntries;
+
+    private ChapterSplicer splicer;
+    private ChapterSplicer.Layout layout;
+    private EntryList changed;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        final ObjectMapper mapper = new JacksonConfiguration().createObjectMapper();
+        splicer = new ChapterSplicer(CustomPrettyPrinter.of(mapper), mapper.getFactory());
+
+        final List<Entry> entries = new ArrayList<>(numberOfEntries);
+        for (int i = 0; i < numberOfEntries; i++) {
+            entries.add(Entry.builder()
+                    .id(UUID.randomUUID())
+                    .type("markdown")
+                    .parameters(List.of("Some text for entry " + i))
+                    .build());
+        }
+        layout = splicer.write(EntryList.of(entries));
+
+        final int middle = numberOfEntries / 2;
+        changed = layout.getEntries().swap(middle, entries.get(middle).toBuilder()
+                .parameters(List.of("Some changed text"))
+                .build());
+    }
+
+    @Benchmark
+    public byte[] writeWhole() throws IOException {
+        return splicer.write(changed).getContent();
+    }
+
+    @Benchmark
+    public byte[] splice() throws IOException {
+        return splicer.splice(layout, changed).getContent();
+    }
+}
@@ -0,0 +1,109 @@
+package aa.sw.book;
+
+import aa.sw.common.Result;
+import aa.sw.config.AppProperties;
+import aa.sw.config.JacksonConfiguration;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/* Reads a synthetic chapter of 10,000 entries whose entries repeat the same types, directories and value keys, with
+   and without the strings interned.  The heap retained by the read entries is printed when the trial ends, measured
+   from the heap used after a few collections while holding a number of copies of the chapter. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class EntryHeapBenchmark {
+
+    private static final Path DIRECTORY = Path.of("build", "jmh", "entry-heap");
+    private static final int NUMBER_OF_ENTRIES = 10_000;
+    private static final int COPIES = 10;
+
+    @Param({"false", "true"})
+    private boolean compactEntries;
+
+    private BookData bookData;
+    private Path chapterPath;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        final ObjectMapper mapper = new JacksonConfiguration().createObjectMapper();
+        chapterPath = createChapter(mapper);
+
+        final AppProperties properties = new AppProperties();
+        properties.getBook().setCacheSize(DataSize.ofBytes(0));
+        properties.getBook().setCompactEntries(compactEntries);
+        bookData = new BookData(mapper, properties);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        final long before = usedHeapAfterCollection(memory);
+        final List<Chapter> chapters = new ArrayList<>(COPIES);
+        for (int i = 0; i < COPIES; i++) {
+            chapters.add(readChapter());
+        }
+        final long after = usedHeapAfterCollection(memory);
+
+        System.out.printf("%nRetained heap per %,d entries (compactEntries=%s): %,d bytes%n",
+                NUMBER_OF_ENTRIES, compactEntries, (after - before) / chapters.size());
+        bookData.close();
+    }
+
+    @Benchmark
+    public Chapter readChapter() {
+        final Result<Chapter> result = bookData.readChapter(chapterPath);
+        if (!result.isValuePresent()) {
+            throw new IllegalStateException("Failed to read the chapter", result.error());
+        }
+        return result.value();
+    }
+
+    private static long usedHeapAfterCollection(final MemoryMXBean memory) {
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    private static Path createChapter(final ObjectMapper mapper) throws IOException {
+        Files.createDirectories(DIRECTORY);
+
+        final List<Map<String, Object>> entries = new ArrayList<>(NUMBER_OF_ENTRIES);
+        for (int i = 0; i < NUMBER_OF_ENTRIES; i++) {
+            entries.add(Map.of(
+                    "type", i % 4 == 0 ? "code" : "markdown",
+                    "id", UUID.randomUUID().toString(),
+                    "workingDirectory", "hello-world",
+                    "parameters", List.of("git status", "Paragraph " + i),
+                    "values", Map.of("branch", "main", "remote", "origin"),
+                    "ignoreErrors", i % 2 == 0,
+                    "dryRun", false));
+        }
+
+        final Path path = DIRECTORY.resolve("chapter.json");
+        mapper.writeValue(path.toFile(), Map.of("entries", entries));
+        return path;
+    }
+}
@@ -0,0 +1,102 @@
+package aa.sw.book;
+
+import aa.sw.common.Result;
+import aa.sw.config.AppProperties;
+import aa.sw.config.JacksonConfiguration;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/* Opens a synthetic book with 50 chapters.  The cache is disabled so that every chapter is parsed each time. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ReadBookBenchmark {
+
+    private static final Path DIRECTORY = Path.of("build", "jmh", "read-book");
+    private static final int NUMBER_OF_CHAPTERS = 50;
+    private static final int ENTRIES_PER_CHAPTER = 200;
+
+    @Param({"1", "4", "8"})
+    private int readParallelism;
+
+    private BookData bookData;
+    private Path bookPath;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        final ObjectMapper mapper = new JacksonConfiguration().createObjectMapper();
+        bookPath = createBook(mapper);
+
+        final AppProperties properties = new AppProperties();
+        properties.getBook().setCacheSize(DataSize.ofBytes(0));
+        properties.getBook().setReadParallelism(readParallelism);
+        bookData = new BookData(mapper, properties);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        bookData.close();
+    }
+
+    @Benchmark
+    public Book readBook() {
+        final Result<Book> result = bookData.readBook(bookPath);
+        if (!result.isValuePresent()) {
+            throw new IllegalStateException("Failed to read the book", result.error());
+        }
+        return result.value();
+    }
+
+    private static Path createBook(final ObjectMapper mapper) throws IOException {
+        Files.createDirectories(DIRECTORY);
+
+        final List<String> chapters = new ArrayList<>(NUMBER_OF_CHAPTERS);
+        for (int i = 0; i < NUMBER_OF_CHAPTERS; i++) {
+            final String chapterPath = String.format("%02d-chapter.json", i);
+            mapper.writeValue(DIRECTORY.resolve(chapterPath).toFile(), Map.of("entries", createEntries(i)));
+            chapters.add(chapterPath);
+        }
+
+        final Path path = DIRECTORY.resolve("book.json");
+        Files.writeString(path, mapper.writeValueAsString(Map.of(
+                "title", "Synthetic Book",
+                "description", "A book with many chapters",
+                "chapters", chapters)), StandardCharsets.UTF_8);
+        return path;
+    }
+
+    private static List<Map<String, Object>> createEntries(final int chapter) {
+        final List<Map<String, Object>> entries = new ArrayList<>(ENTRIES_PER_CHAPTER);
+        entries.add(Map.of(
+                "type", "chapter",
+                "id", UUID.randomUUID().toString(),
+                "parameters", List.of("Title:1", "Chapter " + chapter)));
+        for (int i = 1; i < ENTRIES_PER_CHAPTER; i++) {
+            entries.add(Map.of(
+                    "type", "markdown",
+                    "id", UUID.randomUUID().toString(),
+                    "parameters", List.of("Paragraph " + i + " of chapter " + chapter + ", with some text to parse.")));
+        }
+        return entries;
+    }
+}
@@ -0,0 +1,105 @@
+package aa.sw.book;
+
+import aa.sw.common.Result;
+import aa.sw.config.AppProperties;
+import aa.sw.config.JacksonConfiguration;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/* Reopens a synthetic book with 50 chapters as after a restart, with nothing cached, by parsing the JSON of its
+   chapters and by restoring the snapshot of its parsed chapters. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ReopenBookBenchmark {
+
+    private static final Path DIRECTORY = Path.of("build", "jmh", "reopen-book");
+    private static final int NUMBER_OF_CHAPTERS = 50;
+    private static final int ENTRIES_PER_CHAPTER = 200;
+
+    @Param({"false", "true"})
+    private boolean snapshot;
+
+    private ObjectMapper mapper;
+    private AppProperties properties;
+    private Path bookPath;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        mapper = new JacksonConfiguration().createObjectMapper();
+        bookPath = createBook(mapper);
+
+        properties = new AppProperties();
+        if (snapshot) {
+            properties.getBook().setSnapshotDirectory(DIRECTORY.resolve("snapshots"));
+            final BookData bookData = new BookData(mapper, properties);
+            bookData.readBook(bookPath);
+            bookData.close();
+        }
+    }
+
+    @Benchmark
+    public Book reopenBook() {
+        final BookData bookData = new BookData(mapper, properties);
+        try {
+            final Result<Book> result = bookData.readBook(bookPath);
+            if (!result.isValuePresent()) {
+                throw new IllegalStateException("Failed to read the book", result.error());
+            }
+            return result.value();
+        } finally {
+            bookData.close();
+        }
+    }
+
+    private static Path createBook(final ObjectMapper mapper) throws IOException {
+        Files.createDirectories(DIRECTORY);
+
+        final List<String> chapters = new ArrayList<>(NUMBER_OF_CHAPTERS);
+        for (int i = 0; i < NUMBER_OF_CHAPTERS; i++) {
+            final String chapterPath = String.format("%02d-chapter.json", i);
+            mapper.writeValue(DIRECTORY.resolve(chapterPath).toFile(), Map.of("entries", createEntries(i)));
+            chapters.add(chapterPath);
+        }
+
+        final Path path = DIRECTORY.resolve("book.json");
+        Files.writeString(path, mapper.writeValueAsString(Map.of(
+                "title", "Synthetic Book",
+                "description", "A book with many chapters",
+                "chapters", chapters)), StandardCharsets.UTF_8);
+        return path;
+    }
+
+    private static List<Map<String, Object>> createEntries(final int chapter) {
+        final List<Map<String, Object>> entries = new ArrayList<>(ENTRIES_PER_CHAPTER);
+        entries.add(Map.of(
+                "type", "chapter",
+                "id", UUID.randomUUID().toString(),
+                "parameters", List.of("Title:1", "Chapter " + chapter)));
+        for (int i = 1; i < ENTRIES_PER_CHAPTER; i++) {
+            entries.add(Map.of(
+                    "type", "markdown",
+                    "id", UUID.randomUUID().toString(),
+                    "parameters", List.of("Paragraph " + i + " of chapter " + chapter + ", with some text to parse.")));
+        }
+        return entries;
+    }
+}
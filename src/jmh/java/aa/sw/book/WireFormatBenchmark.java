@@ -0,0 +1,96 @@
+package aa.sw.book;
+
+import aa.sw.config.JacksonConfiguration;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/* Encodes and decodes the chapters of a synthetic book in the formats the REST layer can return, with the mappers the
+   application uses.  The encoded size of each format is printed when the trial starts. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class WireFormatBenchmark {
+
+    private static final int NUMBER_OF_CHAPTERS = 50;
+    private static final int ENTRIES_PER_CHAPTER = 200;
+    private static final TypeReference<List<Chapter>> CHAPTERS = new TypeReference<>() {};
+
+    @Param({"json", "json-gzip", "smile", "cbor"})
+    private String format;
+
+    private ObjectMapper mapper;
+    private boolean gzip;
+    private List<Chapter> chapters;
+    private byte[] encoded;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        final JacksonConfiguration configuration = new JacksonConfiguration();
+        mapper = switch (format) {
+            case "json", "json-gzip" -> configuration.createObjectMapper();
+            case "smile" -> configuration.createSmileMapper();
+            case "cbor" -> configuration.createCborMapper();
+            default -> throw new IllegalArgumentException("Unknown format " + format);
+        };
+        gzip = format.endsWith("-gzip");
+        chapters = createChapters();
+        encoded = encode();
+        System.out.printf("%n%s: %,d bytes%n", format, encoded.length);
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (OutputStream output = gzip ? new GZIPOutputStream(buffer) : buffer) {
+            mapper.writeValue(output, chapters);
+        }
+        return buffer.toByteArray();
+    }
+
+    @Benchmark
+    public List<Chapter> decode() throws IOException {
+        try (InputStream input = gzip
+                ? new GZIPInputStream(new ByteArrayInputStream(encoded))
+                : new ByteArrayInputStream(encoded)) {
+            return mapper.readValue(input, CHAPTERS);
+        }
+    }
+
+    private static List<Chapter> createChapters() {
+        final List<Chapter> chapters = new ArrayList<>(NUMBER_OF_CHAPTERS);
+        for (int i = 0; i < NUMBER_OF_CHAPTERS; i++) {
+            final Chapter.ChapterBuilder builder = Chapter.builder()
+                    .chapterPath(String.format("%02d-chapter.json", i))
+                    .entry(Entry.builder().id(UUID.randomUUID()).type("chapter")
+                            .parameters(List.of("Title:1", "Chapter " + i)).build());
+            for (int j = 1; j < ENTRIES_PER_CHAPTER; j++) {
+                builder.entry(Entry.builder().id(UUID.randomUUID()).type("markdown")
+                        .parameters(List.of("Paragraph " + j + " of chapter " + i + ", with some text to encode."))
+                        .build());
+            }
+            chapters.add(builder.build());
+        }
+        return chapters;
+    }
+}
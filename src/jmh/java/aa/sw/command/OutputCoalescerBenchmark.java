@@ -0,0 +1,114 @@
+package aa.sw.command;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.support.AbstractMessageChannel;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/* Sends the output of a chatty command, 10,000 lines, through the messaging template as the application does, with
+   one message per line and with the lines coalesced.  The messages sent and the CPU time used by the sending thread
+   are reported per line, next to the time taken. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class OutputCoalescerBenchmark {
+
+    private static final int LINES = 10_000;
+
+    @Param({"false", "true"})
+    private boolean coalesce;
+
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private SimpMessagingTemplate template;
+    private CountingChannel channel;
+    private ScheduledExecutorService scheduler;
+    private String[] lines;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        channel = new CountingChannel();
+        template = new SimpMessagingTemplate(channel);
+        template.setMessageConverter(new MappingJackson2MessageConverter());
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+
+        lines = new String[LINES];
+        for (int i = 0; i < LINES; i++) {
+            lines[i] = String.format("> Task :compileJava line %d of the build output%n", i);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    @Benchmark
+    public void sendOutput(final Counters counters) {
+        final long messages = channel.messages.get();
+        final long cpu = threads.getCurrentThreadCpuTime();
+
+        final Consumer<String> send = output -> template.convertAndSendToUser("user", "/topic/run/output",
+                CommandOutput.of(output));
+        if (coalesce) {
+            try (OutputCoalescer output = new OutputCoalescer(send, Duration.ofMillis(50), 16 * 1024, scheduler)) {
+                for (final String line : lines) {
+                    output.accept(line);
+                }
+            }
+        } else {
+            for (final String line : lines) {
+                send.accept(line);
+            }
+        }
+
+        counters.lines += LINES;
+        counters.messages += channel.messages.get() - messages;
+        counters.cpuNanos += threads.getCurrentThreadCpuTime() - cpu;
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Counters {
+        public long lines;
+        public long messages;
+        public long cpuNanos;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            lines = 0;
+            messages = 0;
+            cpuNanos = 0;
+        }
+    }
+
+    /* Stands for the broker, and only counts the messages it receives */
+    private static class CountingChannel extends AbstractMessageChannel {
+        private final AtomicLong messages = new AtomicLong();
+
+        @Override
+        protected boolean sendInternal(final Message<?> message, final long timeout) {
+            messages.incrementAndGet();
+            return true;
+        }
+    }
+}
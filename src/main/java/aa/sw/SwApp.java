@@ -4,13 +4,19 @@ import aa.sw.config.AppProperties;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ConfigurableApplicationContext;
 
 @SpringBootApplication
 @EnableConfigurationProperties(AppProperties.class)
 public class SwApp {
 
     public static void main(final String[] args) {
-        SpringApplication.run(SwApp.class, args);
+        final ConfigurableApplicationContext context = SpringApplication.run(SwApp.class, args);
+
+        /* The training run that creates the class data sharing archive stops as soon as the application is ready */
+        if (context.getEnvironment().getProperty("app.cds.training", Boolean.class, false)) {
+            System.exit(SpringApplication.exit(context));
+        }
     }
 
 }
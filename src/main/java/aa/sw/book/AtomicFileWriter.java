@@ -0,0 +1,232 @@
+package aa.sw.book;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.io.MoreFiles;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.Value;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static aa.sw.common.UncheckedIo.quietIo;
+import static java.util.Objects.requireNonNull;
+
+/* Writes files by replacing them with a fully written temporary file.  The writes that arrive within the group commit
+   window, to any file, are committed together in one pass, which syncs each of their directories once rather than once
+   per file.  Of the writes to the same file in a pass, only the latest content is written.  Callers that read, change
+   and write a file are expected to do so one at a time per file, as a superseded write is lost. */
+public class AtomicFileWriter implements AutoCloseable {
+
+    private final HashFunction checksumFunction;
+    private final boolean fsync;
+    private final Duration groupCommitWindow;
+
+    /* The files of the next pass, in the order these were first written.  Guarded by the pending lock, and replaced by
+       an empty map when the pass starts. */
+    private Map<Path, PendingCommit> pending = new LinkedHashMap<>();
+    private final Object pendingLock = new Object();
+
+    /* The size, last modified time and identity each file had right after it was last written here */
+    private final ConcurrentMap<Path, FileStamp> written = new ConcurrentHashMap<>();
+
+    /* A single thread commits the files, one pass at a time, so that commits to the same file never overlap */
+    private final ScheduledExecutorService committer = Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder().setNameFormat("file-committer-%d").setDaemon(true).build());
+
+    public AtomicFileWriter(final HashFunction checksumFunction, final boolean fsync, final Duration groupCommitWindow) {
+        this.checksumFunction = requireNonNull(checksumFunction);
+        this.fsync = fsync;
+        this.groupCommitWindow = requireNonNull(groupCommitWindow);
+    }
+
+    /* Returns true if the given content was written, or false if it was superseded by a later write of different
+       content to the same file that was committed together with it */
+    public boolean write(final Path path, final byte[] content, final HashCode checksum) throws IOException {
+        requireNonNull(path);
+        requireNonNull(content);
+        requireNonNull(checksum);
+
+        final Submission submission = new Submission(content, checksum);
+        final Path file = path.toAbsolutePath().normalize();
+        final PendingCommit commit;
+        synchronized (pendingLock) {
+            if (pending.isEmpty()) {
+                committer.schedule(this::commitPending, groupCommitWindow.toNanos(), TimeUnit.NANOSECONDS);
+            }
+            commit = pending.computeIfAbsent(file, PendingCommit::new);
+            commit.latest = submission;
+        }
+
+        final Submission written = commit.await();
+        return written == submission
+                || written.checksum.equals(submission.checksum) && Arrays.equals(written.content, submission.content);
+    }
+
+    /* Returns true when the file has not changed since it was last written here, such as to tell the changes made by
+       the application from the changes made by others */
+    public boolean isAsWritten(final Path path) {
+        requireNonNull(path);
+
+        final FileStamp stamp = written.get(path.toAbsolutePath().normalize());
+        if (stamp == null) {
+            return false;
+        }
+
+        try {
+            return stamp.equals(FileStamp.of(Files.readAttributes(path, BasicFileAttributes.class)));
+        } catch (final IOException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void close() {
+        committer.shutdown();
+        try {
+            if (!committer.awaitTermination(5, TimeUnit.SECONDS)) {
+                committer.shutdownNow();
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            committer.shutdownNow();
+        }
+    }
+
+    /* A file that fails to be written fails its own writes only.  The others are only reported as written once their
+       directories are synced. */
+    private void commitPending() {
+        final Map<Path, PendingCommit> commits;
+        synchronized (pendingLock) {
+            commits = pending;
+            pending = new LinkedHashMap<>();
+        }
+
+        final Set<Path> directories = new LinkedHashSet<>();
+        for (final PendingCommit commit : commits.values()) {
+            try {
+                writeAtomically(commit.file, commit.latest);
+                directories.add(commit.file.getParent());
+            } catch (final IOException | RuntimeException e) {
+                commit.result.completeExceptionally(e);
+            }
+        }
+
+        if (fsync) {
+            directories.forEach(AtomicFileWriter::syncDirectory);
+        }
+        for (final PendingCommit commit : commits.values()) {
+            commit.result.complete(commit.latest);
+        }
+    }
+
+    private void writeAtomically(final Path file, final Submission submission) throws IOException {
+        final Path directory = file.getParent();
+        final Path temporary = directory.resolve(String.format(".%s.%s.tmp", file.getFileName(), UUID.randomUUID()));
+
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                final ByteBuffer buffer = ByteBuffer.wrap(submission.content);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+
+                if (fsync) {
+                    channel.force(true);
+                }
+            }
+
+            verifyChecksum(temporary, file, submission.checksum);
+            written.remove(file);
+            Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            written.put(file, FileStamp.of(Files.readAttributes(file, BasicFileAttributes.class)));
+        } finally {
+            quietIo(() -> Files.deleteIfExists(temporary));
+        }
+    }
+
+    /* Hashing the written bytes is much cheaper than parsing them back */
+    private void verifyChecksum(final Path temporary, final Path file, final HashCode expected) throws IOException {
+        final HashCode actual = MoreFiles.asByteSource(temporary).hash(checksumFunction);
+        if (!expected.equals(actual)) {
+            throw new IOException(String.format("The file %s does not contain what was written (checksum mismatch)", file));
+        }
+    }
+
+    /* Makes the rename durable.  Not all platforms support opening a directory, in which case this is skipped. */
+    private static void syncDirectory(final Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (final IOException | UnsupportedOperationException e) { /* Best effort */ }
+    }
+
+    @Value
+    private static class FileStamp {
+        long size;
+        FileTime lastModified;
+        Object fileKey;
+
+        private static FileStamp of(final BasicFileAttributes attributes) {
+            return new FileStamp(attributes.size(), attributes.lastModifiedTime(), attributes.fileKey());
+        }
+    }
+
+    private static class Submission {
+        private final byte[] content;
+        private final HashCode checksum;
+
+        private Submission(final byte[] content, final HashCode checksum) {
+            this.content = content;
+            this.checksum = checksum;
+        }
+    }
+
+    /* The latest submission is set while holding the pending lock, and only read by the pass once it took the commit
+       out of the pending ones */
+    private static class PendingCommit {
+        private final Path file;
+        private final CompletableFuture<Submission> result = new CompletableFuture<>();
+        private Submission latest;
+
+        private PendingCommit(final Path file) {
+            this.file = file;
+        }
+
+        private Submission await() throws IOException {
+            try {
+                return result.get();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException(String.format("Interrupted while waiting for %s to be written", file));
+            } catch (final ExecutionException e) {
+                if (e.getCause() instanceof IOException cause) {
+                    throw cause;
+                }
+                throw new UncheckedIOException(new IOException("Failed to write " + file, e.getCause()));
+            }
+        }
+    }
+}
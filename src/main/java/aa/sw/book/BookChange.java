@@ -0,0 +1,13 @@
+package aa.sw.book;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Value;
+
+/* A book or chapter file that changed on disk.  When the chapter path is missing, the book file itself changed, or
+   the changes were too many to track, and the whole book needs to be read again. */
+@Value(staticConstructor = "of")
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BookChange {
+    String bookPath;
+    String chapterPath;
+}
@@ -0,0 +1,47 @@
+package aa.sw.book;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Objects.requireNonNull;
+
+/* The chapters that changed since a version of the book, together with the paths of all chapters in their order, so
+   that the chapters removed from the book can be dropped too */
+@Value
+@Builder
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class BookChanges {
+
+    long version;
+    List<String> chapterPaths;
+    List<Chapter> chapters;
+
+    public static class BookChangesBuilder {
+        private final List<String> chapterPaths = new ArrayList<>();
+        private final List<Chapter> chapters = new ArrayList<>();
+
+        public BookChangesBuilder chapterPaths(final List<String> chapterPaths) {
+            requireNonNull(chapterPaths);
+
+            this.chapterPaths.clear();
+            this.chapterPaths.addAll(chapterPaths);
+            return this;
+        }
+
+        public BookChangesBuilder chapter(final Chapter chapter) {
+            requireNonNull(chapter);
+
+            chapters.add(chapter);
+            return this;
+        }
+
+        public BookChanges build() {
+            return new BookChanges(version, List.copyOf(chapterPaths), List.copyOf(chapters));
+        }
+    }
+}
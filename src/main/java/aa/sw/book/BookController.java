@@ -1,18 +1,25 @@
 package aa.sw.book;
 
 import lombok.AllArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.io.FileNotFoundException;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
@@ -23,14 +30,76 @@ import static java.util.Objects.requireNonNull;
 @AllArgsConstructor
 public class BookController {
 
+    private static final List<MediaType> BOOK_MEDIA_TYPES = List.of(
+            MediaType.APPLICATION_JSON,
+            MediaType.valueOf("application/x-jackson-smile"),
+            MediaType.valueOf("application/cbor"));
+
     private final BookService service;
 
+    /* The book is only read when the version the browser has, if any, is not the current one.  A book whose
+       version cannot be read is returned without an ETag, and fails when read.  The ETag is weak, as the container
+       does not compress responses with a strong one, and names the encoding of the book, as the same version is
+       returned in different encodings. */
     @GetMapping("/book")
-    public ResponseEntity<?> openBook(@RequestParam("bookPath") final Path bookPath) {
-        return service.openBook(BookPath.of(bookPath))
+    public ResponseEntity<?> openBook(@RequestParam("bookPath") final Path bookPath,
+                                      @RequestParam(value = "outline", defaultValue = "false") final boolean outline,
+                                      @RequestHeader final HttpHeaders headers) {
+        final BookPath path = BookPath.of(bookPath);
+        final MediaType mediaType = negotiateBookMediaType(headers.getAccept());
+        final String eTag = service.readBookVersion(path)
+                .map(version -> String.format("W/\"%s%s-%s\"", version, outline ? "-outline" : "",
+                        mediaType.getSubtype()), e -> null);
+        if (eTag != null && matchesAny(headers.getIfNoneMatch(), eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).varyBy(HttpHeaders.ACCEPT).build();
+        }
+
+        if (outline) {
+            return service.openBookOutline(path)
+                    .map(book -> createBookResponse(book, mediaType, eTag), BookController::createBookErrorResponse);
+        }
+
+        return service.openBook(path)
+                .map(book -> createBookResponse(book, mediaType, eTag), BookController::createBookErrorResponse);
+    }
+
+    /* Clients without a version pass 0 and get all chapters */
+    @GetMapping("/book/changes")
+    public ResponseEntity<?> readBookChanges(@RequestParam("bookPath") final Path bookPath,
+                                             @RequestParam(value = "since", defaultValue = "0") final long since) {
+        return service.readBookChanges(BookPath.of(bookPath), since)
                 .map(ResponseEntity::ok, BookController::createBookErrorResponse);
     }
 
+    /* Only a slice of the entries is returned when an offset or a limit is given */
+    @GetMapping("/chapter")
+    public ResponseEntity<?> readChapter(@RequestParam("bookPath") final Path bookPath,
+                                         @RequestParam("chapterPath") final Path chapterPath,
+                                         @RequestParam(value = "offset", required = false) final Integer offset,
+                                         @RequestParam(value = "limit", required = false) final Integer limit) {
+        if (offset != null || limit != null) {
+            if ((offset != null && offset < 0) || (limit != null && limit < 0)) {
+                return ResponseEntity.badRequest()
+                        .body(Map.of("message", "The offset and limit cannot be negative"));
+            }
+
+            return service.readChapterSlice(ChapterPath.of(bookPath, chapterPath),
+                            offset == null ? 0 : offset,
+                            limit == null ? Integer.MAX_VALUE : limit)
+                    .map(ResponseEntity::ok, BookController::createChapterErrorResponse);
+        }
+
+        return service.readChapter(ChapterPath.of(bookPath, chapterPath))
+                .map(ResponseEntity::ok, BookController::createChapterErrorResponse);
+    }
+
+    @GetMapping("/entry/{entryId}")
+    public ResponseEntity<?> readEntry(@RequestParam("bookPath") final Path bookPath,
+                                       @PathVariable("entryId") final UUID entryId) {
+        return service.findEntry(BookPath.of(bookPath), entryId)
+                .map(ResponseEntity::ok, BookController::createLocatedEntryErrorResponse);
+    }
+
     @PostMapping("/entry")
     public ResponseEntity<?> createEntry(@RequestParam("bookPath") final Path bookPath,
                                          @RequestParam("chapterPath") final Path chapterPath,
@@ -39,10 +108,16 @@ public class BookController {
                 .map(ResponseEntity::ok, BookController::createEntryErrorResponse);
     }
 
+    /* Without a chapter path, the entry is saved in whichever chapter of the book it is in */
     @PutMapping("/entry")
     public ResponseEntity<?> saveEntry(@RequestParam("bookPath") final Path bookPath,
-                                       @RequestParam("chapterPath") final Path chapterPath,
+                                       @RequestParam(value = "chapterPath", required = false) final Path chapterPath,
                                        @RequestBody final Entry entry) {
+        if (chapterPath == null) {
+            return service.saveEntry(BookPath.of(bookPath), entry)
+                    .map(ResponseEntity::ok, BookController::createLocatedEntryErrorResponse);
+        }
+
         return service.saveEntry(ChapterPath.of(bookPath, chapterPath), entry)
                 .map(ResponseEntity::ok, BookController::createEntryErrorResponse);
     }
@@ -55,6 +130,42 @@ public class BookController {
                 .map(ResponseEntity::ok, BookController::createEntryErrorResponse);
     }
 
+    @PostMapping("/entries/batch")
+    public ResponseEntity<?> applyEntryOperations(@RequestParam("bookPath") final Path bookPath,
+                                                  @RequestParam("chapterPath") final Path chapterPath,
+                                                  @RequestBody final List<EntryOperation> operations) {
+        return service.applyEntryOperations(ChapterPath.of(bookPath, chapterPath), operations)
+                .map(ResponseEntity::ok, BookController::createEntryOperationErrorResponse);
+    }
+
+    private static ResponseEntity<?> createBookResponse(final Object book, final MediaType mediaType,
+                                                        final String eTag) {
+        return eTag == null
+                ? ResponseEntity.ok(book)
+                : ResponseEntity.ok().contentType(mediaType).eTag(eTag).varyBy(HttpHeaders.ACCEPT).body(book);
+    }
+
+    /* The book is returned in the encoding the client prefers among the ones it can be encoded in, as the message
+       converters would pick it, so that the ETag names the encoding of the body */
+    private static MediaType negotiateBookMediaType(final List<MediaType> accepted) {
+        final List<MediaType> sorted = new ArrayList<>(accepted);
+        MediaType.sortBySpecificityAndQuality(sorted);
+        return sorted.stream()
+                .flatMap(accept -> BOOK_MEDIA_TYPES.stream().filter(accept::isCompatibleWith))
+                .findFirst()
+                .orElse(MediaType.APPLICATION_JSON);
+    }
+
+    /* Strong and weak tags match alike, as If-None-Match uses the weak comparison */
+    private static boolean matchesAny(final List<String> tags, final String eTag) {
+        final String opaqueTag = withoutWeakPrefix(eTag);
+        return tags.stream().anyMatch(tag -> tag.equals("*") || withoutWeakPrefix(tag).equals(opaqueTag));
+    }
+
+    private static String withoutWeakPrefix(final String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+
     private static ResponseEntity<?> createBookErrorResponse(final Throwable e) {
         final String message = e instanceof FileNotFoundException
                 ? "Book not found"
@@ -72,16 +183,34 @@ public class BookController {
     }
 
     private static ResponseEntity<?> createEntryErrorResponse(final Throwable e) {
-        final String message;
+        return createUnprocessableEntityResponse(formatEntryError(e));
+    }
+
+    private static ResponseEntity<?> createLocatedEntryErrorResponse(final Throwable e) {
+        final String message = e instanceof EntryNotFoundException
+                ? "Entry not found in book"
+                : formatEntryError(e);
+
+        return createUnprocessableEntityResponse(message);
+    }
+
+    private static ResponseEntity<?> createEntryOperationErrorResponse(final Throwable e) {
+        if (e instanceof EntryOperationException failed) {
+            return ResponseEntity.unprocessableEntity()
+                    .body(Map.of("message", formatEntryError(failed.getError()), "operation", failed.getIndex()));
+        }
+
+        return createEntryErrorResponse(e);
+    }
+
+    private static String formatEntryError(final Throwable e) {
         if (e instanceof FileNotFoundException) {
-            message = "Chapter not found";
+            return "Chapter not found";
         } else if (e instanceof EntryNotFoundException) {
-            message = "Entry not found in chapter";
+            return "Entry not found in chapter";
         } else {
-            message = formatUnexpectedError(e);
+            return formatUnexpectedError(e);
         }
-
-        return createUnprocessableEntityResponse(message);
     }
 
     private static ResponseEntity<Map<String, String>> createUnprocessableEntityResponse(final String message) {
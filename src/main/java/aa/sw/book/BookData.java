@@ -1,34 +1,117 @@
 package aa.sw.book;
 
+import aa.sw.common.BoundedInterner;
 import aa.sw.common.CustomPrettyPrinter;
+import aa.sw.common.InterningStringDeserializer;
 import aa.sw.common.Result;
+import aa.sw.common.UncheckedIo.IoSupplier;
+import aa.sw.config.AppProperties;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonPOJOBuilder;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.google.common.hash.Hasher;
+import com.google.common.io.MoreFiles;
+import com.google.common.util.concurrent.Striped;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Value;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PreDestroy;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
-
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static aa.sw.common.UncheckedIo.uncheckedIo;
 import static java.util.Objects.requireNonNull;
 
 @Service
 public class BookData {
 
+    private static final HashFunction CHECKSUM = Hashing.sha256();
+    private static final HashFunction VERSION = Hashing.murmur3_128();
+    private static final int INTERNED_STRINGS = 16_384;
+    private static final int MAX_INTERNED_LENGTH = 1_024;
+    private static final Duration SNAPSHOT_TIMEOUT = Duration.ofSeconds(10);
+
     private final ObjectMapper reader;
     private final ObjectWriter writer;
-
-    public BookData(final ObjectMapper mapper) {
+    private final ParsedFileCache cache;
+    private final AtomicFileWriter fileWriter;
+    private final ChapterSplicer splicer;
+    private final ChapterOutlineReader outlineReader;
+    private final ChapterSliceReader sliceReader;
+    private final long streamingThreshold;
+    private final ExecutorService chapterReaders;
+    private final ChapterJournal journal;
+    private final boolean journalEnabled;
+    /* A save holds the lock of its chapter until its group commit completes, so there are enough stripes, created as
+       needed, that different chapters rarely wait for one another */
+    private final Striped<Lock> chapterLocks = Striped.lazyWeakLock(1024);
+    private final Set<Path> journaledChapters = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService compactor;
+    private final BookSnapshots snapshots;
+    private final ExecutorService snapshotWriter;
+    private final Set<Path> restoredBooks = ConcurrentHashMap.newKeySet();
+    private final Set<Path> pendingSnapshots = ConcurrentHashMap.newKeySet();
+    private final Map<Path, HashCode> snapshotVersions = new ConcurrentHashMap<>();
+
+    public BookData(final ObjectMapper mapper, final AppProperties properties) {
         requireNonNull(mapper);
+        requireNonNull(properties);
 
-        this.reader = mapper;
+        this.reader = createReader(mapper, properties.getBook().isCompactEntries());
         this.writer = CustomPrettyPrinter.of(mapper);
+        this.outlineReader = new ChapterOutlineReader(mapper.getFactory());
+        this.sliceReader = new ChapterSliceReader(reader);
+        this.streamingThreshold = properties.getBook().getStreamingThreshold().toBytes();
+        this.cache = new ParsedFileCache(properties.getBook().getCacheSize().toBytes());
+        this.splicer = uncheckedIo(() -> new ChapterSplicer(writer, mapper.getFactory()));
+        this.fileWriter = new AtomicFileWriter(CHECKSUM,
+                properties.getStorage().isFsync(),
+                properties.getStorage().getGroupCommitWindow());
+        this.chapterReaders = Executors.newFixedThreadPool(properties.getBook().getReadParallelism(),
+                new ThreadFactoryBuilder().setNameFormat("chapter-reader-%d").setDaemon(true).build());
+        this.journal = new ChapterJournal(reader, properties.getStorage().isFsync());
+        this.journalEnabled = properties.getStorage().getJournal().isEnabled();
+
+        final Duration compactionInterval = properties.getStorage().getJournal().getCompactionInterval();
+        this.compactor = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setNameFormat("journal-compactor-%d").setDaemon(true).build());
+        this.compactor.scheduleWithFixedDelay(this::compactJournals,
+                compactionInterval.toMillis(), compactionInterval.toMillis(), TimeUnit.MILLISECONDS);
+
+        /* Books are not snapshot when no snapshot directory is configured */
+        final Path snapshotDirectory = properties.getBook().getSnapshotDirectory();
+        this.snapshots = snapshotDirectory == null ? null : new BookSnapshots(snapshotDirectory, reader, mapper);
+        this.snapshotWriter = Executors.newSingleThreadExecutor(
+                new ThreadFactoryBuilder().setNameFormat("book-snapshot-%d").setDaemon(true).build());
     }
 
     public Result<Book> readBook(final Path path) {
@@ -36,61 +119,494 @@ public class BookData {
 
         return read(path, BookFile.class)
                 .flatThen(bookFile -> {
+                    restoreSnapshot(path);
+
                     final Book.BookBuilder builder = Book.builder()
                             .title(bookFile.getTitle())
                             .description(bookFile.getDescription())
                             .bookPath(path);
 
-                    for (final String chapterPath : bookFile.getChapters()) {
-                        final Result<ChapterFile> result = read(path.resolveSibling(chapterPath), ChapterFile.class);
-                        if (!result.isValuePresent()) {
-                            return Result.error(result.error());
-                        }
-
-                        final Chapter chapter = Chapter.builder()
-                                .chapterPath(chapterPath)
-                                .entries(result.value().getEntries())
-                                .build();
-                        builder.chapter(chapter);
+                    final Result<List<EntryList>> chapterEntries = readConcurrently(bookFile.getChapters(),
+                            chapterPath -> Result.of(() -> readEntries(path.resolveSibling(chapterPath))));
+                    if (!chapterEntries.isValuePresent()) {
+                        return Result.error(chapterEntries.error());
+                    }
+
+                    for (int i = 0; i < bookFile.getChapters().size(); i++) {
+                        builder.chapter(Chapter.ChapterBuilder.build(bookFile.getChapters().get(i),
+                                chapterEntries.value().get(i)));
                     }
 
+                    snapshotLater(path, bookFile.getChapters());
                     return Result.value(builder.build());
                 });
     }
 
+    public Result<BookOutline> readBookOutline(final Path path) {
+        requireNonNull(path);
+
+        return read(path, BookFile.class)
+                .flatThen(bookFile -> readConcurrently(bookFile.getChapters(),
+                        chapterPath -> readChapterOutline(path.resolveSibling(chapterPath), chapterPath))
+                        .then(chapters -> BookOutline.builder()
+                                .title(bookFile.getTitle())
+                                .description(bookFile.getDescription())
+                                .bookPath(path)
+                                .chapters(chapters)
+                                .build()));
+    }
+
+    public Result<List<String>> readChapterPaths(final Path path) {
+        requireNonNull(path);
+
+        return read(path, BookFile.class)
+                .then(BookFile::getChapters);
+    }
+
+    /* The version changes whenever the book file, any of its chapters or their journals change.  Only the attributes
+       of the files are read.  Files are replaced when written, and their file key changes too, which catches writes
+       made within the same last modified time. */
+    public Result<String> readBookVersion(final Path path) {
+        requireNonNull(path);
+
+        return read(path, BookFile.class)
+                .then(bookFile -> {
+                    final Hasher hasher = VERSION.newHasher();
+                    putFileVersion(hasher, path);
+                    for (final String chapterPath : bookFile.getChapters()) {
+                        putChapterVersion(hasher, path.resolveSibling(chapterPath));
+                    }
+                    return hasher.hash().toString();
+                });
+    }
+
+    /* The version of a chapter changes whenever the chapter file or its journal change */
+    public Result<String> readChapterVersion(final Path path) {
+        requireNonNull(path);
+
+        return Result.of(() -> {
+            final Hasher hasher = VERSION.newHasher();
+            putChapterVersion(hasher, path);
+            return hasher.hash().toString();
+        });
+    }
+
     public Result<Chapter> readChapter(final Path path) {
         requireNonNull(path);
 
-        return read(path, ChapterFile.class)
-                .then(f -> Chapter.builder()
-                        /* TODO: This is wrong */
-                        .chapterPath(path.getFileName().toString())
-                        .entries(f.entries)
-                        .build());
+        /* The entries of the cached chapter file are shared, together with their index */
+        return Result.of(() -> readEntries(path))
+                /* TODO: This is wrong */
+                .then(entries -> Chapter.ChapterBuilder.build(path.getFileName().toString(), entries));
+    }
+
+    /* A chapter that is cached, or that has a journal, is sliced from its entries.  Otherwise, large chapters are
+       streamed so that only the entries in the slice are read into memory, and are not cached. */
+    public Result<ChapterSlice> readChapterSlice(final Path path, final int offset, final int limit) {
+        requireNonNull(path);
+
+        final String chapterPath = path.getFileName().toString();
+        return Result.of(() -> {
+            if (Files.exists(ChapterJournal.pathOf(path))) {
+                return ChapterSlice.of(chapterPath, readEntries(path), offset, limit);
+            }
+
+            final Optional<ChapterFile> cached = cache.getIfFresh(path, ChapterFile.class);
+            if (cached.isPresent()) {
+                return ChapterSlice.of(chapterPath, cached.get().getEntries(), offset, limit);
+            }
+
+            return Files.size(path) > streamingThreshold
+                    ? sliceReader.read(path, chapterPath, offset, limit)
+                    : ChapterSlice.of(chapterPath, readEntries(path), offset, limit);
+        });
     }
 
     public Result<Chapter> writeChapter(final Path path, final Chapter chapter) {
         requireNonNull(path);
         requireNonNull(chapter);
 
-        return write(path, ChapterFile.class, ChapterFile.of(chapter))
-                .then(f -> Chapter.builder()
-                        .chapterPath(chapter.getChapterPath())
-                        .entries(f.entries)
-                        .build());
+        return Result.of(() -> withChapterLock(path, () -> Files.exists(ChapterJournal.pathOf(path))
+                        ? writeChapterFile(path, chapter.getEntries())
+                        : writeEntries(path, chapter.getEntries())))
+                .then(f -> chapter);
     }
 
-    private <T> Result<T> read(final Path path, final Class<T> type) {
-        return Result.of(() -> reader.readValue(path.toFile(), type));
+    /* Runs the read, change and write of a chapter while holding the lock of the chapter, so that saves to the same
+       chapter are applied one after the other instead of overwriting one another.  The group commit then only
+       batches the writes of different chapters. */
+    public <T> Result<T> withChapterLocked(final Path path, final Supplier<Result<T>> update) {
+        requireNonNull(path);
+        requireNonNull(update);
+
+        final Lock lock = chapterLocks.get(lockKey(path));
+        lock.lock();
+        try {
+            return update.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /* In journal mode only the edits are written, and these are applied to the chapter as it is now.  Otherwise the
+       whole updated chapter is written. */
+    public Result<Chapter> writeChapterEdits(final Path path, final Chapter updated, final List<ChapterEdit> edits) {
+        requireNonNull(path);
+        requireNonNull(updated);
+        requireNonNull(edits);
+
+        if (!journalEnabled) {
+            return writeChapter(path, updated);
+        }
+
+        return Result.of(() -> withChapterLock(path, () -> {
+            final JournaledChapter current = readJournaledChapter(path);
+            final Chapter chapter = ChapterEdit.applyAll(
+                    Chapter.ChapterBuilder.build(updated.getChapterPath(), current.getEntries()), edits);
+
+            final Path journalPath = ChapterJournal.pathOf(path);
+            final long length = current.hasJournal()
+                    ? current.getJournalLength()
+                    : journal.create(journalPath, MoreFiles.asByteSource(path).hash(CHECKSUM));
+            final long appended = journal.append(journalPath, length, edits);
+
+            cache.put(journalPath, new JournaledChapter(current.getBase(), chapter.getEntries(), appended));
+            journaledChapters.add(lockKey(path));
+            return chapter;
+        }));
+    }
+
+    /* Returns true when the file is as the application last wrote it, and was not changed since by anyone else */
+    public boolean isAsWritten(final Path path) {
+        requireNonNull(path);
+
+        return fileWriter.isAsWritten(path);
+    }
+
+    public ParsedFileCache.Stats cacheStats() {
+        return cache.stats();
+    }
+
+    @PreDestroy
+    public void close() {
+        compactor.shutdown();
+        compactJournals();
+        /* The snapshots still to be taken are what makes the next start fast, so these are given time to complete */
+        snapshotWriter.shutdown();
+        try {
+            snapshotWriter.awaitTermination(SNAPSHOT_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        chapterReaders.shutdown();
+        fileWriter.close();
     }
 
-    private <T> Result<T> write(final Path path, final Class<T> type, final T object) {
+    /* Folds the journals into their chapter files */
+    void compactJournals() {
+        for (final Path path : journaledChapters) {
+            final Result<Boolean> result = Result.of(() -> withChapterLock(path, () -> {
+                final JournaledChapter current = readJournaledChapter(path);
+                if (current.hasJournal()) {
+                    writeChapterFile(path, current.getEntries());
+                }
+                return true;
+            }));
+
+            /* Chapters that failed to compact are tried again the next time */
+            if (result.isValuePresent()) {
+                journaledChapters.remove(path);
+            }
+        }
+    }
+
+    /* The snapshot of a book is only restored the first time the book is read after a restart, before its chapters
+       are parsed.  The chapters that changed since the snapshot was taken are left to be parsed, and so are all the
+       chapters when the snapshot cannot be read or is not trusted, as a snapshot is only a shortcut. */
+    private void restoreSnapshot(final Path path) {
+        if (snapshots == null || !restoredBooks.add(lockKey(path))) {
+            return;
+        }
+
+        final Optional<BookSnapshots.Snapshot> snapshot = Result.of(() -> snapshots.read(path))
+                .map(Function.identity(), e -> Optional.empty());
+        if (snapshot.isEmpty()) {
+            return;
+        }
+
+        final List<String> chapterPaths = new ArrayList<>(snapshot.get().getChapters().size());
+        for (final BookSnapshots.SnapshotChapter chapter : snapshot.get().getChapters()) {
+            final Path chapterPath = path.resolveSibling(chapter.getChapterPath());
+            Result.of(() -> cache.isFresh(chapterPath) || restoreChapter(chapterPath, chapter));
+            chapterPaths.add(chapter.getChapterPath());
+        }
+        Result.of(() -> snapshotVersions.put(lockKey(path), snapshotVersion(path, chapterPaths)));
+    }
+
+    /* The chapter is cached with the attributes its file had before its checksum was compared, so that a file changed
+       while it is checksummed is parsed again */
+    private boolean restoreChapter(final Path path, final BookSnapshots.SnapshotChapter chapter) throws IOException {
+        final BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        if (!chapter.getChecksum().equals(MoreFiles.asByteSource(path).hash(CHECKSUM).toString())) {
+            return false;
+        }
+
+        return cache.putIfUnchanged(path, ChapterFile.builder().entries(chapter.getEntries()).build(),
+                attributes.size(), attributes.lastModifiedTime());
+    }
+
+    /* Snapshots are taken in the background, one book at a time, and a book that is read again while its snapshot is
+       waiting to be taken is only snapshot once */
+    private void snapshotLater(final Path path, final List<String> chapterPaths) {
+        final Path key = lockKey(path);
+        if (snapshots == null || !pendingSnapshots.add(key)) {
+            return;
+        }
+
+        snapshotWriter.execute(() -> {
+            pendingSnapshots.remove(key);
+            Result.of(() -> takeSnapshot(path, chapterPaths));
+        });
+    }
+
+    /* Only the chapters that are cached as they are on disk are kept, and the snapshot is only checksummed and written
+       when these changed since the snapshot was last written or restored */
+    private boolean takeSnapshot(final Path path, final List<String> chapterPaths) throws IOException {
+        final Path key = lockKey(path);
+        final HashCode version = snapshotVersion(path, chapterPaths);
+        if (version.equals(snapshotVersions.get(key))) {
+            return false;
+        }
+
+        final List<BookSnapshots.SnapshotChapter> chapters = new ArrayList<>(chapterPaths.size());
+        for (final String chapterPath : chapterPaths) {
+            snapshotChapter(path.resolveSibling(chapterPath), chapterPath).ifPresent(chapters::add);
+        }
+
+        snapshots.write(path, BookSnapshots.Snapshot.builder()
+                .format(BookSnapshots.FORMAT)
+                .chapters(chapters)
+                .build());
+        snapshotVersions.put(key, version);
+        return true;
+    }
+
+    /* The file is checksummed after the chapter is looked up, and the chapter is left out when its file changed in
+       between, as the checksum may then not be the one of the parsed chapter */
+    private Optional<BookSnapshots.SnapshotChapter> snapshotChapter(final Path path, final String chapterPath)
+            throws IOException {
+        final Optional<ParsedFileCache.CachedFile> cached = peekChapterFile(path);
+        if (cached.isEmpty()) {
+            return Optional.empty();
+        }
+
+        final HashCode checksum = MoreFiles.asByteSource(path).hash(CHECKSUM);
+        if (peekChapterFile(path).filter(file -> file == cached.get()).isEmpty()) {
+            return Optional.empty();
+        }
+
+        return Optional.of(BookSnapshots.SnapshotChapter.builder()
+                .chapterPath(chapterPath)
+                .checksum(checksum.toString())
+                .entries(((ChapterFile) cached.get().getValue()).getEntries())
+                .build());
+    }
+
+    /* Tells whether the cached chapters of a book changed, from the size and last modified time of their files, without
+       reading these */
+    private HashCode snapshotVersion(final Path path, final List<String> chapterPaths) throws IOException {
+        final Hasher hasher = VERSION.newHasher();
+        for (final String chapterPath : chapterPaths) {
+            final Optional<ParsedFileCache.CachedFile> cached = peekChapterFile(path.resolveSibling(chapterPath));
+            if (cached.isPresent()) {
+                hasher.putString(chapterPath, StandardCharsets.UTF_8)
+                        .putLong(cached.get().getSize())
+                        .putLong(cached.get().getLastModified().to(TimeUnit.NANOSECONDS));
+            }
+        }
+        return hasher.hash();
+    }
+
+    private Optional<ParsedFileCache.CachedFile> peekChapterFile(final Path path) throws IOException {
+        return cache.peek(path).filter(file -> file.getValue() instanceof ChapterFile);
+    }
+
+    /* The chapters are read concurrently and returned in the order they are listed in the book.  The first chapter
+       that fails to read fails the book, and the chapters that did not start reading yet are skipped. */
+    private <T> Result<List<T>> readConcurrently(final List<String> chapterPaths, final Function<String, Result<T>> reader) {
+        final CompletableFuture<Result<T>> firstError = new CompletableFuture<>();
+        final List<CompletableFuture<Result<T>>> reads = new ArrayList<>(chapterPaths.size());
+        for (final String chapterPath : chapterPaths) {
+            final CompletableFuture<Result<T>> read = CompletableFuture.supplyAsync(
+                    () -> reader.apply(chapterPath), chapterReaders);
+            read.thenAccept(result -> {
+                if (!result.isValuePresent()) {
+                    firstError.complete(result);
+                }
+            });
+            reads.add(read);
+        }
+
+        CompletableFuture.anyOf(CompletableFuture.allOf(reads.toArray(CompletableFuture[]::new)), firstError).join();
+        if (firstError.isDone()) {
+            reads.forEach(read -> read.cancel(false));
+            return Result.error(firstError.join().error());
+        }
+
+        final List<T> values = new ArrayList<>(reads.size());
+        for (final CompletableFuture<Result<T>> read : reads) {
+            values.add(read.join().value());
+        }
+        return Result.value(values);
+    }
+
+    /* A chapter that is already cached, or that has a journal, is not parsed again */
+    private Result<ChapterOutline> readChapterOutline(final Path path, final String chapterPath) {
         return Result.of(() -> {
-            writer.writeValue(path.toFile(), object);
-            return reader.readValue(path.toFile(), type);
+            if (Files.exists(ChapterJournal.pathOf(path))) {
+                return ChapterOutline.of(chapterPath, readEntries(path));
+            }
+
+            return cache.getIfFresh(path, ChapterFile.class)
+                    .map(chapterFile -> ChapterOutline.of(chapterPath, chapterFile.getEntries()))
+                    .orElseGet(() -> uncheckedIo(() -> outlineReader.read(path, chapterPath)));
         });
     }
 
+    private EntryList readEntries(final Path path) throws IOException {
+        if (Files.notExists(ChapterJournal.pathOf(path))) {
+            return cache.get(path, ChapterFile.class, this::readChapterFile).getEntries();
+        }
+
+        return withChapterLock(path, () -> readJournaledChapter(path).getEntries());
+    }
+
+    /* Must be called while holding the chapter lock.  The journal, when present, is replayed on the chapter file and
+       cached.  A journal that does not apply to the chapter file was already folded into it and is deleted. */
+    private JournaledChapter readJournaledChapter(final Path path) throws IOException {
+        final ChapterFile base = cache.get(path, ChapterFile.class, this::readChapterFile);
+        final Path journalPath = ChapterJournal.pathOf(path);
+        if (Files.notExists(journalPath)) {
+            return JournaledChapter.of(base);
+        }
+
+        final Optional<JournaledChapter> cached = cache.getIfFresh(journalPath, JournaledChapter.class)
+                .filter(chapter -> chapter.getBase() == base);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+
+        final Optional<ChapterJournal.Contents> contents = journal.read(journalPath);
+        if (contents.isEmpty() || !contents.get().appliesTo(MoreFiles.asByteSource(path).hash(CHECKSUM))) {
+            deleteJournal(path);
+            return JournaledChapter.of(base);
+        }
+
+        final Chapter replayed = ChapterEdit.applyAll(Chapter.ChapterBuilder.build(path.getFileName().toString(),
+                base.getEntries()), contents.get().getEdits());
+        final JournaledChapter chapter = new JournaledChapter(base, replayed.getEntries(), contents.get().getLength());
+        cache.put(journalPath, chapter);
+        journaledChapters.add(lockKey(path));
+        return chapter;
+    }
+
+    /* Must be called while holding the chapter lock */
+    private ChapterFile writeChapterFile(final Path path, final EntryList entries) throws IOException {
+        final ChapterFile chapterFile = writeEntries(path, entries);
+        deleteJournal(path);
+        return chapterFile;
+    }
+
+    /* A chapter that did not change on disk since it was last written here is spliced from the bytes it was written
+       with, and only the entries that changed are serialized.  The bytes are cached together with the chapter file,
+       within the same budget, and are dropped together with it. */
+    private ChapterFile writeEntries(final Path path, final EntryList entries) throws IOException {
+        final Optional<ChapterSplicer.Layout> previous = writtenLayout(path);
+        final ChapterSplicer.Layout layout = previous.isPresent()
+                ? splicer.splice(previous.get(), entries)
+                : splicer.write(entries);
+
+        final ChapterFile chapterFile = new ChapterFile(entries);
+        /* A save that was superseded by different content within the same group commit never reached the disk */
+        final byte[] content = layout.getContent();
+        if (!fileWriter.write(path, content, CHECKSUM.hashBytes(content))) {
+            cache.invalidate(path);
+            throw new IOException(String.format("The chapter %s was overwritten by a concurrent save", path));
+        }
+
+        cache.put(path, chapterFile, layout, content.length);
+        return chapterFile;
+    }
+
+    /* A chapter file that is cached with a layout was written with it.  A chapter that was read, or that does not
+       exist yet, has none. */
+    private Optional<ChapterSplicer.Layout> writtenLayout(final Path path) {
+        try {
+            return cache.getAttachmentIfFresh(path, ChapterSplicer.Layout.class);
+        } catch (final IOException e) {
+            return Optional.empty();
+        }
+    }
+
+    private void deleteJournal(final Path path) throws IOException {
+        final Path journalPath = ChapterJournal.pathOf(path);
+        Files.deleteIfExists(journalPath);
+        cache.invalidate(journalPath);
+    }
+
+    /* The compact reader shares the strings repeated across the entries it reads.  The mapper given is not changed,
+       as this is shared with the rest of the application. */
+    private static ObjectMapper createReader(final ObjectMapper mapper, final boolean compactEntries) {
+        if (!compactEntries) {
+            return mapper;
+        }
+
+        return mapper.copy()
+                .registerModule(InterningStringDeserializer.module(
+                        new BoundedInterner(INTERNED_STRINGS, MAX_INTERNED_LENGTH)));
+    }
+
+    private static void putChapterVersion(final Hasher hasher, final Path path) throws IOException {
+        putFileVersion(hasher, path);
+        putFileVersion(hasher, ChapterJournal.pathOf(path));
+    }
+
+    private static void putFileVersion(final Hasher hasher, final Path file) throws IOException {
+        final BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (final NoSuchFileException e) {
+            hasher.putLong(-1);
+            return;
+        }
+
+        hasher.putLong(attributes.size())
+                .putLong(attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS))
+                .putInt(Objects.hashCode(attributes.fileKey()));
+    }
+
+    private ChapterFile readChapterFile(final Path file) throws IOException {
+        return reader.readValue(file.toFile(), ChapterFile.class);
+    }
+
+    private <T> T withChapterLock(final Path path, final IoSupplier<T> supplier) throws IOException {
+        final Lock lock = chapterLocks.get(lockKey(path));
+        lock.lock();
+        try {
+            return supplier.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static Path lockKey(final Path path) {
+        return path.toAbsolutePath().normalize();
+    }
+
+    private <T> Result<T> read(final Path path, final Class<T> type) {
+        return Result.of(() -> cache.get(path, type, file -> reader.readValue(file.toFile(), type)));
+    }
+
     @Value
     @Builder
     @JsonDeserialize(builder = BookFile.BookFileBuilder.class)
@@ -130,17 +646,34 @@ public class BookData {
         }
     }
 
+    /* The entries of a chapter with its journal replayed.  A journal length of 0 means that there is no journal.  This is
+       cached by the size of its journal, as it shares the entries that were not edited with its base. */
+    @Value
+    private static class JournaledChapter {
+        ChapterFile base;
+        EntryList entries;
+        long journalLength;
+
+        private static JournaledChapter of(final ChapterFile base) {
+            return new JournaledChapter(base, base.getEntries(), 0);
+        }
+
+        private boolean hasJournal() {
+            return journalLength > 0;
+        }
+    }
+
     @Value
     @Builder
     @JsonDeserialize(builder = ChapterFile.ChapterFileBuilder.class)
     @AllArgsConstructor(access = AccessLevel.PRIVATE)
     public static class ChapterFile {
-        List<Entry> entries;
+        EntryList entries;
 
         public static ChapterFile of(final Chapter chapter) {
             requireNonNull(chapter);
 
-            return builder().entries(chapter.getEntries()).build();
+            return new ChapterFile(chapter.getEntries());
         }
 
         @JsonPOJOBuilder(withPrefix = "")
@@ -164,7 +697,7 @@ public class BookData {
             }
 
             public ChapterFile build() {
-                return new ChapterFile(List.copyOf(entries));
+                return new ChapterFile(EntryList.of(entries));
             }
         }
     }
@@ -0,0 +1,63 @@
+package aa.sw.book;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Value;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Objects.requireNonNull;
+
+/* The book without the entries of its chapters, which are fetched one chapter at a time */
+@Value
+@Builder
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class BookOutline {
+
+    String title;
+    String description;
+    String bookPath;
+    List<ChapterOutline> chapters;
+
+    public static class BookOutlineBuilder {
+        private final List<ChapterOutline> chapters = new ArrayList<>();
+
+        public BookOutlineBuilder chapter(final ChapterOutline chapter) {
+            requireNonNull(chapter);
+
+            chapters.add(chapter);
+            return this;
+        }
+
+        public BookOutlineBuilder chapters(final List<ChapterOutline> chapters) {
+            requireNonNull(chapters);
+
+            this.chapters.clear();
+            this.chapters.addAll(chapters);
+            return this;
+        }
+
+        public BookOutlineBuilder bookPath(final Path bookPath) {
+            requireNonNull(bookPath);
+
+            return bookPath(bookPath.toString());
+        }
+
+        public BookOutlineBuilder bookPath(final String bookPath) {
+            this.bookPath = bookPath;
+            return this;
+        }
+
+        public BookOutline build() {
+            return new BookOutline(
+                    requireNonNull(title, "The book title cannot be null"),
+                    requireNonNull(description, "The book description cannot be null"),
+                    bookPath,
+                    List.copyOf(chapters)
+            );
+        }
+    }
+}
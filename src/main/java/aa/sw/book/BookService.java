@@ -3,9 +3,16 @@ package aa.sw.book;
 import aa.sw.common.Pair;
 import aa.sw.common.Result;
 import lombok.AllArgsConstructor;
+import lombok.Value;
 import org.springframework.stereotype.Service;
 
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static java.util.Objects.requireNonNull;
 
@@ -14,11 +21,69 @@ import static java.util.Objects.requireNonNull;
 public class BookService {
 
     private final BookData data;
+    private final BookWatcher watcher;
+    private final BookVersions versions;
+    private final Map<Path, EntryDirectory> directories = new ConcurrentHashMap<>();
 
+    /* The version is taken before the book is read, like with the book changes */
     public Result<Book> openBook(final BookPath bookPath) {
         requireNonNull(bookPath);
 
-        return data.readBook(bookPath.getPath());
+        final long version = versions.current();
+        return data.readBook(bookPath.getPath())
+                .then(book -> {
+                    watcher.watch(bookPath);
+                    directories.put(key(bookPath.getPath()), EntryDirectory.of(version, book));
+                    return book;
+                });
+    }
+
+    public Result<BookOutline> openBookOutline(final BookPath bookPath) {
+        requireNonNull(bookPath);
+
+        return data.readBookOutline(bookPath.getPath())
+                .then(outline -> {
+                    watcher.watch(bookPath);
+                    return outline;
+                });
+    }
+
+    public Result<String> readBookVersion(final BookPath bookPath) {
+        requireNonNull(bookPath);
+
+        return data.readBookVersion(bookPath.getPath());
+    }
+
+    /* The version is taken before the chapters are read.  A chapter that changes while these are read is returned
+       again the next time, rather than missed.  The book is watched from then on, like when it is opened, so that a
+       client that only asks for the changes also gets the changes made outside of the application. */
+    public Result<BookChanges> readBookChanges(final BookPath bookPath, final long since) {
+        requireNonNull(bookPath);
+
+        final long version = versions.current();
+        final boolean bookChanged = versions.changedSince(bookPath.getPath(), since);
+        return data.readChapterPaths(bookPath.getPath())
+                .flatThen(chapterPaths -> {
+                    watcher.watch(bookPath);
+                    final BookChanges.BookChangesBuilder builder = BookChanges.builder()
+                            .version(version)
+                            .chapterPaths(chapterPaths);
+
+                    for (final String chapterPath : chapterPaths) {
+                        final ChapterPath path = ChapterPath.of(bookPath, Path.of(chapterPath));
+                        if (!bookChanged && !versions.changedSince(path.getPath(), since)) {
+                            continue;
+                        }
+
+                        final Result<Chapter> chapter = readChapter(path);
+                        if (!chapter.isValuePresent()) {
+                            return Result.error(chapter.error());
+                        }
+                        builder.chapter(Chapter.ChapterBuilder.build(chapterPath, chapter.value().getEntries()));
+                    }
+
+                    return Result.value(builder.build());
+                });
     }
 
     public Result<Chapter> readChapter(final ChapterPath chapterPath) {
@@ -27,14 +92,56 @@ public class BookService {
         return data.readChapter(chapterPath.getPath());
     }
 
+    public Result<ChapterSlice> readChapterSlice(final ChapterPath chapterPath, final int offset, final int limit) {
+        requireNonNull(chapterPath);
+
+        return data.readChapterSlice(chapterPath.getPath(), offset, limit);
+    }
+
+    /* The book is read again only when the entry is not where the directory says, and the book changed since the
+       directory was built.  Otherwise, the entry is not in the book. */
+    public Result<LocatedEntry> findEntry(final BookPath bookPath, final UUID entryId) {
+        requireNonNull(bookPath);
+        requireNonNull(entryId);
+
+        final EntryDirectory directory = directories.get(key(bookPath.getPath()));
+        if (directory != null) {
+            final Optional<LocatedEntry> located = locateEntry(bookPath, directory, entryId);
+            if (located.isPresent()) {
+                return Result.value(located.get());
+            }
+            if (!changedSince(bookPath, directory)) {
+                return Result.error(new EntryNotFoundException());
+            }
+        }
+
+        final long version = versions.current();
+        return data.readBook(bookPath.getPath())
+                .then(book -> {
+                    final EntryDirectory read = EntryDirectory.of(version, book);
+                    directories.put(key(bookPath.getPath()), read);
+                    return locateEntry(bookPath, read, entryId)
+                            .orElseThrow(EntryNotFoundException::new);
+                });
+    }
+
+    public Result<Entry> saveEntry(final BookPath bookPath, final Entry entry) {
+        requireNonNull(bookPath);
+        requireNonNull(entry);
+
+        return Result.of(() -> requireNonNull(entry.getId(), "The id of the entry to save cannot be null"))
+                .flatThen(entryId -> findEntry(bookPath, entryId))
+                .flatThen(located -> saveEntry(ChapterPath.of(bookPath, Path.of(located.getChapterPath())), entry));
+    }
+
     public Result<Entry> saveEntry(final ChapterPath chapterPath, final Entry entry) {
         requireNonNull(chapterPath);
         requireNonNull(entry);
 
-        return readChapter(chapterPath)
+        return data.withChapterLocked(chapterPath.getPath(), () -> readChapter(chapterPath)
                 .then(chapter -> indexOfEntryInChapter(entry.getId(), chapter))
                 .then(pair -> pair.left().swapEntryAt(pair.right(), entry))
-                .then(updated -> writeChapter(Pair.of(chapterPath, updated)))
+                .flatThen(updated -> writeChapter(chapterPath, updated, List.of(ChapterEdit.save(entry)))))
                 .then(chapter -> chapter.findEntryWithId(entry.getId()))
                 .then(entryIndex -> entryIndex.map(Chapter.EntryIndex::getEntry)
                         .orElseThrow(() -> new RuntimeException("The entry was not found in file after it was saved")));
@@ -47,7 +154,7 @@ public class BookService {
         /* TODO: We need to check if this exists */
         final UUID id = UUID.randomUUID();
 
-        return readChapter(chapterPath)
+        return data.withChapterLocked(chapterPath.getPath(), () -> readChapter(chapterPath)
                 .then(chapter -> indexOfEntryInChapter(createEntry.getAfterEntryWithId(), chapter))
                 .then(pair -> {
                     final Entry entry = Entry
@@ -58,7 +165,8 @@ public class BookService {
                     final Chapter chapter = pair.left().insertEntryAt(pair.right() + 1, entry);
                     return Pair.of(chapter, entry);
                 })
-                .then(pair -> writeChapter(Pair.of(chapterPath, pair.left())))
+                .flatThen(pair -> writeChapter(chapterPath, pair.left(),
+                        List.of(ChapterEdit.insert(createEntry.getAfterEntryWithId(), pair.right())))))
                 .then(chapter -> chapter.findEntryWithId(id))
                 .then(entryIndex -> entryIndex.map(Chapter.EntryIndex::getEntry)
                         .orElseThrow(() -> new RuntimeException("The entry was not found in file after it was created")));
@@ -68,13 +176,88 @@ public class BookService {
         requireNonNull(chapterPath);
         requireNonNull(entryId);
 
-        return readChapter(chapterPath)
+        return data.withChapterLocked(chapterPath.getPath(), () -> readChapter(chapterPath)
                 .then(chapter -> indexOfEntryInChapter(entryId, chapter))
                 .then(pair -> pair.left().deleteEntryAt(pair.right()))
-                .then(pair -> {
-                    writeChapter(Pair.of(chapterPath, pair.left()));
-                    return pair.right();
-                });
+                .flatThen(pair -> writeChapter(chapterPath, pair.left(), List.of(ChapterEdit.delete(entryId)))
+                        .then(written -> pair.right())));
+    }
+
+    /* The operations are applied one after the other to the same chapter, which is written once.  Nothing is written
+       when any of the operations fails. */
+    public Result<List<Entry>> applyEntryOperations(final ChapterPath chapterPath, final List<EntryOperation> operations) {
+        requireNonNull(chapterPath);
+        requireNonNull(operations);
+
+        return data.withChapterLocked(chapterPath.getPath(), () -> readChapter(chapterPath)
+                .flatThen(chapter -> Result.of(() -> applyEntryOperations(chapter, operations))
+                        .flatThen(batch -> batch.getChapter().equals(chapter)
+                                ? Result.value(batch.getEntries())
+                                : writeChapter(chapterPath, batch.getChapter(), batch.getEdits())
+                                .then(written -> batch.getEntries()))));
+    }
+
+    private static AppliedOperations applyEntryOperations(final Chapter chapter, final List<EntryOperation> operations) {
+        Chapter updated = chapter;
+        final List<Entry> entries = new ArrayList<>(operations.size());
+        final List<ChapterEdit> edits = new ArrayList<>(operations.size());
+        for (int i = 0; i < operations.size(); i++) {
+            try {
+                final Pair<Chapter, Entry> pair = applyEntryOperation(updated, operations.get(i), edits);
+                updated = pair.left();
+                entries.add(pair.right());
+            } catch (final Exception e) {
+                throw new EntryOperationException(i, e);
+            }
+        }
+
+        return new AppliedOperations(updated, entries, edits);
+    }
+
+    /* The edits made by the operation are added to the given list, as they are written to the chapter journal */
+    private static Pair<Chapter, Entry> applyEntryOperation(final Chapter chapter, final EntryOperation operation,
+                                                            final List<ChapterEdit> edits) {
+        requireNonNull(operation.getOperation(), "The operation cannot be null");
+
+        return switch (operation.getOperation()) {
+            case CREATE -> {
+                final Entry entry = Entry.builder()
+                        .id(UUID.randomUUID())
+                        .type(requireNonNull(operation.getType(), "The type of the entry to create cannot be null"))
+                        .build();
+                edits.add(ChapterEdit.insert(operation.getAfterEntryWithId(), entry));
+                yield Pair.of(chapter.insertEntryAt(indexAfterEntry(operation.getAfterEntryWithId(), chapter), entry), entry);
+            }
+            case SAVE -> {
+                final Entry entry = requireNonNull(operation.getEntry(), "The entry to save cannot be null");
+                final int index = indexOfEntryInChapter(entry.getId(), chapter).right();
+                edits.add(ChapterEdit.save(entry));
+                yield Pair.of(chapter.swapEntryAt(index, entry), entry);
+            }
+            case DELETE -> {
+                final UUID entryId = requireNonNull(operation.getEntryId(), "The id of the entry to delete cannot be null");
+                edits.add(ChapterEdit.delete(entryId));
+                yield chapter.deleteEntryAt(indexOfEntryInChapter(entryId, chapter).right());
+            }
+            case MOVE -> {
+                final UUID entryId = requireNonNull(operation.getEntryId(), "The id of the entry to move cannot be null");
+                final Pair<Chapter, Entry> deleted = chapter.deleteEntryAt(indexOfEntryInChapter(entryId, chapter).right());
+                if (entryId.equals(operation.getAfterEntryWithId())) {
+                    yield Pair.of(chapter, deleted.right());
+                }
+
+                final int index = indexAfterEntry(operation.getAfterEntryWithId(), deleted.left());
+                edits.add(ChapterEdit.delete(entryId));
+                edits.add(ChapterEdit.insert(operation.getAfterEntryWithId(), deleted.right()));
+                yield Pair.of(deleted.left().insertEntryAt(index, deleted.right()), deleted.right());
+            }
+        };
+    }
+
+    private static int indexAfterEntry(final UUID entryId, final Chapter chapter) {
+        return entryId == null
+                ? 0
+                : indexOfEntryInChapter(entryId, chapter).right() + 1;
     }
 
     private static Pair<Chapter, Integer> indexOfEntryInChapter(final UUID entryId, final Chapter chapter) {
@@ -87,10 +270,69 @@ public class BookService {
 
     }
 
-    private Chapter writeChapter(final Pair<ChapterPath, Chapter> chapterAndPath) {
-        requireNonNull(chapterAndPath);
-        return chapterAndPath
-                .with((path, chapter) -> data.writeChapter(path.getPath(), chapter))
-                .right();
+    private Result<Chapter> writeChapter(final ChapterPath chapterPath, final Chapter updated,
+                                         final List<ChapterEdit> edits) {
+        return data.writeChapterEdits(chapterPath.getPath(), updated, edits)
+                .then(written -> {
+                    versions.changed(chapterPath.getPath());
+                    updateEntryDirectories(chapterPath.getPath(), written);
+                    return written;
+                });
+    }
+
+    private Optional<LocatedEntry> locateEntry(final BookPath bookPath, final EntryDirectory directory,
+                                               final UUID entryId) {
+        return directory.find(entryId)
+                .flatMap(location -> {
+                    final Result<Chapter> chapter =
+                            readChapter(ChapterPath.of(bookPath, Path.of(location.getChapterPath())));
+                    if (!chapter.isValuePresent()) {
+                        return Optional.empty();
+                    }
+
+                    final EntryList entries = chapter.value().getEntries();
+                    final int index = location.getIndex() < entries.size()
+                            && entryId.equals(entries.get(location.getIndex()).getId())
+                            ? location.getIndex()
+                            : entries.indexOfId(entryId);
+                    if (index == -1) {
+                        return Optional.empty();
+                    }
+
+                    return Optional.of(LocatedEntry.builder()
+                            .chapterPath(location.getChapterPath())
+                            .index(index)
+                            .entry(entries.get(index))
+                            .build());
+                });
+    }
+
+    private boolean changedSince(final BookPath bookPath, final EntryDirectory directory) {
+        return versions.changedSince(bookPath.getPath(), directory.getVersion())
+                || directory.chapterPaths().stream()
+                .map(chapterPath -> ChapterPath.of(bookPath, Path.of(chapterPath)).getPath())
+                .anyMatch(path -> versions.changedSince(path, directory.getVersion()));
+    }
+
+    /* Only the books that have this chapter are updated */
+    private void updateEntryDirectories(final Path chapterFile, final Chapter chapter) {
+        final Path file = key(chapterFile);
+        directories.forEach((bookFile, directory) -> {
+            final String chapterPath = bookFile.getParent().relativize(file).toString();
+            if (directory.containsChapter(chapterPath)) {
+                directory.putChapter(chapterPath, chapter.getEntries());
+            }
+        });
+    }
+
+    private static Path key(final Path file) {
+        return file.toAbsolutePath().normalize();
+    }
+
+    @Value
+    private static class AppliedOperations {
+        Chapter chapter;
+        List<Entry> entries;
+        List<ChapterEdit> edits;
     }
 }
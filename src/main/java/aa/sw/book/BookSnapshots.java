@@ -0,0 +1,179 @@
+package aa.sw.book;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonPOJOBuilder;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import lombok.Builder;
+import lombok.Value;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipal;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static java.util.Objects.requireNonNull;
+
+/* Snapshots of the chapters of a book as parsed, encoded in Smile, so that a book is reopened after a restart without
+   parsing the JSON of its chapters.  Each book has one snapshot in the snapshot directory, named after the path of the
+   book, which holds the checksum of each chapter file as it was parsed.  Only the chapters whose file still has this
+   checksum are taken from a snapshot, and the others are parsed as usual.
+
+   The entries of a snapshot are trusted like the chapters they replace, so the snapshot directory is only readable by
+   its owner, and a snapshot is only read when both the snapshot and its directory belong to the user running the
+   application and cannot be written by anyone else. */
+class BookSnapshots {
+
+    /* Changes whenever the way the entries are encoded changes, so that older snapshots are ignored */
+    static final int FORMAT = 2;
+
+    private static final HashFunction NAME = Hashing.murmur3_128();
+    private static final Set<PosixFilePermission> OWNER_ONLY = PosixFilePermissions.fromString("rwx------");
+    private static final Set<PosixFilePermission> WRITABLE_BY_OTHERS =
+            EnumSet.of(PosixFilePermission.GROUP_WRITE, PosixFilePermission.OTHERS_WRITE);
+
+    private final Path directory;
+    private final ObjectReader reader;
+    private final ObjectWriter writer;
+
+    BookSnapshots(final Path directory, final ObjectMapper reader, final ObjectMapper writer) {
+        this.directory = requireNonNull(directory);
+
+        final SmileFactory smile = new SmileFactory();
+        this.reader = reader.readerFor(Snapshot.class).with(smile);
+        this.writer = writer.writerFor(Snapshot.class).with(smile);
+    }
+
+    Path pathOf(final Path bookPath) {
+        requireNonNull(bookPath);
+
+        final String key = bookPath.toAbsolutePath().normalize().toString();
+        return directory.resolve(NAME.hashString(key, StandardCharsets.UTF_8) + ".smile");
+    }
+
+    /* The snapshot is mapped rather than read, and is decoded in one sequential pass.  Returns empty when the book
+       has no snapshot, or when its snapshot was taken by another version of the application.  Fails when the
+       snapshot is not private to this user. */
+    Optional<Snapshot> read(final Path bookPath) throws IOException {
+        requireNonNull(bookPath);
+
+        final Path file = pathOf(bookPath);
+        try {
+            checkPrivate(directory);
+            checkPrivate(file);
+        } catch (final NoSuchFileException e) {
+            return Optional.empty();
+        }
+
+        final Snapshot snapshot;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, LinkOption.NOFOLLOW_LINKS)) {
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            try (InputStream input = new ByteBufferBackedInputStream(buffer)) {
+                snapshot = reader.readValue(input);
+            }
+        } catch (final NoSuchFileException e) {
+            return Optional.empty();
+        }
+
+        return snapshot.getFormat() == FORMAT
+                ? Optional.of(snapshot)
+                : Optional.empty();
+    }
+
+    /* The snapshot is written next to the one it replaces, in a temporary file only its owner can read, and moved over
+       it once complete */
+    void write(final Path bookPath, final Snapshot snapshot) throws IOException {
+        requireNonNull(bookPath);
+        requireNonNull(snapshot);
+
+        createDirectory();
+        final Path file = pathOf(bookPath);
+        final Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            writer.writeValue(temporary.toFile(), snapshot);
+            Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (final IOException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+    }
+
+    /* A directory that already exists is only used when it belongs to this user, and is then made owner-only too */
+    private void createDirectory() throws IOException {
+        if (isPosix()) {
+            Files.createDirectories(directory, PosixFilePermissions.asFileAttribute(OWNER_ONLY));
+            checkOwner(directory);
+            Files.setPosixFilePermissions(directory, OWNER_ONLY);
+        } else {
+            Files.createDirectories(directory);
+            checkOwner(directory);
+        }
+    }
+
+    private void checkPrivate(final Path path) throws IOException {
+        checkOwner(path);
+        if (isPosix() && !Collections.disjoint(Files.getPosixFilePermissions(path, LinkOption.NOFOLLOW_LINKS),
+                WRITABLE_BY_OTHERS)) {
+            throw new IOException(String.format("The snapshot %s can be written by other users", path));
+        }
+    }
+
+    private void checkOwner(final Path path) throws IOException {
+        final UserPrincipal owner = Files.getOwner(path, LinkOption.NOFOLLOW_LINKS);
+        final UserPrincipal user = directory.getFileSystem().getUserPrincipalLookupService()
+                .lookupPrincipalByName(System.getProperty("user.name"));
+        if (!owner.equals(user)) {
+            throw new IOException(String.format("The snapshot %s belongs to %s, not to %s",
+                    path, owner.getName(), user.getName()));
+        }
+    }
+
+    private boolean isPosix() {
+        return directory.getFileSystem().supportedFileAttributeViews().contains("posix");
+    }
+
+    @Value
+    @Builder
+    @JsonDeserialize(builder = Snapshot.SnapshotBuilder.class)
+    static class Snapshot {
+        int format;
+        List<SnapshotChapter> chapters;
+
+        @JsonPOJOBuilder(withPrefix = "")
+        public static class SnapshotBuilder {
+        }
+    }
+
+    @Value
+    @Builder
+    @JsonDeserialize(builder = SnapshotChapter.SnapshotChapterBuilder.class)
+    static class SnapshotChapter {
+        String chapterPath;
+        String checksum;
+        List<Entry> entries;
+
+        @JsonPOJOBuilder(withPrefix = "")
+        public static class SnapshotChapterBuilder {
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package aa.sw.book;
+
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.util.Objects.requireNonNull;
+
+/* Keeps the version at which each book and chapter file last changed.  The versions start from the time the
+   application started, so that the versions handed out before a restart are older than any file, and clients that
+   hold one get all chapters again. */
+@Component
+public class BookVersions {
+
+    private final long initialVersion = System.currentTimeMillis() * 1_000;
+    private final AtomicLong version = new AtomicLong(initialVersion);
+    private final Map<Path, Long> changes = new ConcurrentHashMap<>();
+
+    public long current() {
+        return version.get();
+    }
+
+    public long changed(final Path file) {
+        requireNonNull(file);
+
+        final long changed = version.incrementAndGet();
+        changes.merge(key(file), changed, Math::max);
+        return changed;
+    }
+
+    /* Files that did not change since the application started are considered changed at the initial version */
+    public boolean changedSince(final Path file, final long since) {
+        requireNonNull(file);
+
+        return changes.getOrDefault(key(file), initialVersion) > since;
+    }
+
+    private static Path key(final Path file) {
+        return file.toAbsolutePath().normalize();
+    }
+}
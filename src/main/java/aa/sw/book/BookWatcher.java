@@ -0,0 +1,188 @@
+package aa.sw.book;
+
+import aa.sw.config.AppProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static aa.sw.common.UncheckedIo.uncheckedIo;
+import static java.util.Objects.requireNonNull;
+
+/* Watches the directories of the open books and publishes the files that changed outside of the application.  The
+   events of a file are published once the file has been quiet for a while, so that a burst of events, like a git
+   checkout, results in one change per chapter. */
+@Service
+public class BookWatcher {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BookWatcher.class);
+
+    static final String DESTINATION = "/topic/book/changes";
+
+    private final SimpMessageSendingOperations messaging;
+    private final BookData data;
+    private final BookVersions versions;
+    private final long quietPeriodNanos;
+    private final WatchService watchService;
+    private final Map<Path, Set<BookPath>> books = new ConcurrentHashMap<>();
+
+    /* The files that changed, with the time of their last event.  Only used by the watcher thread. */
+    private final Map<Path, Long> pending = new HashMap<>();
+    private final Thread thread;
+
+    public BookWatcher(final SimpMessageSendingOperations messaging, final BookData data, final BookVersions versions,
+                       final AppProperties properties) {
+        requireNonNull(messaging);
+        requireNonNull(data);
+        requireNonNull(versions);
+        requireNonNull(properties);
+
+        this.messaging = messaging;
+        this.data = data;
+        this.versions = versions;
+        this.quietPeriodNanos = properties.getBook().getWatchQuietPeriod().toNanos();
+        this.watchService = uncheckedIo(() -> FileSystems.getDefault().newWatchService());
+        this.thread = new Thread(this::processEvents, "book-watcher");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /* Failing to watch a book does not fail opening it, the book is just not refreshed */
+    public void watch(final BookPath bookPath) {
+        requireNonNull(bookPath);
+
+        final Set<BookPath> watched = books.computeIfAbsent(
+                bookPath.getDirectory().toAbsolutePath().normalize(), this::register);
+        if (watched != null) {
+            watched.add(bookPath);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        thread.interrupt();
+        uncheckedIo(watchService::close);
+    }
+
+    private void processEvents() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                final WatchKey key = pending.isEmpty()
+                        ? watchService.take()
+                        : watchService.poll(nanosUntilNextQuietFile(), TimeUnit.NANOSECONDS);
+                if (key != null) {
+                    collectEvents(key);
+                }
+                publishQuietFiles();
+            }
+        } catch (final InterruptedException | ClosedWatchServiceException e) {
+            /* The watcher was closed */
+        }
+    }
+
+    /* Returns null when the directory cannot be watched, so that it is tried again the next time */
+    private Set<BookPath> register(final Path directory) {
+        try {
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+            return ConcurrentHashMap.newKeySet();
+        } catch (final IOException | ClosedWatchServiceException e) {
+            LOGGER.warn("Failed to watch the book directory {}", directory, e);
+            return null;
+        }
+    }
+
+    private void collectEvents(final WatchKey key) {
+        final Path directory = (Path) key.watchable();
+        final long now = System.nanoTime();
+        for (final WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                /* The events were lost, and all books in this directory are refreshed */
+                pending.put(directory, now);
+                continue;
+            }
+
+            final Path file = directory.resolve((Path) event.context());
+            if (isBookFile(file)) {
+                pending.put(file, now);
+            }
+        }
+
+        if (!key.reset()) {
+            books.remove(directory);
+        }
+    }
+
+    private void publishQuietFiles() {
+        final long now = System.nanoTime();
+        for (final Iterator<Map.Entry<Path, Long>> i = pending.entrySet().iterator(); i.hasNext(); ) {
+            final Map.Entry<Path, Long> entry = i.next();
+            if (now - entry.getValue() >= quietPeriodNanos) {
+                i.remove();
+                publish(entry.getKey());
+            }
+        }
+    }
+
+    private long nanosUntilNextQuietFile() {
+        final long oldest = Collections.min(pending.values());
+        return Math.max(1, oldest + quietPeriodNanos - System.nanoTime());
+    }
+
+    private void publish(final Path file) {
+        if (books.containsKey(file)) {
+            for (final BookPath bookPath : books.get(file)) {
+                versions.changed(bookPath.getPath());
+                send(BookChange.of(bookPath.toString(), null));
+            }
+            return;
+        }
+
+        /* The version changes whatever changed the file, so that the clients that ask for the changes since a version
+           never miss one.  Only the changes made by others are published, and a file that was read since it changed is
+           published too, as being cached does not tell who changed it. */
+        versions.changed(file);
+        if (data.isAsWritten(file)) {
+            return;
+        }
+
+        final Path fileName = file.getFileName();
+        for (final BookPath bookPath : books.getOrDefault(file.getParent(), Set.of())) {
+            send(fileName.equals(bookPath.getPath().getFileName())
+                    ? BookChange.of(bookPath.toString(), null)
+                    : BookChange.of(bookPath.toString(), fileName.toString()));
+        }
+    }
+
+    private void send(final BookChange change) {
+        try {
+            messaging.convertAndSend(DESTINATION, change);
+        } catch (final RuntimeException e) {
+            LOGGER.warn("Failed to publish the book change {}", change, e);
+        }
+    }
+
+    /* Temporary files and journals start with a dot and are not book files */
+    private static boolean isBookFile(final Path file) {
+        final String name = file.getFileName().toString();
+        return !name.startsWith(".") && name.endsWith(".json");
+    }
+}
@@ -10,7 +10,6 @@ import lombok.Value;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.function.Function;
@@ -26,7 +25,7 @@ import static java.util.Objects.requireNonNull;
 public class Chapter {
 
     String chapterPath;
-    List<Entry> entries;
+    EntryList entries;
 
     public static Chapter of(final String chapterPath, final String title, final String description) {
         requireNonNull(chapterPath);
@@ -40,16 +39,21 @@ public class Chapter {
     }
 
     public Optional<EntryIndex> findEntryWithId(final UUID id) {
-        return findEntry(entry -> Objects.equals(id, entry.getId()));
+        final int index = entries.indexOfId(id);
+        return index == -1
+                ? Optional.empty()
+                : Optional.of(new EntryIndex(index, entries.get(index)));
     }
 
     public Optional<EntryIndex> findEntry(final Predicate<Entry> predicate) {
         requireNonNull(predicate);
 
-        for (int i = 0; i < entries.size(); i++) {
-            if (predicate.test(entries.get(i))) {
-                return Optional.of(new EntryIndex(i, entries.get(i)));
+        int index = 0;
+        for (final Entry entry : entries) {
+            if (predicate.test(entry)) {
+                return Optional.of(new EntryIndex(index, entry));
             }
+            index++;
         }
 
         return Optional.empty();
@@ -64,9 +68,7 @@ public class Chapter {
             return this;
         }
 
-        final List<Entry> updated = new ArrayList<>(entries);
-        updated.set(index, entry);
-        return withEntries(updated);
+        return withEntries(entries.swap(index, entry));
     }
 
     public Chapter insertEntryAt(final int index, final Entry entry) {
@@ -82,26 +84,11 @@ public class Chapter {
     public Pair<Chapter, Entry> deleteEntryAt(final int index) {
         requireInIndexRange(index);
 
-        final List<Entry> updated = new ArrayList<>(entries.size() - 1);
-        if (isNotTheFirstEntry(index)) {updated.addAll(entries.subList(0, index));}
-        if (isNotTheLastEntry(index)) {updated.addAll(entries.subList(index + 1, entries.size()));}
-
-        return Pair.of(withEntries(updated), entries.get(index));
-    }
-
-    private boolean isNotTheFirstEntry(final int index) {
-        return index > 0;
-    }
-
-    private boolean isNotTheLastEntry(final int index) {
-        return index < entries.size() - 1;
+        return Pair.of(withEntries(entries.delete(index)), entries.get(index));
     }
 
     private Chapter _insertEntryAt(final int index, final Entry entry) {
-        final List<Entry> updated = new ArrayList<>(entries.size() + 1);
-        updated.addAll(entries);
-        updated.add(index, entry);
-        return withEntries(updated);
+        return withEntries(entries.insert(index, entry));
     }
 
     public <T> T map(final Function<Chapter, T> mapper) {
@@ -126,10 +113,11 @@ public class Chapter {
         }
     }
 
-    private Chapter withEntries(final List<Entry> entries) {
+    /* Keeps the entry list, and its index, instead of copying the entries through the builder */
+    private Chapter withEntries(final EntryList entries) {
         requireNonNull(entries);
 
-        return toBuilder().entries(entries).build();
+        return new Chapter(chapterPath, entries);
     }
 
     @JsonPOJOBuilder(withPrefix = "")
@@ -160,7 +148,7 @@ public class Chapter {
             requireNonNull(chapterPath);
             requireNonNull(entries);
 
-            return new Chapter(chapterPath, List.copyOf(entries));
+            return new Chapter(chapterPath, EntryList.of(entries));
         }
     }
 
@@ -0,0 +1,89 @@
+package aa.sw.book;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonPOJOBuilder;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.List;
+import java.util.UUID;
+
+import static java.util.Objects.requireNonNull;
+
+/* A change made to a chapter, as written to the chapter journal.  Edits refer to entries by their id, and not by
+   their index, so that they can be replayed on the chapter they were made to. */
+@Value
+@Builder
+@JsonDeserialize(builder = ChapterEdit.ChapterEditBuilder.class)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class ChapterEdit {
+
+    Edit edit;
+    Entry entry;
+    UUID entryId;
+    UUID afterEntryWithId;
+
+    public enum Edit {
+        INSERT,
+        SAVE,
+        DELETE
+    }
+
+    /* Inserts the entry after the given entry, or at the start of the chapter when this is null */
+    public static ChapterEdit insert(final UUID afterEntryWithId, final Entry entry) {
+        requireNonNull(entry);
+
+        return new ChapterEdit(Edit.INSERT, entry, null, afterEntryWithId);
+    }
+
+    public static ChapterEdit save(final Entry entry) {
+        requireNonNull(entry);
+
+        return new ChapterEdit(Edit.SAVE, entry, null, null);
+    }
+
+    public static ChapterEdit delete(final UUID entryId) {
+        requireNonNull(entryId);
+
+        return new ChapterEdit(Edit.DELETE, null, entryId, null);
+    }
+
+    public static Chapter applyAll(final Chapter chapter, final List<ChapterEdit> edits) {
+        requireNonNull(chapter);
+        requireNonNull(edits);
+
+        Chapter updated = chapter;
+        for (final ChapterEdit edit : edits) {
+            updated = edit.apply(updated);
+        }
+        return updated;
+    }
+
+    public Chapter apply(final Chapter chapter) {
+        requireNonNull(chapter);
+
+        return switch (edit) {
+            case INSERT -> {
+                final int index = afterEntryWithId == null
+                        ? 0
+                        : indexOfEntry(chapter, afterEntryWithId) + 1;
+                yield chapter.insertEntryAt(index, entry);
+            }
+            case SAVE -> chapter.swapEntryAt(indexOfEntry(chapter, entry.getId()), entry);
+            case DELETE -> chapter.deleteEntryAt(indexOfEntry(chapter, entryId)).left();
+        };
+    }
+
+    private static int indexOfEntry(final Chapter chapter, final UUID entryId) {
+        return chapter.findEntryWithId(entryId)
+                .map(Chapter.EntryIndex::getIndex)
+                .orElseThrow(EntryNotFoundException::new);
+    }
+
+    @JsonPOJOBuilder(withPrefix = "")
+    public static class ChapterEditBuilder {}
+}
@@ -0,0 +1,132 @@
+package aa.sw.book;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.google.common.hash.HashCode;
+import lombok.Value;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static java.util.Objects.requireNonNull;
+
+/* The journal of a chapter holds the edits made to the chapter since the chapter file was last written.  The first
+   line holds the checksum of the chapter file the edits apply to, and each of the following lines holds the edits of
+   one change, as a JSON array.  A line that was not completely written, when the application stopped while
+   appending, is ignored and overwritten by the next append. */
+class ChapterJournal {
+
+    private static final byte NEW_LINE = '\n';
+
+    private final ObjectMapper mapper;
+    private final ObjectWriter writer;
+    private final JavaType editsType;
+    private final boolean fsync;
+
+    ChapterJournal(final ObjectMapper mapper, final boolean fsync) {
+        this.mapper = requireNonNull(mapper);
+        this.writer = mapper.writer();
+        this.editsType = mapper.getTypeFactory().constructCollectionType(List.class, ChapterEdit.class);
+        this.fsync = fsync;
+    }
+
+    static Path pathOf(final Path chapterPath) {
+        requireNonNull(chapterPath);
+
+        return chapterPath.resolveSibling(String.format(".%s.journal", chapterPath.getFileName()));
+    }
+
+    /* Returns empty when the journal does not have a complete header */
+    Optional<Contents> read(final Path journalPath) throws IOException {
+        requireNonNull(journalPath);
+
+        final byte[] bytes = Files.readAllBytes(journalPath);
+        int lineStart = 0;
+        String base = null;
+        final List<ChapterEdit> edits = new ArrayList<>();
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] != NEW_LINE) {
+                continue;
+            }
+
+            if (base == null) {
+                final JsonNode header = mapper.readTree(bytes, lineStart, i - lineStart);
+                base = header.path("base").asText();
+            } else {
+                edits.addAll(mapper.readValue(bytes, lineStart, i - lineStart, editsType));
+            }
+            lineStart = i + 1;
+        }
+
+        return base == null
+                ? Optional.empty()
+                : Optional.of(new Contents(base, edits, lineStart));
+    }
+
+    long create(final Path journalPath, final HashCode base) throws IOException {
+        requireNonNull(journalPath);
+        requireNonNull(base);
+
+        final byte[] header = line(writer.writeValueAsBytes(Map.of("base", base.toString())));
+        try (FileChannel channel = FileChannel.open(journalPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            write(channel, header);
+        }
+        return header.length;
+    }
+
+    /* Appends the edits after the given length, which is the end of the last complete line */
+    long append(final Path journalPath, final long length, final List<ChapterEdit> edits) throws IOException {
+        requireNonNull(journalPath);
+        requireNonNull(edits);
+
+        final byte[] line = line(writer.writeValueAsBytes(edits));
+        try (FileChannel channel = FileChannel.open(journalPath, StandardOpenOption.WRITE)) {
+            if (channel.size() > length) {
+                channel.truncate(length);
+            }
+            channel.position(length);
+            write(channel, line);
+        }
+        return length + line.length;
+    }
+
+    private void write(final FileChannel channel, final byte[] bytes) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+
+        if (fsync) {
+            channel.force(false);
+        }
+    }
+
+    private static byte[] line(final byte[] json) {
+        final byte[] line = new byte[json.length + 1];
+        System.arraycopy(json, 0, line, 0, json.length);
+        line[json.length] = NEW_LINE;
+        return line;
+    }
+
+    @Value
+    static class Contents {
+        String base;
+        List<ChapterEdit> edits;
+        long length;
+
+        boolean appliesTo(final HashCode chapterChecksum) {
+            return base.equals(chapterChecksum.toString());
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package aa.sw.book;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.List;
+import java.util.Optional;
+
+import static java.util.Objects.requireNonNull;
+
+@Value
+@Builder
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ChapterOutline {
+
+    String chapterPath;
+    String title;
+    int numberOfEntries;
+
+    public static ChapterOutline of(final String chapterPath, final List<Entry> entries) {
+        requireNonNull(chapterPath);
+        requireNonNull(entries);
+
+        final String title = entries.stream()
+                .map(entry -> titleOf(entry.getType(), entry.getParameters()))
+                .flatMap(Optional::stream)
+                .findFirst()
+                .orElse(null);
+
+        return new ChapterOutline(chapterPath, title, entries.size());
+    }
+
+    /* The title of a chapter is found in the chapter entry, with the parameters `Title:n` followed by n lines */
+    static Optional<String> titleOf(final String type, final List<String> parameters) {
+        if (!"chapter".equals(type) || parameters == null || parameters.isEmpty()) {
+            return Optional.empty();
+        }
+
+        final String header = parameters.get(0);
+        if (!header.startsWith("Title:")) {
+            return Optional.empty();
+        }
+
+        final int lines;
+        try {
+            lines = Integer.parseInt(header.substring("Title:".length()));
+        } catch (final NumberFormatException e) {
+            return Optional.empty();
+        }
+
+        if (lines < 1 || parameters.size() < 2) {
+            return Optional.empty();
+        }
+
+        return Optional.of(String.join("\n", parameters.subList(1, Math.min(parameters.size(), 1 + lines))));
+    }
+}
@@ -0,0 +1,96 @@
+package aa.sw.book;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static java.util.Objects.requireNonNull;
+
+/* Reads the outline of a chapter without binding its entries.  Only the fields needed to find the chapter title are
+   read, and once the title is found the remaining entries are only counted. */
+class ChapterOutlineReader {
+
+    private final JsonFactory factory;
+
+    ChapterOutlineReader(final JsonFactory factory) {
+        this.factory = requireNonNull(factory);
+    }
+
+    ChapterOutline read(final Path file, final String chapterPath) throws IOException {
+        requireNonNull(file);
+        requireNonNull(chapterPath);
+
+        try (JsonParser parser = factory.createParser(file.toFile())) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Expected the chapter to be an object");
+            }
+
+            final ChapterOutline.ChapterOutlineBuilder builder = ChapterOutline.builder().chapterPath(chapterPath);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final String field = parser.getCurrentName();
+                if (parser.nextToken() == JsonToken.START_ARRAY && "entries".equals(field)) {
+                    readEntries(parser, builder);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+
+            return builder.build();
+        }
+    }
+
+    private static void readEntries(final JsonParser parser, final ChapterOutline.ChapterOutlineBuilder builder) throws IOException {
+        int numberOfEntries = 0;
+        String title = null;
+
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (parser.currentToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Expected the entry to be an object");
+            }
+
+            numberOfEntries++;
+            if (title == null) {
+                title = readTitle(parser).orElse(null);
+            } else {
+                parser.skipChildren();
+            }
+        }
+
+        builder.numberOfEntries(numberOfEntries).title(title);
+    }
+
+    private static Optional<String> readTitle(final JsonParser parser) throws IOException {
+        String type = null;
+        List<String> parameters = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String field = parser.getCurrentName();
+            final JsonToken value = parser.nextToken();
+            if ("type".equals(field) && value == JsonToken.VALUE_STRING) {
+                type = parser.getText();
+            } else if ("parameters".equals(field) && value == JsonToken.START_ARRAY) {
+                parameters = readStrings(parser);
+            } else {
+                parser.skipChildren();
+            }
+        }
+
+        return ChapterOutline.titleOf(type, parameters);
+    }
+
+    private static List<String> readStrings(final JsonParser parser) throws IOException {
+        final List<String> strings = new ArrayList<>();
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            strings.add(parser.getValueAsString());
+            parser.skipChildren();
+        }
+        return strings;
+    }
+}
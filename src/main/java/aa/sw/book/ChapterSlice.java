@@ -0,0 +1,71 @@
+package aa.sw.book;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Objects.requireNonNull;
+
+/* A window over the entries of a chapter, with the number of entries in the whole chapter */
+@Value
+@Builder
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class ChapterSlice {
+
+    String chapterPath;
+    int offset;
+    int totalNumberOfEntries;
+    List<Entry> entries;
+
+    public static ChapterSlice of(final String chapterPath, final List<Entry> entries, final int offset,
+                                  final int limit) {
+        requireNonNull(chapterPath);
+        requireNonNull(entries);
+        requireValidRange(offset, limit);
+
+        final int from = Math.min(offset, entries.size());
+        final int to = (int) Math.min(entries.size(), (long) offset + limit);
+        return new ChapterSlice(chapterPath, offset, entries.size(), List.copyOf(entries.subList(from, to)));
+    }
+
+    static void requireValidRange(final int offset, final int limit) {
+        if (offset < 0) {
+            throw new IllegalArgumentException("The offset cannot be negative");
+        }
+        if (limit < 0) {
+            throw new IllegalArgumentException("The limit cannot be negative");
+        }
+    }
+
+    public static class ChapterSliceBuilder {
+        private final List<Entry> entries = new ArrayList<>();
+
+        public ChapterSliceBuilder entry(final Entry entry) {
+            requireNonNull(entry);
+
+            entries.add(entry);
+            return this;
+        }
+
+        public ChapterSliceBuilder entries(final List<Entry> entries) {
+            requireNonNull(entries);
+
+            this.entries.clear();
+            this.entries.addAll(entries);
+            return this;
+        }
+
+        public ChapterSlice build() {
+            return new ChapterSlice(
+                    requireNonNull(chapterPath, "The chapter path cannot be null"),
+                    offset,
+                    totalNumberOfEntries,
+                    List.copyOf(entries)
+            );
+        }
+    }
+}
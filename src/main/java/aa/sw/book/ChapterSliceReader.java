@@ -0,0 +1,73 @@
+package aa.sw.book;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static java.util.Objects.requireNonNull;
+
+/* Reads a slice of the entries of a chapter without parsing the whole chapter.  Only the entries within the slice are
+   bound, and the others are skipped and counted. */
+class ChapterSliceReader {
+
+    private final JsonFactory factory;
+    private final ObjectReader entryReader;
+
+    ChapterSliceReader(final ObjectMapper mapper) {
+        requireNonNull(mapper);
+
+        this.factory = mapper.getFactory();
+        this.entryReader = mapper.readerFor(Entry.class);
+    }
+
+    ChapterSlice read(final Path file, final String chapterPath, final int offset, final int limit) throws IOException {
+        requireNonNull(file);
+        requireNonNull(chapterPath);
+        ChapterSlice.requireValidRange(offset, limit);
+
+        try (JsonParser parser = factory.createParser(file.toFile())) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Expected the chapter to be an object");
+            }
+
+            final ChapterSlice.ChapterSliceBuilder builder = ChapterSlice.builder()
+                    .chapterPath(chapterPath)
+                    .offset(offset);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final String field = parser.getCurrentName();
+                if (parser.nextToken() == JsonToken.START_ARRAY && "entries".equals(field)) {
+                    readEntries(parser, offset, limit, builder);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+
+            return builder.build();
+        }
+    }
+
+    private void readEntries(final JsonParser parser, final int offset, final int limit,
+                             final ChapterSlice.ChapterSliceBuilder builder) throws IOException {
+        int index = 0;
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (parser.currentToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Expected the entry to be an object");
+            }
+
+            if (index >= offset && index - offset < limit) {
+                builder.entry(entryReader.<Entry>readValue(parser));
+            } else {
+                parser.skipChildren();
+            }
+            index++;
+        }
+
+        builder.totalNumberOfEntries(index);
+    }
+}
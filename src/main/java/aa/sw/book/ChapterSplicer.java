@@ -0,0 +1,156 @@
+package aa.sw.book;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import static java.util.Objects.requireNonNull;
+
+/* Writes chapter files by reusing the bytes of the entries that did not change since the file was last written, and
+   serializing only the entries that changed.  The bytes are the same as those of writing the whole chapter, as each
+   entry is pretty printed the same wherever it is in the chapter, and so are the bytes around and between entries. */
+class ChapterSplicer {
+
+    private final ObjectWriter writer;
+    private final JsonFactory factory;
+    private final byte[] head;
+    private final byte[] separator;
+    private final byte[] tail;
+
+    ChapterSplicer(final ObjectWriter writer, final JsonFactory factory) throws IOException {
+        requireNonNull(writer);
+        requireNonNull(factory);
+
+        this.writer = writer;
+        this.factory = factory;
+
+        /* The bytes around and between the entries are taken from a chapter of empty entries */
+        final Layout empty = write(EntryList.of(List.of(Entry.builder().build(), Entry.builder().build())));
+        this.head = Arrays.copyOfRange(empty.content, 0, empty.starts[0]);
+        this.separator = Arrays.copyOfRange(empty.content, empty.ends[0], empty.starts[1]);
+        this.tail = Arrays.copyOfRange(empty.content, empty.ends[1], empty.content.length);
+    }
+
+    /* Serializes the whole chapter */
+    Layout write(final EntryList entries) throws IOException {
+        requireNonNull(entries);
+
+        final byte[] content = writer.writeValueAsBytes(BookData.ChapterFile.builder().entries(entries).build());
+        final int[] starts = new int[entries.size()];
+        final int[] ends = new int[entries.size()];
+        readSpans(content, starts, ends);
+        return new Layout(entries, content, starts, ends);
+    }
+
+    /* The entries at the start and at the end of the chapter that are the same instances as before are copied from
+       the previous layout, and the ones in between are serialized.  Entries are compared by identity, as equal
+       entries may still print differently, like maps with the same values in a different order.  A chapter without
+       entries is written whole, as its array is printed differently. */
+    Layout splice(final Layout previous, final EntryList entries) throws IOException {
+        requireNonNull(previous);
+        requireNonNull(entries);
+
+        if (entries.isEmpty()) {
+            return write(entries);
+        }
+
+        final EntryList before = previous.entries;
+        final int common = Math.min(before.size(), entries.size());
+        int prefix = 0;
+        while (prefix < common && before.get(prefix) == entries.get(prefix)) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < common - prefix
+                && before.get(before.size() - 1 - suffix) == entries.get(entries.size() - 1 - suffix)) {
+            suffix++;
+        }
+
+        final Layout changed = write(EntryList.of(entries.subList(prefix, entries.size() - suffix)));
+
+        final ByteArrayOutputStream content = new ByteArrayOutputStream(
+                previous.content.length + changed.content.length);
+        final int[] starts = new int[entries.size()];
+        final int[] ends = new int[entries.size()];
+        content.write(head);
+        for (int i = 0; i < entries.size(); i++) {
+            if (i > 0) {
+                content.write(separator);
+            }
+
+            final Layout source;
+            final int index;
+            if (i < prefix) {
+                source = previous;
+                index = i;
+            } else if (i >= entries.size() - suffix) {
+                source = previous;
+                index = i - entries.size() + before.size();
+            } else {
+                source = changed;
+                index = i - prefix;
+            }
+
+            starts[i] = content.size();
+            content.write(source.content, source.starts[index], source.ends[index] - source.starts[index]);
+            ends[i] = content.size();
+        }
+        content.write(tail);
+
+        return new Layout(entries, content.toByteArray(), starts, ends);
+    }
+
+    /* The offsets are those of the parsed tokens, so these are byte offsets as the content is parsed as bytes */
+    private void readSpans(final byte[] content, final int[] starts, final int[] ends) throws IOException {
+        try (JsonParser parser = factory.createParser(content)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Expected the chapter to be an object");
+            }
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final String field = parser.getCurrentName();
+                if (parser.nextToken() == JsonToken.START_ARRAY && "entries".equals(field)) {
+                    int index = 0;
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        starts[index] = (int) parser.getTokenLocation().getByteOffset();
+                        parser.skipChildren();
+                        ends[index] = (int) parser.getTokenLocation().getByteOffset() + 1;
+                        index++;
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+    }
+
+    /* The content of a chapter file as written, and where each of its entries starts and ends */
+    static final class Layout {
+        private final EntryList entries;
+        private final byte[] content;
+        private final int[] starts;
+        private final int[] ends;
+
+        private Layout(final EntryList entries, final byte[] content, final int[] starts, final int[] ends) {
+            this.entries = entries;
+            this.content = content;
+            this.starts = starts;
+            this.ends = ends;
+        }
+
+        EntryList getEntries() {
+            return entries;
+        }
+
+        byte[] getContent() {
+            return content;
+        }
+    }
+}
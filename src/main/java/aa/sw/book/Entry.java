@@ -2,9 +2,13 @@ package aa.sw.book;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonPOJOBuilder;
+import lombok.AccessLevel;
 import lombok.Builder;
+import lombok.Getter;
 import lombok.Value;
 
 import java.time.Duration;
@@ -19,8 +23,16 @@ import static java.util.Objects.requireNonNull;
 @Builder(toBuilder = true)
 @JsonDeserialize(builder = Entry.EntryBuilder.class)
 @JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonPropertyOrder({"type", "id", "name", "workingDirectory", "parameters", "variables", "environmentVariables",
+        "values", "ignoreErrors", "pushChanges", "dryRun", "sensitive", "expectedExitValue", "commandTimeout"})
 public class Entry {
 
+    /* The optional flags are packed in two bits each, one telling whether the flag is set and the other its value */
+    private static final int IGNORE_ERRORS = 0;
+    private static final int PUSH_CHANGES = 2;
+    private static final int DRY_RUN = 4;
+    private static final int SENSITIVE = 6;
+
     String type;
     UUID id;
     String name;
@@ -29,10 +41,9 @@ public class Entry {
     List<String> variables;
     List<String> environmentVariables;
     Map<String, String> values;
-    Boolean ignoreErrors;
-    Boolean pushChanges;
-    Boolean dryRun;
-    Boolean sensitive;
+    @JsonIgnore
+    @Getter(AccessLevel.NONE)
+    byte flags;
     Integer expectedExitValue;
     Duration commandTimeout;
 
@@ -44,12 +55,76 @@ public class Entry {
                 .build();
     }
 
+    @JsonProperty
+    public Boolean getIgnoreErrors() {
+        return flag(flags, IGNORE_ERRORS);
+    }
+
+    @JsonProperty
+    public Boolean getPushChanges() {
+        return flag(flags, PUSH_CHANGES);
+    }
+
+    @JsonProperty
+    public Boolean getDryRun() {
+        return flag(flags, DRY_RUN);
+    }
+
+    @JsonProperty
+    public Boolean getSensitive() {
+        return flag(flags, SENSITIVE);
+    }
+
     public <T> T map(final Function<Entry, T> mapper) {
         requireNonNull(mapper);
 
         return mapper.apply(this);
     }
 
+    private static Boolean flag(final byte flags, final int flag) {
+        if ((flags & (1 << flag)) == 0) {
+            return null;
+        }
+
+        return (flags & (2 << flag)) != 0;
+    }
+
+    private static byte withFlag(final byte flags, final int flag, final Boolean value) {
+        final int cleared = flags & ~(3 << flag);
+        if (value == null) {
+            return (byte) cleared;
+        }
+
+        return (byte) (cleared | (1 << flag) | (value ? 2 << flag : 0));
+    }
+
     @JsonPOJOBuilder(withPrefix = "")
-    public static class EntryBuilder {}
+    public static class EntryBuilder {
+
+        public EntryBuilder ignoreErrors(final Boolean ignoreErrors) {
+            flags = withFlag(flags, IGNORE_ERRORS, ignoreErrors);
+            return this;
+        }
+
+        public EntryBuilder pushChanges(final Boolean pushChanges) {
+            flags = withFlag(flags, PUSH_CHANGES, pushChanges);
+            return this;
+        }
+
+        public EntryBuilder dryRun(final Boolean dryRun) {
+            flags = withFlag(flags, DRY_RUN, dryRun);
+            return this;
+        }
+
+        public EntryBuilder sensitive(final Boolean sensitive) {
+            flags = withFlag(flags, SENSITIVE, sensitive);
+            return this;
+        }
+
+        /* The packed flags are only copied by `toBuilder()`, and are set through the flags themselves otherwise */
+        private EntryBuilder flags(final byte flags) {
+            this.flags = flags;
+            return this;
+        }
+    }
 }
@@ -0,0 +1,91 @@
+package aa.sw.book;
+
+import lombok.Value;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+import static java.util.Objects.requireNonNull;
+
+/* Tells in which chapter of a book, and at which index, each entry is, so that an entry is found by its id alone.
+   The directory is built when the book is read, and kept up to date with the chapters written by the application.
+   The locations are checked against the chapter when used, as the chapters may be edited outside the application. */
+final class EntryDirectory {
+
+    private final long version;
+    private final Map<UUID, Location> locations = new HashMap<>();
+    private final Map<String, List<UUID>> chapters = new HashMap<>();
+
+    private EntryDirectory(final long version) {
+        this.version = version;
+    }
+
+    /* The version is the one of the book versions at which the book was read */
+    static EntryDirectory of(final long version, final Book book) {
+        requireNonNull(book);
+
+        final EntryDirectory directory = new EntryDirectory(version);
+        for (final Chapter chapter : book.getChapters()) {
+            directory.putChapter(chapter.getChapterPath(), chapter.getEntries());
+        }
+        return directory;
+    }
+
+    long getVersion() {
+        return version;
+    }
+
+    synchronized Optional<Location> find(final UUID id) {
+        requireNonNull(id);
+
+        return Optional.ofNullable(locations.get(id));
+    }
+
+    synchronized Set<String> chapterPaths() {
+        return Set.copyOf(chapters.keySet());
+    }
+
+    synchronized boolean containsChapter(final String chapterPath) {
+        requireNonNull(chapterPath);
+
+        return chapters.containsKey(chapterPath);
+    }
+
+    /* Replaces the entries of the chapter.  An entry that appears in more than one chapter is located in the last one
+       put. */
+    synchronized void putChapter(final String chapterPath, final List<Entry> entries) {
+        requireNonNull(chapterPath);
+        requireNonNull(entries);
+
+        final List<UUID> previous = chapters.remove(chapterPath);
+        if (previous != null) {
+            for (final UUID id : previous) {
+                final Location location = locations.get(id);
+                if (location != null && location.getChapterPath().equals(chapterPath)) {
+                    locations.remove(id);
+                }
+            }
+        }
+
+        final List<UUID> ids = new ArrayList<>(entries.size());
+        for (int index = 0; index < entries.size(); index++) {
+            final UUID id = entries.get(index).getId();
+            if (id != null) {
+                ids.add(id);
+                locations.put(id, new Location(chapterPath, index));
+            }
+        }
+        chapters.put(chapterPath, ids);
+    }
+
+    @Value
+    static class Location {
+        String chapterPath;
+        int index;
+    }
+}
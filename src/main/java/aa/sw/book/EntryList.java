@@ -0,0 +1,270 @@
+package aa.sw.book;
+
+import aa.sw.common.ChunkedList;
+
+import java.util.AbstractList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+import static java.util.Objects.requireNonNull;
+
+/* An immutable list of entries that finds entries by their id in constant time.  The index is built the first time
+   an entry is looked up.  Lists derived from an indexed list, through swap, insert or delete, derive their index
+   from the original list without rebuilding it.  The entries themselves are shared with the original list too. */
+public final class EntryList extends AbstractList<Entry> {
+
+    /* Lookups walk the chain of derived indices, which is rebuilt once it gets longer than this */
+    private static final int MAX_DERIVED_DEPTH = 32;
+
+    private static final EntryList EMPTY = new EntryList(ChunkedList.of(), null);
+
+    private final ChunkedList<Entry> entries;
+    private volatile IdIndex index;
+
+    private EntryList(final ChunkedList<Entry> entries, final IdIndex index) {
+        this.entries = entries;
+        this.index = index;
+    }
+
+    public static EntryList of() {
+        return EMPTY;
+    }
+
+    public static EntryList of(final List<Entry> entries) {
+        requireNonNull(entries);
+
+        if (entries instanceof EntryList list) {
+            return list;
+        }
+
+        for (final Entry entry : entries) {
+            requireNonNull(entry);
+        }
+        return new EntryList(ChunkedList.of(entries), null);
+    }
+
+    @Override
+    public Entry get(final int index) {
+        return entries.get(index);
+    }
+
+    @Override
+    public int size() {
+        return entries.size();
+    }
+
+    @Override
+    public Iterator<Entry> iterator() {
+        return entries.iterator();
+    }
+
+    /* Returns the index of the first entry with the given id, or -1 when no entry has this id */
+    public int indexOfId(final UUID id) {
+        if (id == null) {
+            return indexOfNullId();
+        }
+
+        return index().indexOf(id);
+    }
+
+    public EntryList swap(final int index, final Entry entry) {
+        requireNonNull(entry);
+
+        final ChunkedList<Entry> updated = entries.replace(index, entry);
+
+        final UUID previousId = entries.get(index).getId();
+        final UUID id = entry.getId();
+        final IdIndex current = this.index;
+        if (Objects.equals(previousId, id)) {
+            return new EntryList(updated, current);
+        }
+
+        return new EntryList(updated, canDerive(current) && (id == null || current.indexOf(id) == -1)
+                ? new Swapped(current, index, previousId, id)
+                : null);
+    }
+
+    public EntryList insert(final int index, final Entry entry) {
+        requireNonNull(entry);
+
+        final ChunkedList<Entry> updated = entries.insert(index, entry);
+
+        final UUID id = entry.getId();
+        final IdIndex current = this.index;
+        return new EntryList(updated, canDerive(current) && (id == null || current.indexOf(id) == -1)
+                ? new Inserted(current, index, id)
+                : null);
+    }
+
+    public EntryList delete(final int index) {
+        final ChunkedList<Entry> updated = entries.delete(index);
+
+        final IdIndex current = this.index;
+        return new EntryList(updated, canDerive(current)
+                ? new Deleted(current, index, entries.get(index).getId())
+                : null);
+    }
+
+    @Override
+    public Object[] toArray() {
+        return entries.toArray();
+    }
+
+    private IdIndex index() {
+        IdIndex current = this.index;
+        if (current == null) {
+            current = FullIndex.of(entries);
+            this.index = current;
+        }
+        return current;
+    }
+
+    private int indexOfNullId() {
+        int i = 0;
+        for (final Entry entry : entries) {
+            if (entry.getId() == null) {
+                return i;
+            }
+            i++;
+        }
+        return -1;
+    }
+
+    /* Derived indices are only exact when the ids are unique.  Lists with duplicate ids rebuild their index. */
+    private static boolean canDerive(final IdIndex index) {
+        return index != null && index.isUnique() && index.depth() < MAX_DERIVED_DEPTH;
+    }
+
+    private interface IdIndex {
+        int indexOf(UUID id);
+
+        boolean isUnique();
+
+        int depth();
+    }
+
+    private static final class FullIndex implements IdIndex {
+        private final Map<UUID, Integer> indices;
+        private final boolean unique;
+
+        private FullIndex(final Map<UUID, Integer> indices, final boolean unique) {
+            this.indices = indices;
+            this.unique = unique;
+        }
+
+        private static FullIndex of(final List<Entry> entries) {
+            final Map<UUID, Integer> indices = new HashMap<>(entries.size() * 4 / 3 + 1);
+            boolean unique = true;
+            int i = 0;
+            for (final Entry entry : entries) {
+                final UUID id = entry.getId();
+                if (id != null && indices.putIfAbsent(id, i) != null) {
+                    unique = false;
+                }
+                i++;
+            }
+            return new FullIndex(indices, unique);
+        }
+
+        @Override
+        public int indexOf(final UUID id) {
+            return indices.getOrDefault(id, -1);
+        }
+
+        @Override
+        public boolean isUnique() {
+            return unique;
+        }
+
+        @Override
+        public int depth() {
+            return 0;
+        }
+    }
+
+    private abstract static class DerivedIndex implements IdIndex {
+        final IdIndex parent;
+        final int position;
+        private final int depth;
+
+        private DerivedIndex(final IdIndex parent, final int position) {
+            this.parent = parent;
+            this.position = position;
+            this.depth = parent.depth() + 1;
+        }
+
+        @Override
+        public boolean isUnique() {
+            return true;
+        }
+
+        @Override
+        public int depth() {
+            return depth;
+        }
+    }
+
+    private static final class Swapped extends DerivedIndex {
+        private final UUID previousId;
+        private final UUID id;
+
+        private Swapped(final IdIndex parent, final int position, final UUID previousId, final UUID id) {
+            super(parent, position);
+            this.previousId = previousId;
+            this.id = id;
+        }
+
+        @Override
+        public int indexOf(final UUID id) {
+            if (id.equals(this.id)) {
+                return position;
+            }
+            if (id.equals(previousId)) {
+                return -1;
+            }
+            return parent.indexOf(id);
+        }
+    }
+
+    private static final class Inserted extends DerivedIndex {
+        private final UUID id;
+
+        private Inserted(final IdIndex parent, final int position, final UUID id) {
+            super(parent, position);
+            this.id = id;
+        }
+
+        @Override
+        public int indexOf(final UUID id) {
+            if (id.equals(this.id)) {
+                return position;
+            }
+
+            final int index = parent.indexOf(id);
+            return index >= position ? index + 1 : index;
+        }
+    }
+
+    private static final class Deleted extends DerivedIndex {
+        private final UUID id;
+
+        private Deleted(final IdIndex parent, final int position, final UUID id) {
+            super(parent, position);
+            this.id = id;
+        }
+
+        @Override
+        public int indexOf(final UUID id) {
+            if (id.equals(this.id)) {
+                return -1;
+            }
+
+            final int index = parent.indexOf(id);
+            return index > position ? index - 1 : index;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package aa.sw.book;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonPOJOBuilder;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.UUID;
+
+/* One operation of a batch applied to a chapter.  Which fields are used depends on the operation:
+
+   CREATE: type and afterEntryWithId
+   SAVE:   entry
+   DELETE: entryId
+   MOVE:   entryId and afterEntryWithId
+
+   A missing afterEntryWithId places the entry at the start of the chapter. */
+@Value
+@Builder
+@JsonDeserialize(builder = EntryOperation.EntryOperationBuilder.class)
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class EntryOperation {
+
+    Operation operation;
+    Entry entry;
+    UUID entryId;
+    String type;
+    UUID afterEntryWithId;
+
+    public enum Operation {
+        CREATE,
+        SAVE,
+        DELETE,
+        MOVE
+    }
+
+    @JsonPOJOBuilder(withPrefix = "")
+    public static class EntryOperationBuilder {}
+}
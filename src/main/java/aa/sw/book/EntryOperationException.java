@@ -0,0 +1,12 @@
+package aa.sw.book;
+
+import lombok.EqualsAndHashCode;
+import lombok.Value;
+
+@Value
+@EqualsAndHashCode(callSuper = false)
+public class EntryOperationException extends RuntimeException {
+
+    int index;
+    Exception error;
+}
@@ -0,0 +1,14 @@
+package aa.sw.book;
+
+import lombok.Builder;
+import lombok.Value;
+
+/* An entry together with where it is in the book */
+@Value
+@Builder
+public class LocatedEntry {
+
+    String chapterPath;
+    int index;
+    Entry entry;
+}
@@ -0,0 +1,222 @@
+package aa.sw.book;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.primitives.Ints;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.util.Objects.requireNonNull;
+
+public class ParsedFileCache {
+
+    private final Cache<Path, CachedFile> cache;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public ParsedFileCache(final long maximumSizeInBytes) {
+        this.cache = CacheBuilder.newBuilder()
+                .maximumWeight(maximumSizeInBytes)
+                .weigher((Path path, CachedFile file) -> file.getWeight())
+                .removalListener(this::onRemoval)
+                .build();
+    }
+
+    public <T> T get(final Path path, final Class<T> type, final Loader<T> loader) throws IOException {
+        requireNonNull(path);
+        requireNonNull(type);
+        requireNonNull(loader);
+
+        final Path key = canonical(path);
+        final BasicFileAttributes attributes = readAttributes(key);
+
+        final Optional<T> cached = freshValue(key, attributes, type);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+
+        misses.increment();
+        final T value = loader.load(key);
+        cache.put(key, CachedFile.of(value, attributes));
+        return value;
+    }
+
+    /* Returns the cached value without loading the file when this is not cached or has changed */
+    public <T> Optional<T> getIfFresh(final Path path, final Class<T> type) throws IOException {
+        requireNonNull(path);
+        requireNonNull(type);
+
+        final Path key = canonical(path);
+        return freshValue(key, readAttributes(key), type);
+    }
+
+    /* Unlike the other lookups, this is not counted as a hit */
+    public boolean isFresh(final Path path) throws IOException {
+        requireNonNull(path);
+
+        final Path key = canonical(path);
+        final CachedFile cached = cache.getIfPresent(key);
+        return cached != null && cached.isFresh(readAttributes(key));
+    }
+
+    private <T> Optional<T> freshValue(final Path key, final BasicFileAttributes attributes, final Class<T> type) {
+        final CachedFile cached = cache.getIfPresent(key);
+        if (cached != null && cached.isFresh(attributes) && type.isInstance(cached.getValue())) {
+            hits.increment();
+            return Optional.of(type.cast(cached.getValue()));
+        }
+
+        return Optional.empty();
+    }
+
+    public void put(final Path path, final Object value) throws IOException {
+        requireNonNull(path);
+        requireNonNull(value);
+
+        final Path key = canonical(path);
+        cache.put(key, CachedFile.of(value, readAttributes(key)));
+    }
+
+    /* Caches a value together with something else kept for the same file, such as the bytes the value was written
+       with.  The attachment weighs its given size on top of the file, and is dropped together with the value. */
+    public void put(final Path path, final Object value, final Object attachment, final long attachmentSize)
+            throws IOException {
+        requireNonNull(path);
+        requireNonNull(value);
+        requireNonNull(attachment);
+
+        final Path key = canonical(path);
+        final BasicFileAttributes attributes = readAttributes(key);
+        cache.put(key, new CachedFile(value, attributes.size(), attributes.lastModifiedTime(), attachment,
+                attachmentSize));
+    }
+
+    /* Returns the attachment of the cached value when the file did not change.  Like `isFresh()`, this is not counted
+       as a hit. */
+    public <T> Optional<T> getAttachmentIfFresh(final Path path, final Class<T> type) throws IOException {
+        requireNonNull(type);
+
+        return peek(path)
+                .map(CachedFile::getAttachment)
+                .filter(type::isInstance)
+                .map(type::cast);
+    }
+
+    /* Caches a value that was not read from the file itself, only when the file still has the size and last modified
+       time the value was read with */
+    public boolean putIfUnchanged(final Path path, final Object value, final long size, final FileTime lastModified)
+            throws IOException {
+        requireNonNull(path);
+        requireNonNull(value);
+        requireNonNull(lastModified);
+
+        final Path key = canonical(path);
+        final CachedFile cached = new CachedFile(value, size, lastModified, null, 0);
+        if (!cached.isFresh(readAttributes(key))) {
+            return false;
+        }
+
+        cache.put(key, cached);
+        return true;
+    }
+
+    /* Returns the cached file when this did not change, together with the size and last modified time it was read
+       with.  Like `isFresh()`, this is not counted as a hit. */
+    Optional<CachedFile> peek(final Path path) throws IOException {
+        requireNonNull(path);
+
+        final Path key = canonical(path);
+        final CachedFile cached = cache.getIfPresent(key);
+        return cached != null && cached.isFresh(readAttributes(key))
+                ? Optional.of(cached)
+                : Optional.empty();
+    }
+
+    public void invalidate(final Path path) {
+        requireNonNull(path);
+
+        cache.invalidate(path.toAbsolutePath().normalize());
+        try {
+            cache.invalidate(path.toRealPath());
+        } catch (final IOException e) { /* The file no longer exists, nothing else to invalidate */ }
+    }
+
+    public Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(), cache.size());
+    }
+
+    private void onRemoval(final RemovalNotification<Path, CachedFile> notification) {
+        if (notification.wasEvicted()) {
+            evictions.increment();
+        }
+    }
+
+    private static Path canonical(final Path path) throws IOException {
+        try {
+            return path.toRealPath();
+        } catch (final NoSuchFileException e) {
+            throw fileNotFound(path);
+        }
+    }
+
+    private static BasicFileAttributes readAttributes(final Path path) throws IOException {
+        try {
+            return Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (final NoSuchFileException e) {
+            throw fileNotFound(path);
+        }
+    }
+
+    /* The controllers treat a FileNotFoundException as a missing book or chapter */
+    private static FileNotFoundException fileNotFound(final Path path) {
+        return new FileNotFoundException(String.format("%s (No such file or directory)", path));
+    }
+
+    @FunctionalInterface
+    public interface Loader<T> {
+        T load(Path path) throws IOException;
+    }
+
+    @Value
+    public static class Stats {
+        long hits;
+        long misses;
+        long evictions;
+        long entries;
+    }
+
+    @Value
+    @AllArgsConstructor(access = AccessLevel.PRIVATE)
+    static class CachedFile {
+        Object value;
+        long size;
+        FileTime lastModified;
+        Object attachment;
+        long attachmentSize;
+
+        private static CachedFile of(final Object value, final BasicFileAttributes attributes) {
+            return new CachedFile(value, attributes.size(), attributes.lastModifiedTime(), null, 0);
+        }
+
+        private boolean isFresh(final BasicFileAttributes attributes) {
+            return size == attributes.size() && lastModified.equals(attributes.lastModifiedTime());
+        }
+
+        private int getWeight() {
+            return Ints.saturatedCast(size + attachmentSize);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package aa.sw.command;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonPOJOBuilder;
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.UUID;
+
+@Value
+@Builder
+@JsonDeserialize(builder = CancelRun.CancelRunBuilder.class)
+public class CancelRun {
+
+    UUID runId;
+
+    @JsonPOJOBuilder(withPrefix = "")
+    public static class CancelRunBuilder { }
+}
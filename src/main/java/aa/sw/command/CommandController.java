@@ -1,20 +1,31 @@
 package aa.sw.command;
 
+import aa.sw.command.run.Cancellation;
 import aa.sw.command.run.RunnableEntryRunner;
-import lombok.AllArgsConstructor;
+import aa.sw.config.AppProperties;
+import aa.sw.config.AppProperties.OutputOverflow;
+import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Controller;
+import org.springframework.web.socket.server.support.HttpSessionHandshakeInterceptor;
+
+import javax.annotation.PreDestroy;
 
 import java.security.Principal;
+import java.time.Duration;
+import java.util.Map;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.function.Consumer;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static java.util.Objects.requireNonNull;
 
 @Controller
-@AllArgsConstructor
 public class CommandController {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(CommandController.class);
@@ -22,22 +33,81 @@ public class CommandController {
     /* TODO: Should we have a gateway instead? */
     private final SimpMessagingTemplate simpMessagingTemplate;
 
-    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final CommandScheduler scheduler;
+
+    private final RunRegistry runs;
 
     private final RunnableEntryRunner runner;
 
+    private final Duration outputFlushInterval;
+
+    private final int outputFlushSize;
+
+    private final int outputBufferCapacity;
+
+    private final OutputOverflow outputOverflow;
+
+    private final ScheduledExecutorService outputFlusher = Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder().setNameFormat("output-flusher-%d").setDaemon(true).build());
+
+    /* Sends the output of the runs, as many at the same time as there are runs */
+    private final ExecutorService outputSender;
+
+    public CommandController(final SimpMessagingTemplate simpMessagingTemplate,
+                             final CommandScheduler scheduler,
+                             final RunRegistry runs,
+                             final RunnableEntryRunner runner,
+                             final AppProperties properties) {
+        this.simpMessagingTemplate = requireNonNull(simpMessagingTemplate);
+        this.scheduler = requireNonNull(scheduler);
+        this.runs = requireNonNull(runs);
+        this.runner = requireNonNull(runner);
+        this.outputFlushInterval = properties.getRun().getOutputFlushInterval();
+        this.outputFlushSize = Ints.saturatedCast(properties.getRun().getOutputFlushSize().toBytes());
+        this.outputBufferCapacity = properties.getRun().getOutputBufferCapacity();
+        this.outputOverflow = properties.getRun().getOutputOverflow();
+        this.outputSender = Executors.newFixedThreadPool(properties.getRun().getParallelism(),
+                new ThreadFactoryBuilder().setNameFormat("output-sender-%d").setDaemon(true).build());
+    }
+
+    /* The id of the run is sent before the run starts, together with the id of its entry, so that the run can be
+       cancelled while it waits to start.  The run is kept together with the HTTP session of the web socket, so that
+       it can also be cancelled by an HTTP request of the same session. */
     @MessageMapping("/run")
-    public void run(final Principal principal, final RunnableEntry entry) {
-        executor.submit(() -> {
-            final Consumer<String> output = createOutput(principal);
-            final CommandResult commandResult = run(entry, output);
-            sendOutput(principal, commandResult.asString(), Topic.OUTCOME);
+    public void run(final Principal principal, final SimpMessageHeaderAccessor headers, final RunnableEntry entry) {
+        final RunRegistry.Run run = runs.start(principal.getName(), httpSessionOf(headers));
+        send(principal, Topic.STARTED, RunStarted.of(run.getRunId(), entry.getId()));
+        scheduler.submit(principal.getName(), entry.getWorkspace(), () -> {
+            /* The output is drained before the outcome is sent, as the outcome is the last message of a run */
+            try (OutputBuffer output = createOutput(principal)) {
+                final CommandResult commandResult = run(entry, output, run.getCancellation());
+                output.drain();
+                sendOutput(principal, commandResult.asString(), Topic.OUTCOME);
+            } finally {
+                runs.finish(run.getRunId());
+            }
         });
     }
 
-    private CommandResult run(final RunnableEntry entry, final Consumer<String> output) {
+    /* Only the runs started by the same user can be cancelled this way */
+    @MessageMapping("/run/cancel")
+    public void cancel(final Principal principal, final CancelRun request) {
+        runs.find(request.getRunId())
+                .filter(run -> run.getSession().equals(principal.getName()))
+                .ifPresentOrElse(run -> run.getCancellation().cancel(),
+                        () -> LOGGER.debug("Run {} not found, nothing to cancel", request.getRunId()));
+    }
+
+    private static String httpSessionOf(final SimpMessageHeaderAccessor headers) {
+        final Map<String, Object> attributes = headers.getSessionAttributes();
+        return attributes == null
+                ? null
+                : (String) attributes.get(HttpSessionHandshakeInterceptor.HTTP_SESSION_ID_ATTR_NAME);
+    }
+
+    private CommandResult run(final RunnableEntry entry, final OutputBuffer output, final Cancellation cancellation) {
         try {
-            return runner.run(entry, output);
+            return runner.run(entry, output, cancellation, output::flush);
         } catch (final RuntimeException e) {
             LOGGER.error("Failed run command {}", entry, e);
             output.accept("Failed to run command");
@@ -45,18 +115,31 @@ public class CommandController {
         }
     }
 
-    private Consumer<String> createOutput(final Principal principal) {
-        return line -> sendOutput(principal, line, Topic.OUTPUT);
+    private OutputBuffer createOutput(final Principal principal) {
+        final OutputCoalescer coalescer = new OutputCoalescer(output -> sendOutput(principal, output, Topic.OUTPUT),
+                outputFlushInterval, outputFlushSize, outputFlusher);
+        return new OutputBuffer(coalescer, outputOverflow, outputBufferCapacity, outputSender);
+    }
+
+    @PreDestroy
+    public void close() {
+        outputFlusher.shutdown();
+        outputSender.shutdown();
     }
 
     private void sendOutput(final Principal principal, final String line, final Topic topic) {
+        send(principal, topic, CommandOutput.of(line));
+    }
+
+    private void send(final Principal principal, final Topic topic, final Object payload) {
         simpMessagingTemplate.convertAndSendToUser(
                 principal.getName(),
                 topic.getDestination(),
-                CommandOutput.of(line));
+                payload);
     }
 
     private enum Topic {
+        STARTED("started"),
         OUTPUT("output"),
         OUTCOME("outcome");
 
@@ -24,7 +24,8 @@ public class CommandResult {
         FINISHED_WITH_SUPPRESSED_ERROR(false),
         FINISHED_NOT_AS_EXPECTED(true),
         FAILED_TO_START(true),
-        TIMED_OUT(true);
+        TIMED_OUT(true),
+        CANCELLED(true);
 
         private final boolean isFailure;
 
@@ -57,6 +58,8 @@ public class CommandResult {
 
     public static CommandResult timedOut() { return of(Outcome.TIMED_OUT); }
 
+    public static CommandResult cancelled() { return of(Outcome.CANCELLED); }
+
     private static CommandResult of(final Outcome outcome) {
         requireNonNull(outcome);
 
@@ -0,0 +1,196 @@
+package aa.sw.command;
+
+import aa.sw.config.AppProperties;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.Value;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Objects.requireNonNull;
+
+/* Runs the commands on a bounded number of threads.  The commands of the same workspace run one after the other, in
+   the order these were submitted, as these work on the same files, while the commands of different workspaces run at
+   the same time.  When more commands are ready to run than there are threads, the sessions take turns, so that a
+   session that submits many commands does not hold back the others. */
+@Service
+public class CommandScheduler {
+
+    private final int parallelism;
+    private final ExecutorService executor;
+
+    /* All the following are guarded by this */
+    private final Map<String, Deque<ScheduledCommand>> queues = new HashMap<>();
+    private final Set<String> busyWorkspaces = new HashSet<>();
+    private final Deque<String> sessions = new ArrayDeque<>();
+    private final Map<String, Integer> queuedBySession = new HashMap<>();
+    private long submitted;
+    private int queued;
+    private int running;
+    private long started;
+    private long totalWaitNanos;
+    private long maxWaitNanos;
+
+    @Autowired
+    public CommandScheduler(final AppProperties properties) {
+        this(properties.getRun().getParallelism());
+    }
+
+    CommandScheduler(final int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("The parallelism must be at least 1");
+        }
+
+        this.parallelism = parallelism;
+        this.executor = Executors.newFixedThreadPool(parallelism,
+                new ThreadFactoryBuilder().setNameFormat("command-runner-%d").setDaemon(true).build());
+    }
+
+    /* The returned future completes once the command has run, or exceptionally when the command fails */
+    public CompletableFuture<Void> submit(final String session, final String workspace, final Runnable command) {
+        requireNonNull(session);
+        requireNonNull(command);
+
+        final ScheduledCommand scheduled = new ScheduledCommand(session, Objects.toString(workspace, ""), command);
+        synchronized (this) {
+            scheduled.sequence = submitted++;
+            queues.computeIfAbsent(scheduled.workspace, w -> new ArrayDeque<>()).addLast(scheduled);
+            if (queuedBySession.merge(session, 1, Integer::sum) == 1) {
+                sessions.addLast(session);
+            }
+            queued++;
+            dispatch();
+        }
+        return scheduled.future;
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(running, queued, started,
+                started == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalWaitNanos / started),
+                TimeUnit.NANOSECONDS.toMillis(maxWaitNanos));
+    }
+
+    @PreDestroy
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    /* Must be called while holding the lock */
+    private void dispatch() {
+        while (running < parallelism) {
+            final ScheduledCommand next = next();
+            if (next == null) {
+                return;
+            }
+
+            busyWorkspaces.add(next.workspace);
+            running++;
+            queued--;
+            executor.execute(() -> run(next));
+        }
+    }
+
+    /* Each session, in turn, runs its oldest command whose workspace is not busy.  A session without such a command
+       keeps its turn for when one of its workspaces is free.  Must be called while holding the lock. */
+    private ScheduledCommand next() {
+        for (int i = 0, n = sessions.size(); i < n; i++) {
+            final String session = sessions.pollFirst();
+            final ScheduledCommand command = nextOf(session);
+            if (command == null) {
+                sessions.addLast(session);
+                continue;
+            }
+
+            if (queuedBySession.merge(session, -1, Integer::sum) == 0) {
+                queuedBySession.remove(session);
+            } else {
+                sessions.addLast(session);
+            }
+            return command;
+        }
+
+        return null;
+    }
+
+    private ScheduledCommand nextOf(final String session) {
+        Deque<ScheduledCommand> oldest = null;
+        for (final Map.Entry<String, Deque<ScheduledCommand>> entry : queues.entrySet()) {
+            final ScheduledCommand head = entry.getValue().peekFirst();
+            if (head.session.equals(session)
+                    && !busyWorkspaces.contains(entry.getKey())
+                    && (oldest == null || head.sequence < oldest.peekFirst().sequence)) {
+                oldest = entry.getValue();
+            }
+        }
+
+        if (oldest == null) {
+            return null;
+        }
+
+        final ScheduledCommand command = oldest.pollFirst();
+        if (oldest.isEmpty()) {
+            queues.remove(command.workspace);
+        }
+        return command;
+    }
+
+    private void run(final ScheduledCommand command) {
+        final long waitNanos = System.nanoTime() - command.submittedNanos;
+        synchronized (this) {
+            started++;
+            totalWaitNanos += waitNanos;
+            maxWaitNanos = Math.max(maxWaitNanos, waitNanos);
+        }
+
+        try {
+            command.command.run();
+            command.future.complete(null);
+        } catch (final RuntimeException e) {
+            command.future.completeExceptionally(e);
+        } finally {
+            synchronized (this) {
+                busyWorkspaces.remove(command.workspace);
+                running--;
+                dispatch();
+            }
+        }
+    }
+
+    /* The wait is the time between when a command is submitted and when it starts running */
+    @Value
+    public static class Stats {
+        int running;
+        int queued;
+        long started;
+        long averageWaitMillis;
+        long maxWaitMillis;
+    }
+
+    private static class ScheduledCommand {
+        private final String session;
+        private final String workspace;
+        private final Runnable command;
+        private final long submittedNanos = System.nanoTime();
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+        private long sequence;
+
+        private ScheduledCommand(final String session, final String workspace, final Runnable command) {
+            this.session = session;
+            this.workspace = workspace;
+            this.command = command;
+        }
+    }
+}
@@ -0,0 +1,446 @@
+package aa.sw.command;
+
+import aa.sw.config.AppProperties.OutputOverflow;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static java.util.Objects.requireNonNull;
+
+/* Holds the output of a run between the thread that reads it from the process and the thread that sends it, so that
+   a slow client does not make the output pile up in the heap.  The output waits in a ring of a fixed number of chunks,
+   which the reading thread fills and a sending thread empties.  When the ring is full, the reading thread waits for
+   room, and spills the output if it is interrupted (BLOCK), the output is dropped and a note of how many lines were
+   skipped is sent in its place (DROP), or the output is written to a file and sent from there once the client catches
+   up (SPILL).
+
+   The threads writing the output of a run, and flushing or draining it, take the lock of the buffer, so only one of
+   these fills the ring at a time, and a thread that waits for room releases the lock to let the others take their
+   turn meanwhile.  The sending thread never takes this lock, and only synchronizes with the writers through the
+   positions of the ring.  The chunks of a run are sent in the order these were written, by one thread at a time, and
+   a run sends at most a ring full of chunks before letting the other runs send theirs. */
+public class OutputBuffer implements Consumer<String>, AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OutputBuffer.class);
+
+    private static final long MIN_WAIT_MILLIS = 1;
+    private static final long MAX_WAIT_MILLIS = 10;
+
+    /* Stands for the requests to flush the sink.  The requests to drain it are Drain elements. */
+    private static final Object FLUSH = new Object();
+
+    private final OutputCoalescer sink;
+    private final OutputOverflow overflow;
+    private final Executor executor;
+    private final Object[] ring;
+    private final int mask;
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicBoolean sending = new AtomicBoolean();
+
+    /* Written by the thread filling the ring, while holding the lock */
+    private long skippedLines;
+    private boolean drained;
+    private volatile Spill spill;
+
+    /* Guarded by the spill, and only set once the spill is created */
+    private volatile boolean spilling;
+
+    /* The capacity is rounded up to a power of two */
+    public OutputBuffer(final OutputCoalescer sink, final OutputOverflow overflow, final int capacity,
+                        final Executor executor) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("The capacity must be at least 1");
+        }
+
+        this.sink = requireNonNull(sink);
+        this.overflow = requireNonNull(overflow);
+        this.executor = requireNonNull(executor);
+        this.ring = new Object[capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1];
+        this.mask = ring.length - 1;
+    }
+
+    @Override
+    public synchronized void accept(final String output) {
+        requireNonNull(output);
+
+        if (output.isEmpty()) {
+            return;
+        }
+
+        final boolean added = switch (overflow) {
+            case BLOCK -> put(output);
+            case DROP -> offerSkipped() && offer(output);
+            case SPILL -> spill(output);
+        };
+
+        if (!added) {
+            skippedLines += countLines(output);
+        }
+        drained = false;
+        send();
+    }
+
+    /* Flushes the sink once the output written so far is sent, without waiting for it */
+    public synchronized void flush() {
+        if (add(FLUSH)) {
+            drained = false;
+            send();
+        }
+    }
+
+    /* Flushes the sink once the output written so far is sent, and waits for it, such as before the outcome of the run
+       is sent */
+    public void drain() {
+        final Drain request = new Drain();
+        synchronized (this) {
+            if (skippedLines > 0 && add(skippedNote())) {
+                skippedLines = 0;
+            }
+
+            if (!add(request)) {
+                return;
+            }
+            drained = true;
+            send();
+        }
+
+        request.await();
+    }
+
+    /* The output is only drained again when some was written since it was last drained */
+    @Override
+    public void close() {
+        final boolean drained;
+        synchronized (this) {
+            drained = this.drained;
+        }
+        if (!drained) {
+            drain();
+        }
+
+        final Spill spill = this.spill;
+        if (spill != null) {
+            synchronized (spill) {
+                spill.close();
+            }
+        }
+    }
+
+    private boolean offer(final Object element) {
+        final long t = tail.get();
+        if (t - head.get() == ring.length) {
+            return false;
+        }
+
+        ring[(int) t & mask] = element;
+        tail.lazySet(t + 1);
+        return true;
+    }
+
+    private Object poll() {
+        final long h = head.get();
+        if (h == tail.get()) {
+            return null;
+        }
+
+        final int index = (int) h & mask;
+        final Object element = ring[index];
+        ring[index] = null;
+        head.lazySet(h + 1);
+        return element;
+    }
+
+    /* Waits for room, backing off up to a few milliseconds at a time.  The lock is released while waiting, so that the
+       other threads writing, flushing or draining the output are not held up, and is taken again before each try.  A
+       thread that is interrupted, like the reader of a process that already exited, spills the output instead of
+       waiting, so that none is lost, and once some output is spilled the rest follows it there to keep its order. */
+    private boolean put(final Object element) {
+        long waitMillis = MIN_WAIT_MILLIS;
+        while (!spilling) {
+            if (offer(element)) {
+                return true;
+            }
+
+            try {
+                wait(waitMillis);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            waitMillis = Math.min(waitMillis * 2, MAX_WAIT_MILLIS);
+        }
+        return spill(element);
+    }
+
+    /* The flush and drain requests are never dropped, as the sink and who is waiting to drain depend on these */
+    private boolean add(final Object element) {
+        return overflow == OutputOverflow.SPILL
+                ? spill(element)
+                : put(element);
+    }
+
+    private boolean offerSkipped() {
+        if (skippedLines == 0) {
+            return true;
+        }
+
+        if (!offer(skippedNote())) {
+            return false;
+        }
+
+        skippedLines = 0;
+        return true;
+    }
+
+    private String skippedNote() {
+        return String.format("... %d lines skipped ...%n", skippedLines);
+    }
+
+    /* Once the output is spilled, all output is spilled until the spill is sent, so that the output keeps its order */
+    private boolean spill(final Object element) {
+        if (!spilling && offer(element)) {
+            return true;
+        }
+
+        if (spill == null) {
+            try {
+                spill = new Spill();
+            } catch (final IOException e) {
+                LOGGER.warn("Failed to create the spill file, the output that does not fit is dropped", e);
+                return false;
+            }
+        }
+
+        synchronized (spill) {
+            if (!spilling && offer(element)) {
+                return true;
+            }
+
+            /* Writing to the file from an interrupted thread would close it, so the interrupt is set aside meanwhile */
+            final boolean interrupted = Thread.interrupted();
+            try {
+                spill.write(element);
+                spilling = true;
+                return true;
+            } catch (final IOException e) {
+                LOGGER.warn("Failed to spill the output, the output is dropped", e);
+                return false;
+            } finally {
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    private Object pollSpill() {
+        synchronized (spill) {
+            try {
+                final Object element = spill.read();
+                if (spill.isEmpty()) {
+                    spill.clear();
+                    spilling = false;
+                }
+                return element;
+            } catch (final IOException e) {
+                LOGGER.warn("Failed to read the spilled output, the rest of it is dropped", e);
+                spill.clearQuietly();
+                spilling = false;
+                return String.format("... spilled output lost ...%n");
+            }
+        }
+    }
+
+    private void send() {
+        if (sending.compareAndSet(false, true)) {
+            executor.execute(this::sendAll);
+        }
+    }
+
+    /* Runs on one thread at a time, as only the thread that sets the sending flag runs it */
+    private void sendAll() {
+        for (int sent = 0; sent < ring.length; ) {
+            Object element = poll();
+            if (element == null && spilling) {
+                element = pollSpill();
+            }
+
+            if (element != null) {
+                deliver(element);
+                sent++;
+                continue;
+            }
+
+            sending.set(false);
+            if (isEmpty() || !sending.compareAndSet(false, true)) {
+                return;
+            }
+        }
+
+        executor.execute(this::sendAll);
+    }
+
+    private boolean isEmpty() {
+        return head.get() == tail.get() && !spilling;
+    }
+
+    private void deliver(final Object element) {
+        try {
+            if (element == FLUSH) {
+                sink.flush();
+            } else if (element instanceof Drain drain) {
+                sink.flush();
+                drain.complete();
+            } else {
+                sink.accept((String) element);
+            }
+        } catch (final RuntimeException e) {
+            LOGGER.warn("Failed to send the output", e);
+            if (element instanceof Drain drain) {
+                drain.complete();
+            }
+        }
+    }
+
+    private static int countLines(final String output) {
+        int lines = 0;
+        for (int i = 0, n = output.length(); i < n; i++) {
+            if (output.charAt(i) == '\n') {
+                lines++;
+            }
+        }
+        return Math.max(lines, 1);
+    }
+
+    /* A request to flush the sink and tell whoever waits for it once all output before it was sent */
+    private static final class Drain {
+
+        private final CompletableFuture<Void> sent = new CompletableFuture<>();
+
+        private void complete() {
+            sent.complete(null);
+        }
+
+        private void await() {
+            try {
+                sent.get();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (final ExecutionException e) {
+                LOGGER.warn("Failed to drain the output", e);
+            }
+        }
+    }
+
+    /* The output that did not fit in the ring, in a temporary file deleted once closed.  Each chunk is written as its
+       length followed by its UTF-8 bytes, and the flush and drain requests as negative lengths.  The drain requests
+       themselves wait in memory, in the order these were written.  The file is emptied as soon as all of it was
+       read. */
+    private static class Spill {
+
+        private static final int FLUSH_LENGTH = -1;
+        private static final int DRAIN_LENGTH = -2;
+
+        private final FileChannel channel;
+        private final ByteBuffer length = ByteBuffer.allocate(Integer.BYTES);
+        private final Queue<Drain> drains = new ArrayDeque<>();
+        private long written;
+        private long read;
+
+        private Spill() throws IOException {
+            this.channel = FileChannel.open(Files.createTempFile("run-output-", ".spill"), StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE);
+        }
+
+        private void write(final Object element) throws IOException {
+            final ByteBuffer buffer;
+            if (element == FLUSH || element instanceof Drain) {
+                buffer = ByteBuffer.allocate(Integer.BYTES).putInt(element == FLUSH ? FLUSH_LENGTH : DRAIN_LENGTH);
+            } else {
+                final byte[] bytes = ((String) element).getBytes(StandardCharsets.UTF_8);
+                buffer = ByteBuffer.allocate(Integer.BYTES + bytes.length).putInt(bytes.length).put(bytes);
+            }
+
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                written += channel.write(buffer, written);
+            }
+            if (element instanceof Drain drain) {
+                drains.add(drain);
+            }
+        }
+
+        private boolean isEmpty() {
+            return read == written;
+        }
+
+        private Object read() throws IOException {
+            if (isEmpty()) {
+                return null;
+            }
+
+            readFully(length.clear());
+            final int size = length.flip().getInt();
+            if (size == FLUSH_LENGTH) {
+                return FLUSH;
+            }
+            if (size == DRAIN_LENGTH) {
+                return drains.remove();
+            }
+
+            final ByteBuffer bytes = ByteBuffer.allocate(size);
+            readFully(bytes);
+            return new String(bytes.array(), StandardCharsets.UTF_8);
+        }
+
+        private void readFully(final ByteBuffer buffer) throws IOException {
+            while (buffer.hasRemaining()) {
+                final int n = channel.read(buffer, read);
+                if (n < 0) {
+                    throw new IOException("The spill file ended before its output");
+                }
+                read += n;
+            }
+        }
+
+        private void clear() throws IOException {
+            channel.truncate(0);
+            written = 0;
+            read = 0;
+        }
+
+        /* The drain requests that are lost with the rest of the spill are completed, so that no one waits for these */
+        private void clearQuietly() {
+            drains.forEach(Drain::complete);
+            drains.clear();
+            try {
+                clear();
+            } catch (final IOException e) {
+                LOGGER.warn("Failed to clear the spill file", e);
+            }
+        }
+
+        private void close() {
+            try {
+                channel.close();
+            } catch (final IOException e) {
+                LOGGER.warn("Failed to delete the spill file", e);
+            }
+        }
+    }
+}
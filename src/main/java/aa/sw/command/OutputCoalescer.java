@@ -0,0 +1,60 @@
+package aa.sw.command;
+
+import java.time.Duration;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static java.util.Objects.requireNonNull;
+
+/* Batches the output of a run, so that chatty commands send one message every so often instead of one per line.  The
+   batch is sent once it is older than the interval or larger than the maximum size, whichever comes first.  Batches
+   are sent while holding the lock, so that these reach the sink in the order the output was written. */
+public class OutputCoalescer implements Consumer<String>, AutoCloseable {
+
+    private final Consumer<String> sink;
+    private final long intervalNanos;
+    private final int maxChars;
+    private final ScheduledExecutorService scheduler;
+    private final StringBuilder batch = new StringBuilder();
+    private ScheduledFuture<?> scheduledFlush;
+
+    public OutputCoalescer(final Consumer<String> sink, final Duration interval, final int maxChars,
+                           final ScheduledExecutorService scheduler) {
+        this.sink = requireNonNull(sink);
+        this.intervalNanos = requireNonNull(interval).toNanos();
+        this.maxChars = maxChars;
+        this.scheduler = requireNonNull(scheduler);
+    }
+
+    @Override
+    public synchronized void accept(final String output) {
+        requireNonNull(output);
+
+        batch.append(output);
+        if (batch.length() >= maxChars) {
+            flush();
+        } else if (scheduledFlush == null) {
+            scheduledFlush = scheduler.schedule(this::flush, intervalNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public synchronized void flush() {
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+
+        if (batch.length() > 0) {
+            final String output = batch.toString();
+            batch.setLength(0);
+            sink.accept(output);
+        }
+    }
+
+    @Override
+    public void close() {
+        flush();
+    }
+}
@@ -0,0 +1,46 @@
+package aa.sw.command;
+
+import lombok.AllArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpSession;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/run")
+@AllArgsConstructor
+public class RunController {
+
+    private final CommandScheduler scheduler;
+
+    private final RunRegistry runs;
+
+    @GetMapping("/stats")
+    public CommandScheduler.Stats stats() {
+        return scheduler.stats();
+    }
+
+    /* Only the runs started from the same HTTP session can be cancelled this way, and the runs of other sessions are
+       not found.  The run is cancelled in the background, and its outcome is sent to the user that started it. */
+    @PostMapping("/{runId}/cancel")
+    public ResponseEntity<?> cancel(@PathVariable("runId") final UUID runId, final HttpServletRequest request) {
+        final Optional<String> httpSession = Optional.ofNullable(request.getSession(false)).map(HttpSession::getId);
+        return runs.find(runId)
+                .filter(run -> httpSession.map(id -> id.equals(run.getHttpSession())).orElse(false))
+                .<ResponseEntity<?>>map(run -> {
+                    run.getCancellation().cancel();
+                    return ResponseEntity.accepted().build();
+                })
+                .orElseGet(() -> ResponseEntity.unprocessableEntity()
+                        .body(Map.of("message", "Run not found")));
+    }
+}
@@ -0,0 +1,61 @@
+package aa.sw.command;
+
+import aa.sw.command.run.Cancellation;
+import aa.sw.config.AppProperties;
+import lombok.Value;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.util.Objects.requireNonNull;
+
+/* Keeps the runs that did not finish yet, from when these are submitted, so that these can be cancelled by their id */
+@Service
+public class RunRegistry {
+
+    private final Duration cancelGracePeriod;
+    private final Map<UUID, Run> runs = new ConcurrentHashMap<>();
+
+    @Autowired
+    public RunRegistry(final AppProperties properties) {
+        this(properties.getRun().getCancelGracePeriod());
+    }
+
+    RunRegistry(final Duration cancelGracePeriod) {
+        this.cancelGracePeriod = requireNonNull(cancelGracePeriod);
+    }
+
+    public Run start(final String session, final String httpSession) {
+        requireNonNull(session);
+
+        final Run run = new Run(UUID.randomUUID(), session, httpSession, new Cancellation(cancelGracePeriod));
+        runs.put(run.getRunId(), run);
+        return run;
+    }
+
+    public Optional<Run> find(final UUID runId) {
+        requireNonNull(runId);
+
+        return Optional.ofNullable(runs.get(runId));
+    }
+
+    public void finish(final UUID runId) {
+        requireNonNull(runId);
+
+        runs.remove(runId);
+    }
+
+    @Value
+    public static class Run {
+        UUID runId;
+        String session;
+        /* The HTTP session the web socket was opened from, if any */
+        String httpSession;
+        Cancellation cancellation;
+    }
+}
@@ -0,0 +1,13 @@
+package aa.sw.command;
+
+import lombok.NonNull;
+import lombok.Value;
+
+import java.util.UUID;
+
+/* Tells which entry the run is for, as the same user may start several runs before any of these is started */
+@Value(staticConstructor = "of")
+public class RunStarted {
+    @NonNull UUID runId;
+    UUID entryId;
+}
@@ -0,0 +1,98 @@
+package aa.sw.command.run;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static java.util.Objects.requireNonNull;
+
+/* Cancels a run, together with the process it is running at the time.  The process and all its descendants are asked
+   to terminate, and the ones still alive after the grace period are killed.  The descendants are taken when the run
+   is cancelled, as these are no longer descendants of the process once this terminates.  A process started after the
+   run was cancelled is terminated straight away.  A process that already exited by itself when the run is cancelled
+   is not counted as terminated, so that its own outcome is reported. */
+public class Cancellation {
+
+    private final Duration gracePeriod;
+    private boolean cancelled;
+    private Process process;
+
+    /* The attached processes that were still alive when these were terminated */
+    private final Set<Process> terminated = new HashSet<>();
+
+    public Cancellation(final Duration gracePeriod) {
+        this.gracePeriod = requireNonNull(gracePeriod);
+    }
+
+    public static Cancellation none() {
+        return new Cancellation(Duration.ZERO);
+    }
+
+    /* Returns false when the run was already cancelled */
+    public boolean cancel() {
+        final Process running;
+        synchronized (this) {
+            if (cancelled) {
+                return false;
+            }
+
+            cancelled = true;
+            running = process;
+        }
+
+        if (running != null) {
+            terminate(running);
+        }
+        return true;
+    }
+
+    public synchronized boolean isCancelled() {
+        return cancelled;
+    }
+
+    void attach(final Process process) {
+        requireNonNull(process);
+
+        synchronized (this) {
+            if (!cancelled) {
+                this.process = process;
+                return;
+            }
+        }
+
+        terminate(process);
+    }
+
+    synchronized void detach(final Process process) {
+        if (this.process == process) {
+            this.process = null;
+        }
+        terminated.remove(process);
+    }
+
+    synchronized boolean hasTerminated(final Process process) {
+        return terminated.contains(process);
+    }
+
+    private void terminate(final Process process) {
+        if (process.isAlive()) {
+            synchronized (this) {
+                terminated.add(process);
+            }
+        }
+
+        final List<ProcessHandle> handles = Stream.concat(Stream.of(process.toHandle()), process.descendants())
+                .collect(Collectors.toList());
+        handles.forEach(ProcessHandle::destroy);
+
+        CompletableFuture.runAsync(() -> handles.stream()
+                        .filter(ProcessHandle::isAlive)
+                        .forEach(ProcessHandle::destroyForcibly),
+                CompletableFuture.delayedExecutor(gracePeriod.toMillis(), TimeUnit.MILLISECONDS));
+    }
+}
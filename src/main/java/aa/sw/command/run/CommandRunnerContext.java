@@ -19,10 +19,25 @@ public class CommandRunnerContext {
     private static final String THIN_LINE =
             "--------------------------------------------------------------------------------";
 
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
     private final Consumer<String> outputConsumer;
+    private final Cancellation cancellation;
+    private final Runnable flush;
 
     private CommandRunnerContext(final Builder builder) {
         this.outputConsumer = builder.outputConsumer;
+        this.cancellation = builder.cancellation;
+        this.flush = builder.flush;
+    }
+
+    /* Sends the output that is held back, if any, such as when a process exits */
+    public void flush() {
+        flush.run();
+    }
+
+    Cancellation getCancellation() {
+        return cancellation;
     }
 
     public void appendError(final String message, final Throwable error) {
@@ -66,6 +81,13 @@ public class CommandRunnerContext {
         outputConsumer.accept(suffixNewLine(line));
     }
 
+    /* Appends output as is, such as whole lines read from a process, which already end with a new line */
+    public void appendOutput(final String output) {
+        requireNonNull(output);
+
+        outputConsumer.accept(output);
+    }
+
     public void appendLineF(final String format, final Object... params) {
         requireNonNull(format);
 
@@ -73,7 +95,7 @@ public class CommandRunnerContext {
     }
 
     private String suffixNewLine(final Object object) {
-        return String.format("%s%n", object);
+        return object + LINE_SEPARATOR;
     }
 
     public static Builder builder() {
@@ -83,6 +105,8 @@ public class CommandRunnerContext {
     public static class Builder {
 
         private Consumer<String> outputConsumer = line -> { LOGGER.debug("{}", line); };
+        private Cancellation cancellation = Cancellation.none();
+        private Runnable flush = () -> { };
 
         private Builder() { }
 
@@ -93,6 +117,20 @@ public class CommandRunnerContext {
             return this;
         }
 
+        public Builder cancellation(final Cancellation cancellation) {
+            requireNonNull(cancellation);
+
+            this.cancellation = cancellation;
+            return this;
+        }
+
+        public Builder flush(final Runnable flush) {
+            requireNonNull(flush);
+
+            this.flush = flush;
+            return this;
+        }
+
         public CommandRunnerContext build() {
             return new CommandRunnerContext(this);
         }
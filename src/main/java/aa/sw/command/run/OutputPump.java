@@ -0,0 +1,113 @@
+package aa.sw.command.run;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+import static java.util.Objects.requireNonNull;
+
+/* Reads the output of a process and hands it to the sink in chunks of whole lines, one chunk per read, instead of one
+   string per line.  The bytes are read into the same buffer every time and decoded as UTF-8 as these arrive, so a
+   character split between two reads is decoded once the rest of it is read.  The lines end with the line separator
+   of the platform, whatever these ended with in the output, as done by reading lines.  A line longer than the buffer
+   is handed in parts, and the last line is ended even when the output does not end it. */
+final class OutputPump {
+
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    private final Consumer<String> sink;
+    private final ByteBuffer bytes;
+    private final CharBuffer chars;
+    private final StringBuilder chunk;
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+    /* Whether the last character handed was a carriage return, so that a line feed that follows it is skipped */
+    private boolean skipLineFeed;
+
+    OutputPump(final Consumer<String> sink) {
+        this(sink, DEFAULT_BUFFER_SIZE);
+    }
+
+    OutputPump(final Consumer<String> sink, final int bufferSize) {
+        if (bufferSize < 4) {
+            throw new IllegalArgumentException("The buffer must fit the longest UTF-8 character, four bytes");
+        }
+
+        this.sink = requireNonNull(sink);
+        this.bytes = ByteBuffer.allocate(bufferSize);
+        this.chars = CharBuffer.allocate(bufferSize);
+        this.chunk = new StringBuilder(bufferSize + LINE_SEPARATOR.length());
+    }
+
+    /* Returns once the output ends, or when the thread is interrupted */
+    void pump(final InputStream input) throws IOException {
+        requireNonNull(input);
+
+        for (int read; (read = input.read(bytes.array(), bytes.position(), bytes.remaining())) != -1; ) {
+            bytes.position(bytes.position() + read);
+            decode(false);
+
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+        }
+
+        decode(true);
+        decoder.flush(chars);
+        handLines(true);
+    }
+
+    private void decode(final boolean endOfInput) {
+        bytes.flip();
+        while (decoder.decode(bytes, chars, endOfInput).isOverflow()) {
+            handLines(false);
+        }
+        bytes.compact();
+        handLines(false);
+    }
+
+    /* Hands the complete lines decoded so far, and keeps the incomplete last line for the next time, unless this
+       (almost) fills the buffer, leaving no room for a character made of two chars, or the output ended */
+    private void handLines(final boolean endOfOutput) {
+        chars.flip();
+        final char[] array = chars.array();
+        final int limit = chars.limit();
+        int lineStart = 0;
+        for (int i = 0; i < limit; i++) {
+            final char c = array[i];
+            if (c == '\n' && skipLineFeed) {
+                lineStart = i + 1;
+            } else if (c == '\n' || c == '\r') {
+                chunk.append(array, lineStart, i - lineStart).append(LINE_SEPARATOR);
+                lineStart = i + 1;
+            }
+            skipLineFeed = c == '\r';
+        }
+
+        if (endOfOutput || (lineStart == 0 && limit >= chars.capacity() - 1)) {
+            if (lineStart < limit) {
+                chunk.append(array, lineStart, limit - lineStart);
+                if (endOfOutput) {
+                    chunk.append(LINE_SEPARATOR);
+                }
+            }
+            lineStart = limit;
+        }
+
+        chars.position(lineStart);
+        chars.compact();
+
+        if (chunk.length() > 0) {
+            sink.accept(chunk.toString());
+            chunk.setLength(0);
+        }
+    }
+}
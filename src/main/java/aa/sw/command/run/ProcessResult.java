@@ -19,6 +19,7 @@ public class ProcessResult {
     public enum ExitState {
         NOT_STARTED,
         TIMED_OUT,
+        CANCELLED,
         FINISHED_IN_TIME
     }
 
@@ -32,6 +33,10 @@ public class ProcessResult {
         return new ProcessResult(ExitState.FINISHED_IN_TIME, OptionalInt.empty());
     }
 
+    public static ProcessResult cancelled() {
+        return new ProcessResult(ExitState.CANCELLED, OptionalInt.empty());
+    }
+
     public static ProcessResult finishedWithExitValue(final int exitValue) {
         return new ProcessResult(ExitState.FINISHED_IN_TIME, OptionalInt.of(exitValue));
     }
@@ -4,11 +4,9 @@ import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
+import java.io.InputStream;
 import java.time.Duration;
 import java.util.Collections;
 import java.util.List;
@@ -57,12 +55,31 @@ public class ProcessRunner {
     }
 
     private ProcessResult handleProcess(final Process process) {
+        final Cancellation cancellation = context.getCancellation();
+        cancellation.attach(process);
+        try {
+            return handleAttachedProcess(process, cancellation);
+        } finally {
+            cancellation.detach(process);
+        }
+    }
+
+    private ProcessResult handleAttachedProcess(final Process process, final Cancellation cancellation) {
         final ExecutorService executor = Executors.newSingleThreadExecutor();
         final Future<?> output = executor.submit(() -> readOutput(process));
 
         final boolean finishedInTime = waitFor(process);
 
         waitExecutorToExit(executor, output);
+        context.flush();
+
+        /* A cancelled process is terminated, and finishes before it times out.  A process that exited by itself before
+           the run was cancelled has its own outcome. */
+        if (cancellation.hasTerminated(process)) {
+            process.destroyForcibly();
+            context.appendError("Process was cancelled");
+            return ProcessResult.cancelled();
+        }
 
         if (finishedInTime) {
             final int exitValue = process.exitValue();
@@ -75,24 +92,13 @@ public class ProcessRunner {
     }
 
     private void readOutput(final Process process) {
-        try (BufferedReader reader = getReader(process)) {
-            for (String line; (line = reader.readLine()) != null; ) {
-                context.appendLine(line);
-
-                if (Thread.currentThread().isInterrupted()) {
-                    context.appendLine(line);
-                    return;
-                }
-            }
+        try (InputStream input = process.getInputStream()) {
+            new OutputPump(context::appendOutput).pump(input);
         } catch (final IOException e) {
             context.appendError("Failed to capture process output", e);
         }
     }
 
-    private static BufferedReader getReader(final Process process) {
-        return new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
-    }
-
     private boolean waitFor(final Process process) {
         try {
             return process.waitFor(commandTimeout.getSeconds(), TimeUnit.SECONDS);
@@ -111,7 +117,11 @@ public class ProcessRunner {
                 consumer to take much longer */
             final boolean finishedInTime = executor.awaitTermination(2, TimeUnit.SECONDS);
             if (!finishedInTime) {
+                /* A reader that waits for a slow client spills the rest of the output once interrupted, and is given a
+                   little longer to do so.  A reader blocked on a pipe still held open by a child of the process is
+                   left behind. */
                 output.cancel(true);
+                executor.awaitTermination(2, TimeUnit.SECONDS);
             }
         } catch (final InterruptedException e) {
             Thread.currentThread().interrupt();
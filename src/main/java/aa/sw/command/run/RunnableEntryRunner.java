@@ -36,8 +36,21 @@ public class RunnableEntryRunner {
     }
 
     public CommandResult run(final RunnableEntry entry, final Consumer<String> output) {
+        return run(entry, output, Cancellation.none(), () -> { });
+    }
+
+    /* The flush is called whenever a process exits, to send the output held back by the consumer */
+    public CommandResult run(final RunnableEntry entry, final Consumer<String> output, final Cancellation cancellation,
+                             final Runnable flush) {
         requireNonNull(entry);
         requireNonNull(output);
+        requireNonNull(cancellation);
+        requireNonNull(flush);
+
+        if (cancellation.isCancelled()) {
+            output.accept("The run was cancelled before it started");
+            return CommandResult.cancelled();
+        }
 
         if (entry.isDryRun()) {
             output.accept("Cannot run an entry that is flagged as dry run!!");
@@ -45,7 +58,7 @@ public class RunnableEntryRunner {
         }
 
         return findStrategy(entry)
-                .map(strategy -> execute(strategy, output))
+                .map(strategy -> execute(strategy, output, cancellation, flush))
                 .orElseGet(() -> {
                     output.accept("No execution strategy found that can execute an entry of type " + entry.getType());
                     return CommandResult.executionStrategyNotFound();
@@ -60,12 +73,17 @@ public class RunnableEntryRunner {
                 .map(factory -> factory.apply(entry));
     }
 
-    private CommandResult execute(final RunnableEntryExecutionStrategy strategy, final Consumer<String> output) {
+    private CommandResult execute(final RunnableEntryExecutionStrategy strategy, final Consumer<String> output,
+                                  final Cancellation cancellation, final Runnable flush) {
         requireNonNull(strategy);
         requireNonNull(output);
+        requireNonNull(cancellation);
+        requireNonNull(flush);
 
         final CommandRunnerContext context = CommandRunnerContext.builder()
                 .output(output)
+                .cancellation(cancellation)
+                .flush(flush)
                 .build();
 
         return strategy.execute(context);
@@ -82,6 +82,7 @@ public class CommandStrategy implements RunnableEntryExecutionStrategy {
         return switch (result.getExitState()) {
             case NOT_STARTED -> CommandResult.failedToStart();
             case TIMED_OUT -> CommandResult.timedOut();
+            case CANCELLED -> CommandResult.cancelled();
             case FINISHED_IN_TIME -> result.getExitValue()
                     .stream()
                     .peek(this::logExitValue)
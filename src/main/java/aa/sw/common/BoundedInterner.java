@@ -0,0 +1,44 @@
+package aa.sw.common;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static java.util.Objects.requireNonNull;
+
+/* Returns the same instance for equal strings that are seen often, using a fixed number of slots.  A string replaces
+   the one in its slot when these differ, so the strings that keep coming back are shared, and the memory used does not
+   grow with the number of distinct strings.  Long strings are rarely repeated and are returned as they are. */
+public class BoundedInterner {
+
+    private final AtomicReferenceArray<String> slots;
+    private final int mask;
+    private final int maxLength;
+
+    public BoundedInterner(final int numberOfSlots, final int maxLength) {
+        if (numberOfSlots < 1 || Integer.bitCount(numberOfSlots) != 1) {
+            throw new IllegalArgumentException("The number of slots must be a power of two");
+        }
+
+        this.slots = new AtomicReferenceArray<>(numberOfSlots);
+        this.mask = numberOfSlots - 1;
+        this.maxLength = maxLength;
+    }
+
+    public String intern(final String value) {
+        requireNonNull(value);
+
+        if (value.length() > maxLength) {
+            return value;
+        }
+
+        /* The hash is spread, as strings that differ in the last characters only have close hashes */
+        final int hash = value.hashCode();
+        final int slot = (hash ^ (hash >>> 16)) & mask;
+        final String interned = slots.get(slot);
+        if (value.equals(interned)) {
+            return interned;
+        }
+
+        slots.set(slot, value);
+        return value;
+    }
+}
@@ -0,0 +1,299 @@
+package aa.sw.common;
+
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+import static java.util.Objects.requireNonNull;
+
+/* An immutable list stored as a balanced tree of small chunks.  Replacing, inserting and deleting an element returns
+   a new list in O(log n), which shares all chunks but the one changed with the original list. */
+public final class ChunkedList<E> extends AbstractList<E> {
+
+    static final int MAX_CHUNK_SIZE = 32;
+
+    private static final ChunkedList<?> EMPTY = new ChunkedList<>(null);
+
+    private final Node root;
+
+    private ChunkedList(final Node root) {
+        this.root = root;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <E> ChunkedList<E> of() {
+        return (ChunkedList<E>) EMPTY;
+    }
+
+    public static <E> ChunkedList<E> of(final Collection<? extends E> elements) {
+        requireNonNull(elements);
+
+        final Object[] array = elements.toArray();
+        return array.length == 0
+                ? of()
+                : new ChunkedList<>(build(array, 0, array.length));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(final int index) {
+        Objects.checkIndex(index, size());
+
+        Node node = root;
+        int offset = index;
+        while (node instanceof Branch branch) {
+            if (offset < branch.left.size) {
+                node = branch.left;
+            } else {
+                offset -= branch.left.size;
+                node = branch.right;
+            }
+        }
+        return (E) ((Chunk) node).elements[offset];
+    }
+
+    @Override
+    public int size() {
+        return root == null ? 0 : root.size;
+    }
+
+    public ChunkedList<E> replace(final int index, final E element) {
+        Objects.checkIndex(index, size());
+
+        return new ChunkedList<>(replace(root, index, element));
+    }
+
+    public ChunkedList<E> insert(final int index, final E element) {
+        Objects.checkIndex(index, size() + 1);
+
+        if (root == null) {
+            return new ChunkedList<>(new Chunk(new Object[]{element}));
+        }
+        return new ChunkedList<>(insert(root, index, element));
+    }
+
+    public ChunkedList<E> delete(final int index) {
+        Objects.checkIndex(index, size());
+
+        return new ChunkedList<>(delete(root, index));
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new ChunkIterator<>(root);
+    }
+
+    @Override
+    public Object[] toArray() {
+        final Object[] array = new Object[size()];
+        int offset = 0;
+        for (final Iterator<Chunk> chunks = new ChunkWalker(root); chunks.hasNext(); ) {
+            final Object[] elements = chunks.next().elements;
+            System.arraycopy(elements, 0, array, offset, elements.length);
+            offset += elements.length;
+        }
+        return array;
+    }
+
+    /* The height of the tree, used to verify that the tree stays balanced */
+    int height() {
+        return root == null ? 0 : root.height;
+    }
+
+    private static Node build(final Object[] array, final int from, final int to) {
+        final int length = to - from;
+        if (length <= MAX_CHUNK_SIZE) {
+            final Object[] elements = new Object[length];
+            System.arraycopy(array, from, elements, 0, length);
+            return new Chunk(elements);
+        }
+
+        final int chunks = (length + MAX_CHUNK_SIZE - 1) / MAX_CHUNK_SIZE;
+        final int middle = from + (chunks / 2) * MAX_CHUNK_SIZE;
+        return new Branch(build(array, from, middle), build(array, middle, to));
+    }
+
+    private static Node replace(final Node node, final int index, final Object element) {
+        if (node instanceof Branch branch) {
+            return index < branch.left.size
+                    ? new Branch(replace(branch.left, index, element), branch.right)
+                    : new Branch(branch.left, replace(branch.right, index - branch.left.size, element));
+        }
+
+        final Object[] elements = ((Chunk) node).elements.clone();
+        elements[index] = element;
+        return new Chunk(elements);
+    }
+
+    private static Node insert(final Node node, final int index, final Object element) {
+        if (node instanceof Branch branch) {
+            return index <= branch.left.size
+                    ? balance(insert(branch.left, index, element), branch.right)
+                    : balance(branch.left, insert(branch.right, index - branch.left.size, element));
+        }
+
+        final Object[] current = ((Chunk) node).elements;
+        final Object[] elements = new Object[current.length + 1];
+        System.arraycopy(current, 0, elements, 0, index);
+        elements[index] = element;
+        System.arraycopy(current, index, elements, index + 1, current.length - index);
+
+        if (elements.length <= MAX_CHUNK_SIZE) {
+            return new Chunk(elements);
+        }
+
+        /* Split the full chunk in two halves */
+        final int half = elements.length / 2;
+        final Object[] left = new Object[half];
+        final Object[] right = new Object[elements.length - half];
+        System.arraycopy(elements, 0, left, 0, half);
+        System.arraycopy(elements, half, right, 0, right.length);
+        return new Branch(new Chunk(left), new Chunk(right));
+    }
+
+    /* Returns null when the node becomes empty */
+    private static Node delete(final Node node, final int index) {
+        if (node instanceof Branch branch) {
+            if (index < branch.left.size) {
+                final Node left = delete(branch.left, index);
+                return left == null ? branch.right : join(left, branch.right);
+            }
+
+            final Node right = delete(branch.right, index - branch.left.size);
+            return right == null ? branch.left : join(branch.left, right);
+        }
+
+        final Object[] current = ((Chunk) node).elements;
+        if (current.length == 1) {
+            return null;
+        }
+
+        final Object[] elements = new Object[current.length - 1];
+        System.arraycopy(current, 0, elements, 0, index);
+        System.arraycopy(current, index + 1, elements, index, current.length - index - 1);
+        return new Chunk(elements);
+    }
+
+    /* Merges neighbouring chunks that fit in one chunk, so that deletes do not leave many small chunks behind */
+    private static Node join(final Node left, final Node right) {
+        if (left instanceof Chunk a && right instanceof Chunk b && a.size + b.size <= MAX_CHUNK_SIZE) {
+            final Object[] elements = new Object[a.size + b.size];
+            System.arraycopy(a.elements, 0, elements, 0, a.size);
+            System.arraycopy(b.elements, 0, elements, a.size, b.size);
+            return new Chunk(elements);
+        }
+        return balance(left, right);
+    }
+
+    /* AVL rebalancing.  An insert or a delete changes the height of a subtree by at most one, which a single or a
+       double rotation corrects. */
+    private static Node balance(final Node left, final Node right) {
+        if (left.height > right.height + 1) {
+            final Branch branch = (Branch) left;
+            if (branch.left.height >= branch.right.height) {
+                return new Branch(branch.left, new Branch(branch.right, right));
+            }
+            final Branch inner = (Branch) branch.right;
+            return new Branch(new Branch(branch.left, inner.left), new Branch(inner.right, right));
+        }
+
+        if (right.height > left.height + 1) {
+            final Branch branch = (Branch) right;
+            if (branch.right.height >= branch.left.height) {
+                return new Branch(new Branch(left, branch.left), branch.right);
+            }
+            final Branch inner = (Branch) branch.left;
+            return new Branch(new Branch(left, inner.left), new Branch(inner.right, branch.right));
+        }
+
+        return new Branch(left, right);
+    }
+
+    private abstract static class Node {
+        final int size;
+        final int height;
+
+        private Node(final int size, final int height) {
+            this.size = size;
+            this.height = height;
+        }
+    }
+
+    private static final class Chunk extends Node {
+        private final Object[] elements;
+
+        private Chunk(final Object[] elements) {
+            super(elements.length, 0);
+            this.elements = elements;
+        }
+    }
+
+    private static final class Branch extends Node {
+        private final Node left;
+        private final Node right;
+
+        private Branch(final Node left, final Node right) {
+            super(left.size + right.size, Math.max(left.height, right.height) + 1);
+            this.left = left;
+            this.right = right;
+        }
+    }
+
+    private static final class ChunkWalker implements Iterator<Chunk> {
+        private final Deque<Node> pending = new ArrayDeque<>();
+
+        private ChunkWalker(final Node root) {
+            if (root != null) {
+                pending.push(root);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !pending.isEmpty();
+        }
+
+        @Override
+        public Chunk next() {
+            if (pending.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+
+            Node node = pending.pop();
+            while (node instanceof Branch branch) {
+                pending.push(branch.right);
+                node = branch.left;
+            }
+            return (Chunk) node;
+        }
+    }
+
+    private static final class ChunkIterator<E> implements Iterator<E> {
+        private final ChunkWalker chunks;
+        private Object[] elements = new Object[0];
+        private int index;
+
+        private ChunkIterator(final Node root) {
+            this.chunks = new ChunkWalker(root);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return index < elements.length || chunks.hasNext();
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public E next() {
+            if (index == elements.length) {
+                elements = chunks.next().elements;
+                index = 0;
+            }
+            return (E) elements[index++];
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package aa.sw.common;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StringDeserializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+
+import java.io.IOException;
+
+import static java.util.Objects.requireNonNull;
+
+/* Deserializes strings through an interner, so that the strings repeated across entries, like their types or
+   common parameters, are shared.  The strings within lists and maps are interned too. */
+public class InterningStringDeserializer extends StringDeserializer {
+
+    private final BoundedInterner interner;
+
+    public InterningStringDeserializer(final BoundedInterner interner) {
+        this.interner = requireNonNull(interner);
+    }
+
+    public static SimpleModule module(final BoundedInterner interner) {
+        requireNonNull(interner);
+
+        final SimpleModule module = new SimpleModule("InterningStrings");
+        module.addDeserializer(String.class, new InterningStringDeserializer(interner));
+        return module;
+    }
+
+    @Override
+    public String deserialize(final JsonParser parser, final DeserializationContext context) throws IOException {
+        final String value = super.deserialize(parser, context);
+        return value == null ? null : interner.intern(value);
+    }
+}
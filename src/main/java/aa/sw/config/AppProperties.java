@@ -2,10 +2,101 @@ package aa.sw.config;
 
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
 
 @Data
 @ConfigurationProperties(prefix = "app")
 public class AppProperties {
 
     private String allowedOrigin;
+    private final Book book = new Book();
+    private final Storage storage = new Storage();
+    private final Run run = new Run();
+
+    @Data
+    public static class Book {
+
+        /* The bytes of the book and chapter files that are kept parsed, together with the bytes the chapters written by
+           the application were written with.  The parsed books and chapters take several times more memory than their
+           files. */
+        private DataSize cacheSize = DataSize.ofMegabytes(64);
+
+        /* The number of chapters that are read at the same time when a book is opened */
+        private int readParallelism = 4;
+
+        /* Chapters larger than this are streamed when a slice of their entries is read, instead of being parsed whole */
+        private DataSize streamingThreshold = DataSize.ofMegabytes(1);
+
+        /* Changes made to a book outside of the application are published once its files are quiet for this long */
+        private Duration watchQuietPeriod = Duration.ofMillis(250);
+
+        /* Strings repeated across entries, like their types and common parameters, are shared when books are read */
+        private boolean compactEntries = true;
+
+        /* The parsed chapters of the books are kept here, so that books reopen after a restart without parsing their
+           chapters again.  The directory must belong to the user running the application, and is made readable by
+           this user only.  Books are not snapshot when this is not set. */
+        private Path snapshotDirectory;
+    }
+
+    @Data
+    public static class Storage {
+
+        private boolean fsync = true;
+
+        /* The saves that arrive within this window, to any chapter, are written in one pass that syncs each directory
+           once.  Saves to the same chapter are applied one after the other, so each of these waits for its own pass. */
+        private Duration groupCommitWindow = Duration.ofMillis(10);
+
+        private final Journal journal = new Journal();
+    }
+
+    @Data
+    public static class Journal {
+
+        /* When enabled, entry edits are appended to a journal next to the chapter instead of rewriting the chapter */
+        private boolean enabled = false;
+
+        /* How often the journals are folded into their chapters */
+        private Duration compactionInterval = Duration.ofSeconds(10);
+    }
+
+    @Data
+    public static class Run {
+
+        /* The number of commands that run at the same time, each in a different workspace */
+        private int parallelism = 4;
+
+        /* A cancelled process, and the processes it started, are killed when these do not terminate within this time */
+        private Duration cancelGracePeriod = Duration.ofSeconds(5);
+
+        /* The output of a run is sent in batches, once a batch is this old or this large, whichever comes first */
+        private Duration outputFlushInterval = Duration.ofMillis(50);
+        private DataSize outputFlushSize = DataSize.ofKilobytes(16);
+
+        /* The output of a run waits to be sent in a ring of this many chunks, each holding at most what is read from
+           the process at once, and the overflow tells what happens to the output once the ring is full */
+        private int outputBufferCapacity = 64;
+        private OutputOverflow outputOverflow = OutputOverflow.BLOCK;
+
+        /* The messages waiting to be written to a client are buffered for that client only.  A client that takes longer
+           than the time limit to take a message, while more than the size limit is waiting for it, is disconnected, so
+           that a slow client neither holds up the others nor piles up messages. */
+        private Duration outboundSendTimeLimit = Duration.ofSeconds(10);
+        private DataSize outboundBufferSizeLimit = DataSize.ofKilobytes(512);
+    }
+
+    public enum OutputOverflow {
+        /* The process waits for the output to be sent */
+        BLOCK,
+
+        /* The output is dropped, and a note of how many lines were skipped is sent in its place */
+        DROP,
+
+        /* The output is written to a temporary file, and sent from there */
+        SPILL
+    }
 }
@@ -4,13 +4,18 @@ import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.PropertyAccessor;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.cfg.MapperBuilder;
 import com.fasterxml.jackson.databind.json.JsonMapper;
 import com.fasterxml.jackson.databind.module.SimpleModule;
 import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
 import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
 
 import java.nio.file.Path;
 
@@ -19,14 +24,38 @@ public class JacksonConfiguration {
 
     @Bean
     public ObjectMapper createObjectMapper() {
-        return JsonMapper.builder()
+        return configure(JsonMapper.builder()).build();
+    }
+
+    /* These replace the converters Spring creates for the binary encodings, which do not share the settings of the
+       JSON mapper, so that a response has the same shape whatever its encoding */
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter createSmileMessageConverter() {
+        return new MappingJackson2SmileHttpMessageConverter(createSmileMapper());
+    }
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter createCborMessageConverter() {
+        return new MappingJackson2CborHttpMessageConverter(createCborMapper());
+    }
+
+    /* Not beans, as the application expects a single object mapper */
+    public SmileMapper createSmileMapper() {
+        return configure(SmileMapper.builder()).build();
+    }
+
+    public CBORMapper createCborMapper() {
+        return configure(CBORMapper.builder()).build();
+    }
+
+    private <M extends ObjectMapper, B extends MapperBuilder<M, B>> B configure(final B builder) {
+        return builder
                 .addModule(new Jdk8Module())
                 .addModule(new JavaTimeModule())
                 .addModule(createPathToString())
                 .serializationInclusion(JsonInclude.Include.NON_NULL)
                 .visibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE)
-                .visibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY)
-                .build();
+                .visibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY);
     }
 
     private SimpleModule createPathToString() {
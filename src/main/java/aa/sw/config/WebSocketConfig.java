@@ -1,11 +1,14 @@
 package aa.sw.config;
 
+import com.google.common.primitives.Ints;
 import lombok.AllArgsConstructor;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
+import org.springframework.web.socket.server.support.HttpSessionHandshakeInterceptor;
 
 @Configuration
 @AllArgsConstructor
@@ -20,11 +23,23 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         registry.setApplicationDestinationPrefixes("/api/command");
     }
 
+    /* The web socket keeps the id of the HTTP session it was opened from, which ties the runs it starts to the HTTP
+       requests of the same session */
     @Override
     public void registerStompEndpoints(final StompEndpointRegistry registry) {
         registry.addEndpoint("/ws")
                 .setAllowedOrigins(properties.getAllowedOrigin())
+                .addInterceptors(new HttpSessionHandshakeInterceptor())
                 .setHandshakeHandler(new CustomHandshakeHandler())
                 .withSockJS();
     }
+
+    /* The messages waiting to be written to a client are buffered for that client, within these limits.  The outbound
+       threads only hand the messages to the buffer of their client, so a slow client does not hold up the output sent
+       to the others, and is disconnected once it falls too far behind. */
+    @Override
+    public void configureWebSocketTransport(final WebSocketTransportRegistration registration) {
+        registration.setSendTimeLimit(Ints.saturatedCast(properties.getRun().getOutboundSendTimeLimit().toMillis()))
+                .setSendBufferSizeLimit(Ints.saturatedCast(properties.getRun().getOutboundBufferSizeLimit().toBytes()));
+    }
 }
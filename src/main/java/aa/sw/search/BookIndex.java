@@ -0,0 +1,425 @@
+package aa.sw.search;
+
+import aa.sw.book.Chapter;
+import aa.sw.book.Entry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonPOJOBuilder;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Value;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import static aa.sw.common.UncheckedIo.quietIo;
+import static java.util.Objects.requireNonNull;
+
+/* The search index of one book, kept in a directory next to the book file.  The index is made of segments that are
+   never changed once written, and of a manifest that tells which segment holds the current entries of each chapter.
+   A chapter that changes is written to a new segment, and its entries in older segments are ignored from then on.
+   The segments are merged once there are too many of them.
+
+   The manifest is replaced atomically after the segments it refers to are written, so an update that fails half way
+   leaves the previous index in place.  Segments that are not in the manifest are deleted when the index is opened. */
+final class BookIndex {
+
+    static final int MAX_SEGMENTS = 8;
+
+    private static final String MANIFEST = "manifest.json";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int SNIPPET_BEFORE = 40;
+    private static final int SNIPPET_LENGTH = 160;
+
+    private final Path directory;
+    private final ObjectMapper mapper;
+    private Manifest manifest;
+    private Map<Long, LiveSegment> segments;
+
+    private BookIndex(final Path directory, final ObjectMapper mapper, final Manifest manifest,
+                      final Map<Long, Segment> segments) {
+        this.directory = directory;
+        this.mapper = mapper;
+        this.manifest = manifest;
+        this.segments = live(manifest, segments);
+    }
+
+    static Path directoryOf(final Path bookFile) {
+        requireNonNull(bookFile);
+
+        return bookFile.resolveSibling(String.format(".%s.search", bookFile.getFileName()));
+    }
+
+    /* An index that cannot be read is started over, as it can always be built again from the chapters */
+    static BookIndex open(final Path directory, final ObjectMapper mapper) throws IOException {
+        requireNonNull(directory);
+        requireNonNull(mapper);
+
+        Files.createDirectories(directory);
+
+        Manifest manifest;
+        final Map<Long, Segment> segments = new TreeMap<>();
+        try {
+            final Path manifestFile = directory.resolve(MANIFEST);
+            manifest = Files.exists(manifestFile)
+                    ? mapper.readValue(manifestFile.toFile(), Manifest.class)
+                    : Manifest.builder().build();
+            for (final long id : manifest.segmentIds()) {
+                segments.put(id, Segment.open(id, segmentFile(directory, id)));
+            }
+        } catch (final IOException | RuntimeException e) {
+            manifest = Manifest.builder().build();
+            segments.clear();
+        }
+
+        deleteUnusedSegments(directory, segments.keySet());
+        return new BookIndex(directory, mapper, manifest, segments);
+    }
+
+    /* The version of each indexed chapter, as given when the chapter was indexed */
+    Map<String, String> versions() {
+        return manifest.getChapters().entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, e -> e.getValue().getVersion()));
+    }
+
+    void update(final List<ChapterUpdate> updates, final Set<String> removed) throws IOException {
+        requireNonNull(updates);
+        requireNonNull(removed);
+
+        if (updates.isEmpty() && removed.isEmpty()) {
+            return;
+        }
+
+        final Map<String, IndexedChapter> chapters = new LinkedHashMap<>(manifest.getChapters());
+        chapters.keySet().removeAll(removed);
+        long nextSegment = manifest.getNextSegment();
+
+        final Map<Long, Segment> updated = new TreeMap<>();
+        segments.forEach((id, segment) -> updated.put(id, segment.segment));
+        if (!updates.isEmpty()) {
+            final long id = nextSegment++;
+            final SegmentWriter writer = new SegmentWriter();
+            for (final ChapterUpdate update : updates) {
+                for (final Entry entry : update.getChapter().getEntries()) {
+                    addEntry(writer, update.getChapterPath(), entry);
+                }
+                chapters.put(update.getChapterPath(), IndexedChapter.builder()
+                        .segment(id)
+                        .version(update.getVersion())
+                        .build());
+            }
+            updated.put(id, write(writer, id));
+        }
+
+        Manifest next = Manifest.builder().nextSegment(nextSegment).chapters(chapters).build();
+        updated.keySet().retainAll(next.segmentIds());
+        if (updated.size() > MAX_SEGMENTS) {
+            final long id = nextSegment++;
+            final Segment merged = merge(live(next, updated), id);
+            updated.clear();
+            updated.put(id, merged);
+            next = Manifest.builder()
+                    .nextSegment(nextSegment)
+                    .chapters(chapters.entrySet().stream().collect(Collectors.toMap(Map.Entry::getKey,
+                            e -> e.getValue().toBuilder().segment(id).build())))
+                    .build();
+        }
+
+        writeManifest(next);
+        manifest = next;
+        segments = live(next, updated);
+        deleteUnusedSegments(directory, updated.keySet());
+    }
+
+    /* Ranks the entries with BM25, over the entries that are current only */
+    List<SearchHit> search(final String query, final int limit) {
+        requireNonNull(query);
+
+        final Set<String> terms = new LinkedHashSet<>(Tokenizer.tokens(query));
+        if (terms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        final List<LiveSegment> live = new ArrayList<>(segments.values());
+        final long numberOfDocuments = live.stream().mapToLong(s -> s.numberOfDocuments).sum();
+        if (numberOfDocuments == 0) {
+            return List.of();
+        }
+        final double averageLength = Math.max(1.0,
+                (double) live.stream().mapToLong(s -> s.totalLength).sum() / numberOfDocuments);
+
+        final Map<Long, Double> scores = new HashMap<>();
+        for (final String term : terms) {
+            final byte[] bytes = term.getBytes(StandardCharsets.UTF_8);
+            final int[] found = new int[live.size()];
+            long documentFrequency = 0;
+            for (int s = 0; s < live.size(); s++) {
+                final LiveSegment segment = live.get(s);
+                found[s] = segment.segment.findTerm(bytes);
+                for (int p = 0; found[s] != -1 && p < segment.segment.documentFrequency(found[s]); p++) {
+                    if (segment.isLive(segment.segment.postingDocument(found[s], p))) {
+                        documentFrequency++;
+                    }
+                }
+            }
+            if (documentFrequency == 0) {
+                continue;
+            }
+
+            final double idf = Math.log(1 + (numberOfDocuments - documentFrequency + 0.5) / (documentFrequency + 0.5));
+            for (int s = 0; s < live.size(); s++) {
+                final LiveSegment segment = live.get(s);
+                for (int p = 0; found[s] != -1 && p < segment.segment.documentFrequency(found[s]); p++) {
+                    final int document = segment.segment.postingDocument(found[s], p);
+                    if (!segment.isLive(document)) {
+                        continue;
+                    }
+
+                    final int frequency = segment.segment.postingFrequency(found[s], p);
+                    final double norm = K1 * (1 - B + B * segment.segment.documentLength(document) / averageLength);
+                    scores.merge(((long) s << 32) | document, idf * frequency * (K1 + 1) / (frequency + norm),
+                            Double::sum);
+                }
+            }
+        }
+
+        final Comparator<Map.Entry<Long, Double>> byScore = Map.Entry.comparingByValue();
+        final PriorityQueue<Map.Entry<Long, Double>> top = new PriorityQueue<>(byScore);
+        for (final Map.Entry<Long, Double> score : scores.entrySet()) {
+            top.add(score);
+            if (top.size() > limit) {
+                top.poll();
+            }
+        }
+
+        final List<Map.Entry<Long, Double>> ranked = new ArrayList<>(top);
+        ranked.sort(byScore.reversed());
+        return ranked.stream()
+                .map(e -> {
+                    final Segment segment = live.get((int) (e.getKey() >>> 32)).segment;
+                    final int document = (int) (long) e.getKey();
+                    return SearchHit.builder()
+                            .chapterPath(segment.chapterPath(segment.documentChapter(document)))
+                            .entryId(segment.entryId(document))
+                            .snippet(snippet(segment.text(document), terms))
+                            .score(e.getValue())
+                            .build();
+                })
+                .collect(Collectors.toList());
+    }
+
+    /* The name, parameters and values of an entry are what a reader would look for */
+    static String textOf(final Entry entry) {
+        requireNonNull(entry);
+
+        final List<String> parts = new ArrayList<>();
+        if (entry.getName() != null) {
+            parts.add(entry.getName());
+        }
+        if (entry.getParameters() != null) {
+            parts.addAll(entry.getParameters());
+        }
+        if (entry.getValues() != null) {
+            entry.getValues().forEach((key, value) -> parts.add(key + " " + value));
+        }
+        return String.join("\n", parts);
+    }
+
+    private static void addEntry(final SegmentWriter writer, final String chapterPath, final Entry entry) {
+        final String text = textOf(entry);
+        if (!text.isBlank()) {
+            writer.add(chapterPath, entry.getId(), text);
+        }
+    }
+
+    /* The text kept in the segments is tokenized again, rather than copying the postings across */
+    private Segment merge(final Map<Long, LiveSegment> live, final long id) throws IOException {
+        final SegmentWriter writer = new SegmentWriter();
+        for (final LiveSegment segment : live.values()) {
+            for (int document = 0; document < segment.segment.numberOfDocuments(); document++) {
+                if (segment.isLive(document)) {
+                    writer.add(segment.segment.chapterPath(segment.segment.documentChapter(document)),
+                            segment.segment.entryId(document), segment.segment.text(document));
+                }
+            }
+        }
+        return write(writer, id);
+    }
+
+    private Segment write(final SegmentWriter writer, final long id) throws IOException {
+        final Path file = segmentFile(directory, id);
+        Files.deleteIfExists(file);
+        writer.write(file);
+        return Segment.open(id, file);
+    }
+
+    private void writeManifest(final Manifest manifest) throws IOException {
+        final Path file = directory.resolve(MANIFEST);
+        final Path temporary = directory.resolve(MANIFEST + ".tmp");
+        mapper.writeValue(temporary.toFile(), manifest);
+        Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static Map<Long, LiveSegment> live(final Manifest manifest, final Map<Long, Segment> segments) {
+        final Map<Long, LiveSegment> live = new TreeMap<>();
+        segments.forEach((id, segment) -> live.put(id, LiveSegment.of(segment, manifest)));
+        return live;
+    }
+
+    private static Path segmentFile(final Path directory, final long id) {
+        return directory.resolve(String.format("%016x%s", id, SEGMENT_SUFFIX));
+    }
+
+    /* Segments of an update that failed, or of a merge, are not used anymore.  Deleting a segment that is still
+       mapped by a search in progress is fine, as the file goes away once it is unmapped. */
+    private static void deleteUnusedSegments(final Path directory, final Set<Long> used) throws IOException {
+        final Set<Path> keep = new HashSet<>();
+        for (final long id : used) {
+            keep.add(segmentFile(directory, id));
+        }
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX)) {
+            for (final Path file : files) {
+                if (!keep.contains(file)) {
+                    quietIo(() -> Files.deleteIfExists(file));
+                }
+            }
+        }
+    }
+
+    /* Keeps the snippet short, starting a little before the first term found */
+    private static String snippet(final String text, final Set<String> terms) {
+        if (text.length() <= SNIPPET_LENGTH) {
+            return text;
+        }
+
+        final String lower = text.toLowerCase(Locale.ROOT);
+        int first = -1;
+        for (final String term : terms) {
+            final int index = lower.indexOf(term);
+            if (index != -1 && (first == -1 || index < first)) {
+                first = index;
+            }
+        }
+
+        final int start = Math.max(0, Math.min(text.length() - SNIPPET_LENGTH, first - SNIPPET_BEFORE));
+        final int end = Math.min(text.length(), start + SNIPPET_LENGTH);
+        return (start > 0 ? "..." : "") + text.substring(start, end) + (end < text.length() ? "..." : "");
+    }
+
+    @Value(staticConstructor = "of")
+    static class ChapterUpdate {
+        String chapterPath;
+        String version;
+        Chapter chapter;
+    }
+
+    /* A segment together with which of its documents are current, and how many of them there are */
+    private static final class LiveSegment {
+        private final Segment segment;
+        private final boolean[] liveChapters;
+        private final long numberOfDocuments;
+        private final long totalLength;
+
+        private LiveSegment(final Segment segment, final boolean[] liveChapters, final long numberOfDocuments,
+                            final long totalLength) {
+            this.segment = segment;
+            this.liveChapters = liveChapters;
+            this.numberOfDocuments = numberOfDocuments;
+            this.totalLength = totalLength;
+        }
+
+        private static LiveSegment of(final Segment segment, final Manifest manifest) {
+            final boolean[] liveChapters = new boolean[segment.numberOfChapters()];
+            boolean allLive = true;
+            for (int chapter = 0; chapter < liveChapters.length; chapter++) {
+                final IndexedChapter indexed = manifest.getChapters().get(segment.chapterPath(chapter));
+                liveChapters[chapter] = indexed != null && indexed.getSegment() == segment.id();
+                allLive &= liveChapters[chapter];
+            }
+
+            /* The header has the totals of the whole segment, so only a segment with replaced chapters is counted */
+            if (allLive) {
+                return new LiveSegment(segment, liveChapters, segment.numberOfDocuments(), segment.totalLength());
+            }
+
+            long numberOfDocuments = 0;
+            long totalLength = 0;
+            for (int document = 0; document < segment.numberOfDocuments(); document++) {
+                if (liveChapters[segment.documentChapter(document)]) {
+                    numberOfDocuments++;
+                    totalLength += segment.documentLength(document);
+                }
+            }
+            return new LiveSegment(segment, liveChapters, numberOfDocuments, totalLength);
+        }
+
+        private boolean isLive(final int document) {
+            return liveChapters[segment.documentChapter(document)];
+        }
+    }
+
+    @Value
+    @Builder
+    @JsonDeserialize(builder = Manifest.ManifestBuilder.class)
+    @AllArgsConstructor(access = AccessLevel.PRIVATE)
+    static class Manifest {
+
+        long nextSegment;
+        Map<String, IndexedChapter> chapters;
+
+        private Set<Long> segmentIds() {
+            return chapters.values().stream()
+                    .map(IndexedChapter::getSegment)
+                    .collect(Collectors.toSet());
+        }
+
+        @JsonPOJOBuilder(withPrefix = "")
+        public static class ManifestBuilder {
+            private final Map<String, IndexedChapter> chapters = new TreeMap<>();
+
+            public ManifestBuilder chapters(final Map<String, IndexedChapter> chapters) {
+                requireNonNull(chapters);
+
+                this.chapters.clear();
+                this.chapters.putAll(chapters);
+                return this;
+            }
+
+            public Manifest build() {
+                return new Manifest(nextSegment, Map.copyOf(chapters));
+            }
+        }
+    }
+
+    @Value
+    @Builder(toBuilder = true)
+    @JsonDeserialize(builder = IndexedChapter.IndexedChapterBuilder.class)
+    static class IndexedChapter {
+        long segment;
+        String version;
+
+        @JsonPOJOBuilder(withPrefix = "")
+        public static class IndexedChapterBuilder {}
+    }
+}
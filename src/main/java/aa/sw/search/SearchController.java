@@ -0,0 +1,45 @@
+package aa.sw.search;
+
+import aa.sw.book.BookPath;
+import lombok.AllArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.FileNotFoundException;
+import java.nio.file.Path;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api")
+@AllArgsConstructor
+public class SearchController {
+
+    static final int MAX_LIMIT = 100;
+
+    private final SearchService service;
+
+    @GetMapping("/search")
+    public ResponseEntity<?> search(@RequestParam("bookPath") final Path bookPath,
+                                    @RequestParam("q") final String query,
+                                    @RequestParam(value = "limit", defaultValue = "20") final int limit) {
+        if (limit < 1) {
+            return ResponseEntity.unprocessableEntity()
+                    .body(Map.of("message", "The limit must be at least 1"));
+        }
+
+        return service.search(BookPath.of(bookPath), query, Math.min(limit, MAX_LIMIT))
+                .map(ResponseEntity::ok, SearchController::createSearchErrorResponse);
+    }
+
+    private static ResponseEntity<?> createSearchErrorResponse(final Throwable e) {
+        final String message = e instanceof FileNotFoundException
+                ? "Book not found"
+                : String.format("Encountered an unexpected error (%s)", e);
+
+        return ResponseEntity.unprocessableEntity()
+                .body(Map.of("message", message));
+    }
+}
@@ -0,0 +1,18 @@
+package aa.sw.search;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.UUID;
+
+@Value
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SearchHit {
+
+    String chapterPath;
+    UUID entryId;
+    String snippet;
+    double score;
+}
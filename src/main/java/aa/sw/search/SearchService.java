@@ -0,0 +1,78 @@
+package aa.sw.search;
+
+import aa.sw.book.BookData;
+import aa.sw.book.BookPath;
+import aa.sw.book.Chapter;
+import aa.sw.common.Result;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static aa.sw.common.UncheckedIo.uncheckedIo;
+import static java.util.Objects.requireNonNull;
+
+/* The index of a book is brought up to date when the book is searched, by comparing the version of each chapter with
+   the version it was indexed at.  This picks up the changes made through the application and outside of it alike,
+   and only the chapters that changed are indexed again. */
+@Service
+public class SearchService {
+
+    private final BookData data;
+    private final ObjectMapper mapper;
+    private final Map<Path, BookIndex> indices = new ConcurrentHashMap<>();
+
+    public SearchService(final BookData data, final ObjectMapper mapper) {
+        requireNonNull(data);
+        requireNonNull(mapper);
+
+        this.data = data;
+        this.mapper = mapper;
+    }
+
+    public Result<List<SearchHit>> search(final BookPath bookPath, final String query, final int limit) {
+        requireNonNull(bookPath);
+        requireNonNull(query);
+
+        final Path path = bookPath.getPath();
+        return data.readChapterPaths(path)
+                .then(chapterPaths -> {
+                    final BookIndex index = indices.computeIfAbsent(path.toAbsolutePath().normalize(),
+                            p -> uncheckedIo(() -> BookIndex.open(BookIndex.directoryOf(p), mapper)));
+                    synchronized (index) {
+                        refresh(index, path, chapterPaths);
+                        return index.search(query, limit);
+                    }
+                });
+    }
+
+    /* A chapter that cannot be read fails the search, and is indexed again the next time */
+    private void refresh(final BookIndex index, final Path path, final List<String> chapterPaths) throws Exception {
+        final Map<String, String> indexed = index.versions();
+        final List<BookIndex.ChapterUpdate> updates = new ArrayList<>();
+        for (final String chapterPath : chapterPaths) {
+            final Path chapterFile = path.resolveSibling(chapterPath);
+            final String version = data.readChapterVersion(chapterFile).map(v -> v, e -> null);
+            if (version != null && Objects.equals(version, indexed.get(chapterPath))) {
+                continue;
+            }
+
+            final Result<Chapter> chapter = data.readChapter(chapterFile);
+            if (!chapter.isValuePresent()) {
+                throw chapter.error();
+            }
+            updates.add(BookIndex.ChapterUpdate.of(chapterPath, version, chapter.value()));
+        }
+
+        final Set<String> removed = new HashSet<>(indexed.keySet());
+        removed.removeAll(chapterPaths);
+        index.update(updates, removed);
+    }
+}
@@ -0,0 +1,168 @@
+package aa.sw.search;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.UUID;
+
+import static java.util.Objects.requireNonNull;
+
+/* An immutable part of the search index, read through a memory mapped file so that searching does not load the index
+   into the heap.  The file is laid out as follows, with all numbers big endian:
+
+     header     magic, version, number of documents, terms and chapters, total length (long), and the offsets of the
+                chapter, document and term tables
+     chapters   the offset of each chapter path in the blob
+     documents  the offset of each document in the blob, its length in terms, and its chapter
+     terms      the offset of each term in the blob, the offset of its postings, and the number of postings, sorted
+                by the UTF-8 bytes of the term so that terms are found with a binary search
+     postings   the document and the frequency of the term in that document
+     blob       the strings (length followed by UTF-8 bytes), and the documents (entry id and text) */
+final class Segment {
+
+    static final int MAGIC = 0x53574958;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 40;
+    static final int DOCUMENT_RECORD_SIZE = 12;
+    static final int TERM_RECORD_SIZE = 12;
+    static final int POSTING_SIZE = 8;
+
+    private final long id;
+    private final ByteBuffer buffer;
+    private final int numberOfDocuments;
+    private final int numberOfTerms;
+    private final int numberOfChapters;
+    private final long totalLength;
+    private final int chapterTableOffset;
+    private final int documentTableOffset;
+    private final int termTableOffset;
+
+    private Segment(final long id, final ByteBuffer buffer) throws IOException {
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Not a search segment, or a segment of another version");
+        }
+
+        this.id = id;
+        this.buffer = buffer;
+        this.numberOfDocuments = buffer.getInt(8);
+        this.numberOfTerms = buffer.getInt(12);
+        this.numberOfChapters = buffer.getInt(16);
+        this.totalLength = buffer.getLong(20);
+        this.chapterTableOffset = buffer.getInt(28);
+        this.documentTableOffset = buffer.getInt(32);
+        this.termTableOffset = buffer.getInt(36);
+    }
+
+    /* The mapping stays valid after the channel is closed */
+    static Segment open(final long id, final Path file) throws IOException {
+        requireNonNull(file);
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new Segment(id, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    long id() {
+        return id;
+    }
+
+    int numberOfDocuments() {
+        return numberOfDocuments;
+    }
+
+    int numberOfChapters() {
+        return numberOfChapters;
+    }
+
+    long totalLength() {
+        return totalLength;
+    }
+
+    String chapterPath(final int chapter) {
+        return readString(buffer.getInt(chapterTableOffset + 4 * chapter));
+    }
+
+    int documentLength(final int document) {
+        return buffer.getInt(documentRecord(document) + 4);
+    }
+
+    int documentChapter(final int document) {
+        return buffer.getInt(documentRecord(document) + 8);
+    }
+
+    /* Returns null for entries without an id */
+    UUID entryId(final int document) {
+        final int offset = buffer.getInt(documentRecord(document));
+        return buffer.get(offset) == 0
+                ? null
+                : new UUID(buffer.getLong(offset + 1), buffer.getLong(offset + 9));
+    }
+
+    String text(final int document) {
+        return readString(buffer.getInt(documentRecord(document)) + 17);
+    }
+
+    /* Returns the index of the term, or -1 when the segment does not contain this term */
+    int findTerm(final byte[] term) {
+        int low = 0;
+        int high = numberOfTerms - 1;
+        while (low <= high) {
+            final int middle = (low + high) >>> 1;
+            final int comparison = compareTerm(buffer.getInt(termRecord(middle)), term);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    int documentFrequency(final int term) {
+        return buffer.getInt(termRecord(term) + 8);
+    }
+
+    int postingDocument(final int term, final int posting) {
+        return buffer.getInt(postingOffset(term, posting));
+    }
+
+    int postingFrequency(final int term, final int posting) {
+        return buffer.getInt(postingOffset(term, posting) + 4);
+    }
+
+    private int documentRecord(final int document) {
+        return documentTableOffset + DOCUMENT_RECORD_SIZE * document;
+    }
+
+    private int termRecord(final int term) {
+        return termTableOffset + TERM_RECORD_SIZE * term;
+    }
+
+    private int postingOffset(final int term, final int posting) {
+        return buffer.getInt(termRecord(term) + 4) + POSTING_SIZE * posting;
+    }
+
+    private String readString(final int offset) {
+        final byte[] bytes = new byte[buffer.getInt(offset)];
+        buffer.get(offset + 4, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /* Compares the UTF-8 bytes as unsigned, like the terms were sorted */
+    private int compareTerm(final int offset, final byte[] term) {
+        final int length = buffer.getInt(offset);
+        final int common = Math.min(length, term.length);
+        for (int i = 0; i < common; i++) {
+            final int comparison = Byte.compareUnsigned(buffer.get(offset + 4 + i), term[i]);
+            if (comparison != 0) {
+                return comparison;
+            }
+        }
+        return Integer.compare(length, term.length);
+    }
+}
@@ -0,0 +1,186 @@
+package aa.sw.search;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static java.util.Objects.requireNonNull;
+
+/* Collects the entries of one or more chapters and writes them as a segment file.  See Segment for the layout. */
+final class SegmentWriter {
+
+    private final Map<String, Integer> chapters = new LinkedHashMap<>();
+    private final List<Document> documents = new ArrayList<>();
+    private final Map<String, List<int[]>> postings = new HashMap<>();
+    private long totalLength;
+
+    void add(final String chapterPath, final UUID entryId, final String text) {
+        requireNonNull(chapterPath);
+        requireNonNull(text);
+
+        final int document = documents.size();
+        final List<String> tokens = Tokenizer.tokens(text);
+        final Map<String, Integer> frequencies = new HashMap<>();
+        for (final String token : tokens) {
+            frequencies.merge(token, 1, Integer::sum);
+        }
+        frequencies.forEach((term, frequency) ->
+                postings.computeIfAbsent(term, t -> new ArrayList<>()).add(new int[]{document, frequency}));
+
+        final int chapter = chapters.computeIfAbsent(chapterPath, c -> chapters.size());
+        documents.add(new Document(chapter, entryId, tokens.size(), text));
+        totalLength += tokens.size();
+    }
+
+    void write(final Path file) throws IOException {
+        requireNonNull(file);
+
+        final List<byte[]> terms = new ArrayList<>(postings.size());
+        final Map<byte[], List<int[]>> postingsByTerm = new HashMap<>(postings.size());
+        postings.forEach((term, list) -> {
+            final byte[] bytes = term.getBytes(StandardCharsets.UTF_8);
+            terms.add(bytes);
+            postingsByTerm.put(bytes, list);
+        });
+        terms.sort(Arrays::compareUnsigned);
+
+        final long numberOfPostings = postings.values().stream().mapToLong(List::size).sum();
+        final long blobOffset = Segment.HEADER_SIZE
+                + 4L * chapters.size()
+                + (long) Segment.DOCUMENT_RECORD_SIZE * documents.size()
+                + (long) Segment.TERM_RECORD_SIZE * terms.size()
+                + (long) Segment.POSTING_SIZE * numberOfPostings;
+
+        /* The strings and documents go to the blob, and the tables point into it */
+        final Blob blob = new Blob(blobOffset);
+        final int[] chapterOffsets = new int[chapters.size()];
+        int i = 0;
+        for (final String chapterPath : chapters.keySet()) {
+            chapterOffsets[i++] = blob.writeString(chapterPath.getBytes(StandardCharsets.UTF_8));
+        }
+        final int[] documentOffsets = new int[documents.size()];
+        for (int d = 0; d < documents.size(); d++) {
+            documentOffsets[d] = blob.writeDocument(documents.get(d));
+        }
+        final int[] termOffsets = new int[terms.size()];
+        for (int t = 0; t < terms.size(); t++) {
+            termOffsets[t] = blob.writeString(terms.get(t));
+        }
+        final byte[] blobBytes = blob.toByteArray();
+        if (blobOffset + blobBytes.length > Integer.MAX_VALUE) {
+            throw new IOException("The search segment is too large");
+        }
+
+        final ByteArrayOutputStream buffer = new ByteArrayOutputStream((int) blobOffset + blobBytes.length);
+        final DataOutputStream output = new DataOutputStream(buffer);
+        final int chapterTableOffset = Segment.HEADER_SIZE;
+        final int documentTableOffset = chapterTableOffset + 4 * chapters.size();
+        final int termTableOffset = documentTableOffset + Segment.DOCUMENT_RECORD_SIZE * documents.size();
+        final int postingsOffset = termTableOffset + Segment.TERM_RECORD_SIZE * terms.size();
+
+        output.writeInt(Segment.MAGIC);
+        output.writeInt(Segment.VERSION);
+        output.writeInt(documents.size());
+        output.writeInt(terms.size());
+        output.writeInt(chapters.size());
+        output.writeLong(totalLength);
+        output.writeInt(chapterTableOffset);
+        output.writeInt(documentTableOffset);
+        output.writeInt(termTableOffset);
+
+        for (final int offset : chapterOffsets) {
+            output.writeInt(offset);
+        }
+        for (int d = 0; d < documents.size(); d++) {
+            output.writeInt(documentOffsets[d]);
+            output.writeInt(documents.get(d).length);
+            output.writeInt(documents.get(d).chapter);
+        }
+        int termPostingsOffset = postingsOffset;
+        for (int t = 0; t < terms.size(); t++) {
+            final int documentFrequency = postingsByTerm.get(terms.get(t)).size();
+            output.writeInt(termOffsets[t]);
+            output.writeInt(termPostingsOffset);
+            output.writeInt(documentFrequency);
+            termPostingsOffset += Segment.POSTING_SIZE * documentFrequency;
+        }
+        for (final byte[] term : terms) {
+            for (final int[] posting : postingsByTerm.get(term)) {
+                output.writeInt(posting[0]);
+                output.writeInt(posting[1]);
+            }
+        }
+        output.write(blobBytes);
+        output.flush();
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            final ByteBuffer bytes = ByteBuffer.wrap(buffer.toByteArray());
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            channel.force(true);
+        }
+    }
+
+    private static final class Document {
+        private final int chapter;
+        private final UUID entryId;
+        private final int length;
+        private final String text;
+
+        private Document(final int chapter, final UUID entryId, final int length, final String text) {
+            this.chapter = chapter;
+            this.entryId = entryId;
+            this.length = length;
+            this.text = text;
+        }
+    }
+
+    private static final class Blob {
+        private final long base;
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        private final DataOutputStream output = new DataOutputStream(buffer);
+
+        private Blob(final long base) {
+            this.base = base;
+        }
+
+        private int writeString(final byte[] bytes) throws IOException {
+            final int offset = offset();
+            output.writeInt(bytes.length);
+            output.write(bytes);
+            return offset;
+        }
+
+        private int writeDocument(final Document document) throws IOException {
+            final int offset = offset();
+            output.writeBoolean(document.entryId != null);
+            output.writeLong(document.entryId == null ? 0 : document.entryId.getMostSignificantBits());
+            output.writeLong(document.entryId == null ? 0 : document.entryId.getLeastSignificantBits());
+            writeString(document.text.getBytes(StandardCharsets.UTF_8));
+            return offset;
+        }
+
+        /* Offsets past 2GB are caught once the size of the whole segment is known */
+        private int offset() {
+            return (int) Math.min(Integer.MAX_VALUE, base + output.size());
+        }
+
+        private byte[] toByteArray() throws IOException {
+            output.flush();
+            return buffer.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package aa.sw.search;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static java.util.Objects.requireNonNull;
+
+/* Splits text into lower case terms made of letters and digits.  The same terms are used when indexing and when
+   searching. */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+final class Tokenizer {
+
+    /* Longer terms, like hashes or encoded content, are not worth indexing */
+    static final int MAX_TERM_LENGTH = 64;
+
+    static List<String> tokens(final String text) {
+        requireNonNull(text);
+
+        final List<String> tokens = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            final boolean partOfTerm = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (partOfTerm && start == -1) {
+                start = i;
+            } else if (!partOfTerm && start != -1) {
+                if (i - start <= MAX_TERM_LENGTH) {
+                    tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                }
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,195 @@
+package aa.sw.book;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static aa.sw.IoUtils.emptyDirectory;
+import static aa.sw.common.UncheckedIo.uncheckedIo;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AtomicFileWriterTest {
+
+    private static final Path DIRECTORY = Path.of("build", "atomic-file-writer");
+    private static final HashFunction CHECKSUM = Hashing.sha256();
+
+    private AtomicFileWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        emptyDirectory(DIRECTORY);
+        uncheckedIo(() -> Files.createDirectories(DIRECTORY));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (writer != null) {
+            writer.close();
+        }
+    }
+
+    @Test
+    void replaceTheFileWithTheWrittenContent() throws Exception {
+        /* Given */
+        writer = new AtomicFileWriter(CHECKSUM, true, Duration.ZERO);
+        final Path file = DIRECTORY.resolve("chapter.json");
+        Files.writeString(file, "old", StandardCharsets.UTF_8);
+
+        /* When */
+        final boolean written = write(file, "new");
+
+        /* Then */
+        assertThat(written).isTrue();
+        assertThat(file).hasContent("new");
+        assertThat(listDirectory()).containsExactly(file);
+    }
+
+    @Test
+    void keepTheOriginalFileWhenTheChecksumDoesNotMatch() throws Exception {
+        /* Given */
+        writer = new AtomicFileWriter(CHECKSUM, false, Duration.ZERO);
+        final Path file = DIRECTORY.resolve("chapter.json");
+        Files.writeString(file, "old", StandardCharsets.UTF_8);
+        final HashCode wrong = CHECKSUM.hashString("something else", StandardCharsets.UTF_8);
+
+        /* When/Then */
+        assertThatThrownBy(() -> writer.write(file, bytes("new"), wrong))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("checksum mismatch");
+        assertThat(file).hasContent("old");
+        assertThat(listDirectory()).containsExactly(file);
+    }
+
+    @Test
+    void groupConcurrentWritesToTheSameFile() throws Exception {
+        /* Given */
+        writer = new AtomicFileWriter(CHECKSUM, false, Duration.ofMillis(500));
+        final Path file = DIRECTORY.resolve("chapter.json");
+        final int numberOfWrites = 5;
+        final CountDownLatch start = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(numberOfWrites);
+
+        /* When */
+        final List<Future<Boolean>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < numberOfWrites; i++) {
+                final String content = "content " + i;
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return write(file, content);
+                }));
+            }
+            start.countDown();
+
+            /* Then */
+            int winners = 0;
+            for (final Future<Boolean> result : results) {
+                if (result.get()) {
+                    winners++;
+                }
+            }
+            assertThat(winners).isEqualTo(1);
+            assertThat(Files.readString(file, StandardCharsets.UTF_8)).startsWith("content ");
+            assertThat(listDirectory()).containsExactly(file);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void treatWritesOfTheSameContentCommittedTogetherAsWritten() throws Exception {
+        /* Given */
+        writer = new AtomicFileWriter(CHECKSUM, false, Duration.ofMillis(500));
+        final Path file = DIRECTORY.resolve("chapter.json");
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        /* When */
+        try {
+            final Future<Boolean> first = executor.submit(() -> write(file, "same"));
+            final Future<Boolean> second = executor.submit(() -> write(file, "same"));
+
+            /* Then */
+            assertThat(first.get()).isTrue();
+            assertThat(second.get()).isTrue();
+            assertThat(file).hasContent("same");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void commitWritesToDifferentFilesTogether() throws Exception {
+        /* Given */
+        writer = new AtomicFileWriter(CHECKSUM, false, Duration.ofSeconds(2));
+        final Path first = DIRECTORY.resolve("chapter-1.json");
+        final Path second = DIRECTORY.resolve("chapter-2.json");
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        /* When */
+        try {
+            final Future<Boolean> firstWritten = executor.submit(() -> write(first, "first"));
+            Thread.sleep(500);
+            final long start = System.nanoTime();
+            final boolean secondWritten = write(second, "second");
+            final Duration waited = Duration.ofNanos(System.nanoTime() - start);
+
+            /* Then */
+            assertThat(firstWritten.get()).isTrue();
+            assertThat(secondWritten).isTrue();
+            assertThat(waited)
+                    .describedAs("The second write should be committed with the first, before its own window elapses")
+                    .isLessThan(Duration.ofMillis(1800));
+            assertThat(first).hasContent("first");
+            assertThat(second).hasContent("second");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void writeLaterContentAfterAnEarlierCommit() throws Exception {
+        /* Given */
+        writer = new AtomicFileWriter(CHECKSUM, false, Duration.ZERO);
+        final Path file = DIRECTORY.resolve("chapter.json");
+
+        /* When */
+        write(file, "first");
+        write(file, "second");
+
+        /* Then */
+        assertThat(file).hasContent("second");
+    }
+
+    private boolean write(final Path file, final String content) throws IOException {
+        return writer.write(file, bytes(content), CHECKSUM.hashString(content, StandardCharsets.UTF_8));
+    }
+
+    private static byte[] bytes(final String content) {
+        return content.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static List<Path> listDirectory() {
+        return uncheckedIo(() -> {
+            try (Stream<Path> files = Files.list(DIRECTORY)) {
+                return files.toList();
+            }
+        });
+    }
+}
@@ -1,17 +1,23 @@
 package aa.sw.book;
 
 import aa.sw.common.Result;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.ResultActions;
 
 import java.io.FileNotFoundException;
 import java.nio.file.Path;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
@@ -19,10 +25,17 @@ import static aa.sw.MockHttpUtils.delete;
 import static aa.sw.MockHttpUtils.get;
 import static aa.sw.MockHttpUtils.post;
 import static aa.sw.MockHttpUtils.put;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.core.Is.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -30,6 +43,8 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 class BookControllerTest {
 
+    private static final MediaType SMILE = MediaType.valueOf("application/x-jackson-smile");
+
     @Autowired
     private MockMvc mockMvc;
 
@@ -39,6 +54,11 @@ class BookControllerTest {
     @Nested
     class OpenBookTest {
 
+        @BeforeEach
+        void setUp() {
+            when(service.readBookVersion(any())).thenReturn(Result.error(new FileNotFoundException()));
+        }
+
         @Test
         void returnBookWhenFolderExistsAndValid() throws Exception {
             /* Given */
@@ -103,11 +123,379 @@ class BookControllerTest {
                     .andExpect(jsonPath("message", is("Encountered an unexpected error (java.lang.RuntimeException: Simulating an error)")));
         }
 
+        @Test
+        void returnBookOutlineWhenRequested() throws Exception {
+            /* Given */
+            final BookPath bookPath = BookPath.of(Path.of("path-to-book"));
+            final Map<String, Object> params = Map.of("bookPath", bookPath, "outline", true);
+            final BookOutline outline = BookOutline.builder()
+                    .title("Test Book")
+                    .description("Test Description")
+                    .chapter(ChapterOutline.builder().chapterPath("chapter-path-1").title("Chapter 1").numberOfEntries(3).build())
+                    .bookPath(bookPath.getPath())
+                    .build();
+            when(service.openBookOutline(bookPath)).thenReturn(Result.value(outline));
+
+            /* When */
+            final ResultActions result = makeOpenBookRequest(params);
+
+            /* Then */
+            result.andExpect(status().isOk())
+                    .andExpect(jsonPath("title", is("Test Book")))
+                    .andExpect(jsonPath("chapters", hasSize(1)))
+                    .andExpect(jsonPath("chapters[0].chapterPath", is("chapter-path-1")))
+                    .andExpect(jsonPath("chapters[0].title", is("Chapter 1")))
+                    .andExpect(jsonPath("chapters[0].numberOfEntries", is(3)))
+                    .andExpect(jsonPath("chapters[0].entries").doesNotExist());
+        }
+
+        @Test
+        void returnBookInSmileWhenAccepted() throws Exception {
+            /* Given */
+            final BookPath bookPath = BookPath.of(Path.of("path-to-book"));
+            final Map<String, Object> params = Map.of("bookPath", bookPath);
+            final Book book = Book.builder()
+                    .title("Test Book")
+                    .description("Test Description")
+                    .chapter(Chapter.of("chapter-path-1", "Chapter 1", "Test chapter 1"))
+                    .bookPath(bookPath.getPath())
+                    .build();
+            when(service.openBook(bookPath)).thenReturn(Result.value(book));
+
+            /* When */
+            final ResultActions result = mockMvc.perform(get("/api/book", params)
+                    .accept(SMILE));
+
+            /* Then */
+            result.andExpect(status().isOk())
+                    .andExpect(content().contentType(SMILE));
+            final JsonNode decoded = new SmileMapper().readTree(result.andReturn().getResponse().getContentAsByteArray());
+            assertThat(decoded.path("title").asText()).isEqualTo("Test Book");
+            assertThat(decoded.path("chapters").size()).isEqualTo(1);
+        }
+
+        @Test
+        void returnBookInSmileWithTheSameShapeAsInJson() throws Exception {
+            /* Given */
+            final BookPath bookPath = BookPath.of(Path.of("path-to-book"));
+            final Map<String, Object> params = Map.of("bookPath", bookPath);
+            final Book book = Book.builder()
+                    .title("Test Book")
+                    .bookPath(bookPath.getPath())
+                    .build();
+            when(service.openBook(bookPath)).thenReturn(Result.value(book));
+
+            /* When */
+            final ResultActions result = mockMvc.perform(get("/api/book", params)
+                    .accept(SMILE));
+
+            /* Then */
+            result.andExpect(status().isOk());
+            final JsonNode decoded = new SmileMapper().readTree(result.andReturn().getResponse().getContentAsByteArray());
+            assertThat(decoded.has("description"))
+                    .describedAs("Null properties are left out, as these are in JSON")
+                    .isFalse();
+        }
+
+        @Test
+        void returnNotModifiedWhenTheBookDidNotChange() throws Exception {
+            /* Given */
+            final BookPath bookPath = BookPath.of(Path.of("path-to-book"));
+            final Map<String, Object> params = Map.of("bookPath", bookPath);
+            when(service.readBookVersion(bookPath)).thenReturn(Result.value("1234"));
+
+            /* When */
+            final ResultActions result = mockMvc.perform(get("/api/book", params)
+                    .header(HttpHeaders.IF_NONE_MATCH, "W/\"1234-json\""));
+
+            /* Then */
+            result.andExpect(status().isNotModified())
+                    .andExpect(header().string(HttpHeaders.ETAG, "W/\"1234-json\""))
+                    .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT));
+            verify(service, never()).openBook(any());
+        }
+
+        @Test
+        void returnTheBookWhenTheVersionTheClientHasIsInAnotherEncoding() throws Exception {
+            /* Given */
+            final BookPath bookPath = BookPath.of(Path.of("path-to-book"));
+            final Map<String, Object> params = Map.of("bookPath", bookPath);
+            final Book book = Book.builder()
+                    .title("Test Book")
+                    .description("Test Description")
+                    .bookPath(bookPath.getPath())
+                    .build();
+            when(service.readBookVersion(bookPath)).thenReturn(Result.value("1234"));
+            when(service.openBook(bookPath)).thenReturn(Result.value(book));
+
+            /* When */
+            final ResultActions result = mockMvc.perform(get("/api/book", params)
+                    .accept(SMILE)
+                    .header(HttpHeaders.IF_NONE_MATCH, "W/\"1234-json\""));
+
+            /* Then */
+            result.andExpect(status().isOk())
+                    .andExpect(content().contentType(SMILE))
+                    .andExpect(header().string(HttpHeaders.ETAG, "W/\"1234-x-jackson-smile\""))
+                    .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT));
+        }
+
+        @Test
+        void returnTheBookWithItsVersionWhenTheBookChanged() throws Exception {
+            /* Given */
+            final BookPath bookPath = BookPath.of(Path.of("path-to-book"));
+            final Map<String, Object> params = Map.of("bookPath", bookPath, "outline", true);
+            final BookOutline outline = BookOutline.builder()
+                    .title("Test Book")
+                    .description("Test Description")
+                    .bookPath(bookPath.getPath())
+                    .build();
+            when(service.readBookVersion(bookPath)).thenReturn(Result.value("5678"));
+            when(service.openBookOutline(bookPath)).thenReturn(Result.value(outline));
+
+            /* When */
+            final ResultActions result = mockMvc.perform(get("/api/book", params)
+                    .header(HttpHeaders.IF_NONE_MATCH, "W/\"1234-outline-json\""));
+
+            /* Then */
+            result.andExpect(status().isOk())
+                    .andExpect(header().string(HttpHeaders.ETAG, "W/\"5678-outline-json\""))
+                    .andExpect(jsonPath("title", is("Test Book")));
+        }
+
         private ResultActions makeOpenBookRequest(final Map<String, Object> params) throws Exception {
             return mockMvc.perform(get("/api/book", params));
         }
     }
 
+    @Nested
+    class ReadBookChangesTest {
+
+        @Test
+        void returnTheChangedChapters() throws Exception {
+            /* Given */
+            final BookPath bookPath = BookPath.of(Path.of("path-to-book"));
+            final Map<String, Object> params = Map.of("bookPath", bookPath, "since", 41);
+            final BookChanges changes = BookChanges.builder()
+                    .version(42)
+                    .chapterPaths(List.of("chapter-path-1", "chapter-path-2"))
+                    .chapter(Chapter.of("chapter-path-2", "Chapter 2", "Test chapter 2"))
+                    .build();
+            when(service.readBookChanges(bookPath, 41)).thenReturn(Result.value(changes));
+
+            /* When */
+            final ResultActions result = mockMvc.perform(get("/api/book/changes", params));
+
+            /* Then */
+            result.andExpect(status().isOk())
+                    .andExpect(jsonPath("version", is(42)))
+                    .andExpect(jsonPath("chapterPaths", hasSize(2)))
+                    .andExpect(jsonPath("chapters", hasSize(1)))
+                    .andExpect(jsonPath("chapters[0].chapterPath", is("chapter-path-2")));
+        }
+
+        @Test
+        void returnClientErrorWhenTheBookDoesNotExist() throws Exception {
+            /* Given */
+            final BookPath bookPath = BookPath.of(Path.of("path-to-book"));
+            final Map<String, Object> params = Map.of("bookPath", bookPath);
+            when(service.readBookChanges(bookPath, 0)).thenReturn(Result.error(new FileNotFoundException()));
+
+            /* When */
+            final ResultActions result = mockMvc.perform(get("/api/book/changes", params));
+
+            /* Then */
+            result.andExpect(status().isUnprocessableEntity())
+                    .andExpect(jsonPath("message", is("Book not found")));
+        }
+    }
+
+    @Nested
+    class ReadChapterTest {
+
+        @Test
+        void returnChapterWhenExists() throws Exception {
+            /* Given */
+            final Path bookPath = Path.of("path-to-book");
+            final Path chapterPath = Path.of("chapter-path-1");
+            final Map<String, Object> params = Map.of("bookPath", bookPath, "chapterPath", chapterPath);
+            when(service.readChapter(ChapterPath.of(bookPath, chapterPath)))
+                    .thenReturn(Result.value(Chapter.of("chapter-path-1", "Chapter 1", "Test chapter 1")));
+
+            /* When */
+            final ResultActions result = makeReadChapterRequest(params);
+
+            /* Then */
+            result.andExpect(status().isOk())
+                    .andExpect(jsonPath("chapterPath", is("chapter-path-1")))
+                    .andExpect(jsonPath("entries", hasSize(1)))
+                    .andExpect(jsonPath("entries[0].parameters[1]", is("Chapter 1")));
+        }
+
+        @Test
+        void returnASliceOfTheChapterWhenALimitIsGiven() throws Exception {
+            /* Given */
+            final Path bookPath = Path.of("path-to-book");
+            final Path chapterPath = Path.of("chapter-path-1");
+            final Map<String, Object> params = Map.of("bookPath", bookPath, "chapterPath", chapterPath, "offset", 10, "limit", 1);
+            final ChapterSlice slice = ChapterSlice.builder()
+                    .chapterPath("chapter-path-1")
+                    .offset(10)
+                    .totalNumberOfEntries(1000)
+                    .entry(Fixtures.PROLOGUE_ENTRY_1)
+                    .build();
+            when(service.readChapterSlice(ChapterPath.of(bookPath, chapterPath), 10, 1)).thenReturn(Result.value(slice));
+
+            /* When */
+            final ResultActions result = makeReadChapterRequest(params);
+
+            /* Then */
+            result.andExpect(status().isOk())
+                    .andExpect(jsonPath("chapterPath", is("chapter-path-1")))
+                    .andExpect(jsonPath("offset", is(10)))
+                    .andExpect(jsonPath("totalNumberOfEntries", is(1000)))
+                    .andExpect(jsonPath("entries", hasSize(1)));
+        }
+
+        @Test
+        void returnBadRequestWhenTheOffsetIsNegative() throws Exception {
+            /* Given */
+            final Path bookPath = Path.of("path-to-book");
+            final Path chapterPath = Path.of("chapter-path-1");
+            final Map<String, Object> params = Map.of("bookPath", bookPath, "chapterPath", chapterPath, "offset", -1, "limit", 1);
+
+            /* When */
+            final ResultActions result = makeReadChapterRequest(params);
+
+            /* Then */
+            result.andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("message", is("The offset and limit cannot be negative")));
+            verifyNoInteractions(service);
+        }
+
+        @Test
+        void returnClientErrorWhenChapterDoesNotExists() throws Exception {
+            /* Given */
+            final Path bookPath = Path.of("path-to-book");
+            final Path chapterPath = Path.of("chapter-path-1");
+            final Map<String, Object> params = Map.of("bookPath", bookPath, "chapterPath", chapterPath);
+            when(service.readChapter(ChapterPath.of(bookPath, chapterPath)))
+                    .thenReturn(Result.error(new FileNotFoundException()));
+
+            /* When */
+            final ResultActions result = makeReadChapterRequest(params);
+
+            /* Then */
+            result.andExpect(status().isUnprocessableEntity())
+                    .andExpect(jsonPath("message", is("Chapter not found")));
+        }
+
+        private ResultActions makeReadChapterRequest(final Map<String, Object> params) throws Exception {
+            return mockMvc.perform(get("/api/chapter", params));
+        }
+    }
+
+    @Nested
+    class ApplyEntryOperationsTest {
+
+        @Test
+        void applyOperationsAndReturnTheEntries() throws Exception {
+            /* Given */
+            final Path bookPath = Path.of("path-to-book");
+            final Path chapterPath = Path.of("path-to-chapter-1");
+            final Map<String, Object> params = Map.of("bookPath", bookPath, "chapterPath", chapterPath);
+            final Entry entry = createEntry();
+            final List<EntryOperation> operations = List.of(
+                    EntryOperation.builder().operation(EntryOperation.Operation.SAVE).entry(entry).build(),
+                    EntryOperation.builder().operation(EntryOperation.Operation.MOVE).entryId(entry.getId()).build());
+            when(service.applyEntryOperations(ChapterPath.of(bookPath, chapterPath), operations))
+                    .thenReturn(Result.value(List.of(entry, entry)));
+
+            /* When */
+            final ResultActions result = makeApplyEntryOperationsRequest(params, operations);
+
+            /* Then */
+            result.andExpect(status().isOk())
+                    .andExpect(jsonPath("$", hasSize(2)))
+                    .andExpect(jsonPath("[0].id", is(entry.getId().toString())))
+                    .andExpect(jsonPath("[1].id", is(entry.getId().toString())));
+        }
+
+        @Test
+        void returnClientErrorWithTheFailedOperation() throws Exception {
+            /* Given */
+            final Path bookPath = Path.of("path-to-book");
+            final Path chapterPath = Path.of("path-to-chapter-1");
+            final Map<String, Object> params = Map.of("bookPath", bookPath, "chapterPath", chapterPath);
+            final List<EntryOperation> operations = List.of(
+                    EntryOperation.builder().operation(EntryOperation.Operation.DELETE).entryId(UUID.randomUUID()).build());
+            when(service.applyEntryOperations(ChapterPath.of(bookPath, chapterPath), operations))
+                    .thenReturn(Result.error(new EntryOperationException(0, new EntryNotFoundException())));
+
+            /* When */
+            final ResultActions result = makeApplyEntryOperationsRequest(params, operations);
+
+            /* Then */
+            result.andExpect(status().isUnprocessableEntity())
+                    .andExpect(jsonPath("message", is("Entry not found in chapter")))
+                    .andExpect(jsonPath("operation", is(0)));
+        }
+
+        private ResultActions makeApplyEntryOperationsRequest(final Map<String, Object> parameters,
+                                                              final List<EntryOperation> operations) throws Exception {
+            return mockMvc.perform(post("/api/entries/batch", parameters, operations));
+        }
+    }
+
+    @Nested
+    class ReadEntryTest {
+
+        @Test
+        void returnTheEntryWithItsChapter() throws Exception {
+            /* Given */
+            final Path bookPath = Path.of("path-to-book");
+            final Map<String, Object> params = Map.of("bookPath", bookPath);
+            final Entry entry = createEntry();
+            when(service.findEntry(BookPath.of(bookPath), entry.getId()))
+                    .thenReturn(Result.value(LocatedEntry.builder()
+                            .chapterPath("path-to-chapter-1")
+                            .index(3)
+                            .entry(entry)
+                            .build()));
+
+            /* When */
+            final ResultActions result = makeReadEntryRequest(entry.getId(), params);
+
+            /* Then */
+            result.andExpect(status().isOk())
+                    .andExpect(jsonPath("chapterPath", is("path-to-chapter-1")))
+                    .andExpect(jsonPath("index", is(3)))
+                    .andExpect(jsonPath("entry.id", is(entry.getId().toString())));
+        }
+
+        @Test
+        void returnClientErrorWhenEntryIsNotInTheBook() throws Exception {
+            /* Given */
+            final Path bookPath = Path.of("path-to-book");
+            final Map<String, Object> params = Map.of("bookPath", bookPath);
+            final UUID entryId = UUID.randomUUID();
+            when(service.findEntry(BookPath.of(bookPath), entryId))
+                    .thenReturn(Result.error(new EntryNotFoundException()));
+
+            /* When */
+            final ResultActions result = makeReadEntryRequest(entryId, params);
+
+            /* Then */
+            result.andExpect(status().isUnprocessableEntity())
+                    .andExpect(jsonPath("message", is("Entry not found in book")));
+        }
+
+        private ResultActions makeReadEntryRequest(final UUID entryId, final Map<String, Object> parameters)
+                throws Exception {
+            return mockMvc.perform(get("/api/entry/" + entryId, parameters));
+        }
+    }
+
     @Nested
     class SaveEntryTest {
 
@@ -165,6 +553,41 @@ class BookControllerTest {
                     .andExpect(jsonPath("message", is("Encountered an unexpected error (java.lang.RuntimeException: Simulating an error)")));
         }
 
+        @Test
+        void saveTheEntryInItsChapterWhenTheChapterIsNotGiven() throws Exception {
+            /* Given */
+            final Path bookPath = Path.of("path-to-book");
+            final Map<String, Object> params = Map.of("bookPath", bookPath);
+            final Entry entry = createEntry();
+            when(service.saveEntry(BookPath.of(bookPath), entry))
+                    .thenReturn(Result.value(entry));
+
+            /* When */
+            final ResultActions result = makeSaveEntryRequest(params, entry);
+
+            /* Then */
+            result.andExpect(status().isOk())
+                    .andExpect(jsonPath("id", is(entry.getId().toString())));
+            verify(service, never()).saveEntry(any(ChapterPath.class), any());
+        }
+
+        @Test
+        void returnClientErrorWhenEntryIsNotInTheBook() throws Exception {
+            /* Given */
+            final Path bookPath = Path.of("path-to-book");
+            final Map<String, Object> params = Map.of("bookPath", bookPath);
+            final Entry entry = createEntry();
+            when(service.saveEntry(BookPath.of(bookPath), entry))
+                    .thenReturn(Result.error(new EntryNotFoundException()));
+
+            /* When */
+            final ResultActions result = makeSaveEntryRequest(params, entry);
+
+            /* Then */
+            result.andExpect(status().isUnprocessableEntity())
+                    .andExpect(jsonPath("message", is("Entry not found in book")));
+        }
+
         private ResultActions makeSaveEntryRequest(final Map<String, Object> parameters, Entry entry) throws Exception {
             return mockMvc.perform(put("/api/entry", parameters, entry));
         }
@@ -1,6 +1,7 @@
 package aa.sw.book;
 
 import aa.sw.common.Result;
+import aa.sw.config.AppProperties;
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.PropertyAccessor;
@@ -8,17 +9,33 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.json.JsonMapper;
 import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
 
+import java.io.FileNotFoundException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
+import static aa.sw.IoUtils.copyDirectory;
+import static aa.sw.IoUtils.emptyDirectory;
+import static aa.sw.common.UncheckedIo.uncheckedIo;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
 class BookDataTest {
 
     private final ObjectMapper mapper = createObjectMapper();
-    private final BookData bookData = new BookData(mapper);
+    private final BookData bookData = new BookData(mapper, new AppProperties());
 
     @Test
     void readBook() {
@@ -32,6 +49,406 @@ class BookDataTest {
         assertThat(result).isEqualTo(Result.value(Fixtures.BOOK));
     }
 
+    @Test
+    void readBookOutline() {
+        /* Given */
+        final Path bookPath = Path.of("src/test/resources/fixtures/books/book.json");
+
+        /* When */
+        final Result<BookOutline> result = bookData.readBookOutline(bookPath);
+
+        /* Then */
+        assertThat(result).isEqualTo(Result.value(Fixtures.BOOK_OUTLINE));
+    }
+
+    @Test
+    void readBookOutlineFromTheCachedChapters() {
+        /* Given */
+        final Path bookPath = Path.of("src/test/resources/fixtures/books/book.json");
+        bookData.readBook(bookPath);
+        final long hits = bookData.cacheStats().getHits();
+
+        /* When */
+        final Result<BookOutline> result = bookData.readBookOutline(bookPath);
+
+        /* Then */
+        assertThat(result).isEqualTo(Result.value(Fixtures.BOOK_OUTLINE));
+        assertThat(bookData.cacheStats().getHits())
+                .describedAs("The book and its three chapters should be read from the cache")
+                .isEqualTo(hits + 4);
+    }
+
+    @Test
+    void changeTheBookVersionWhenAChapterIsWritten() {
+        /* Given */
+        final Path bookPath = copyOfTheFixtures().resolve("book.json");
+        final Result<String> version = bookData.readBookVersion(bookPath);
+
+        /* When */
+        bookData.writeChapter(bookPath.resolveSibling("00-prologue.json"), Fixtures.PROLOGUE.deleteEntryAt(0).left());
+
+        /* Then */
+        assertThat(version.isValuePresent()).isTrue();
+        assertThat(bookData.readBookVersion(bookPath)).isNotEqualTo(version);
+        assertThat(bookData.readBookVersion(bookPath))
+                .describedAs("The version should not change when nothing changed")
+                .isEqualTo(bookData.readBookVersion(bookPath));
+    }
+
+    @Test
+    void failToReadBookWhenAChapterIsMissing() {
+        /* Given */
+        final Path bookPath = copyOfTheFixtures().resolve("book.json");
+        uncheckedIo(() -> Files.delete(bookPath.resolveSibling("01-hello-world.json")));
+
+        /* When */
+        final Result<Book> result = bookData.readBook(bookPath);
+
+        /* Then */
+        assertThat(result.isValuePresent()).isFalse();
+        assertThat(result.error()).isInstanceOf(FileNotFoundException.class);
+    }
+
+    @Test
+    void readASliceOfACachedChapter() {
+        /* Given */
+        final Path chapterPath = Fixtures.PROLOGUE_CHAPTER_PATH.getPath();
+        bookData.readChapter(chapterPath);
+
+        /* When */
+        final Result<ChapterSlice> result = bookData.readChapterSlice(chapterPath, 0, 1);
+
+        /* Then */
+        assertThat(result).isEqualTo(Result.value(ChapterSlice.builder()
+                .chapterPath("00-prologue.json")
+                .offset(0)
+                .totalNumberOfEntries(2)
+                .entry(Fixtures.PROLOGUE_ENTRY_1)
+                .build()));
+    }
+
+    @Test
+    void streamASliceOfALargeChapter() {
+        /* Given */
+        final AppProperties properties = new AppProperties();
+        properties.getBook().setStreamingThreshold(DataSize.ofBytes(0));
+        final BookData streamingBookData = new BookData(mapper, properties);
+
+        /* When */
+        final Result<ChapterSlice> result = streamingBookData.readChapterSlice(Fixtures.PROLOGUE_CHAPTER_PATH.getPath(), 1, 5);
+
+        /* Then */
+        assertThat(result).isEqualTo(Result.value(ChapterSlice.builder()
+                .chapterPath("00-prologue.json")
+                .offset(1)
+                .totalNumberOfEntries(2)
+                .entry(Fixtures.PROLOGUE_ENTRY_2)
+                .build()));
+        assertThat(streamingBookData.cacheStats().getEntries())
+                .describedAs("The streamed chapter should not be cached")
+                .isZero();
+    }
+
+    @Test
+    void writeChapterAndReturnTheWrittenChapter() {
+        /* Given */
+        final Path chapterPath = copyOfTheFixtures().resolve("00-prologue.json");
+        final Chapter chapter = Fixtures.PROLOGUE.swapEntryAt(1, Fixtures.PROLOGUE_ENTRY_2.toBuilder()
+                .parameters(List.of("I make mistakes, and I make more mistakes, and some more, and that's how I learn."))
+                .build());
+
+        /* When */
+        final Result<Chapter> result = bookData.writeChapter(chapterPath, chapter);
+
+        /* Then */
+        assertThat(result).isEqualTo(Result.value(chapter));
+        assertThat(new BookData(mapper, new AppProperties()).readChapter(chapterPath))
+                .describedAs("The chapter read from disk should match the written chapter")
+                .isEqualTo(Result.value(chapter));
+        assertThat(uncheckedIo(() -> Files.readString(chapterPath, StandardCharsets.UTF_8)))
+                .contains("that's how I learn.");
+    }
+
+    @Test
+    void applyConcurrentSavesToTheSameChapterOneAfterTheOther() {
+        /* Given */
+        final Path chapterPath = copyOfTheFixtures().resolve("00-prologue.json");
+        final AppProperties properties = new AppProperties();
+        properties.getStorage().setGroupCommitWindow(Duration.ofMillis(50));
+        final BookData data = new BookData(mapper, properties);
+        final Entry first = Fixtures.PROLOGUE_ENTRY_1.toBuilder().parameters(List.of("First save")).build();
+        final Entry second = Fixtures.PROLOGUE_ENTRY_2.toBuilder().parameters(List.of("Second save")).build();
+
+        /* When */
+        final CompletableFuture<Result<Chapter>> firstSave =
+                CompletableFuture.supplyAsync(() -> save(data, chapterPath, 0, first));
+        final CompletableFuture<Result<Chapter>> secondSave =
+                CompletableFuture.supplyAsync(() -> save(data, chapterPath, 1, second));
+
+        /* Then */
+        assertThat(firstSave.join().isValuePresent()).isTrue();
+        assertThat(secondSave.join().isValuePresent()).isTrue();
+        assertThat(new BookData(mapper, new AppProperties()).readChapter(chapterPath))
+                .describedAs("Neither save should be lost")
+                .isEqualTo(Result.value(Fixtures.PROLOGUE.swapEntryAt(0, first).swapEntryAt(1, second)));
+    }
+
+    private static Result<Chapter> save(final BookData data, final Path chapterPath, final int index, final Entry entry) {
+        return data.withChapterLocked(chapterPath, () -> data.readChapter(chapterPath)
+                .then(chapter -> chapter.swapEntryAt(index, entry))
+                .flatThen(chapter -> data.writeChapter(chapterPath, chapter)));
+    }
+
+    @Test
+    void writeTheSameBytesWhenAChapterIsSplicedAsWhenItIsWrittenWhole() {
+        /* Given */
+        final Path chapterPath = copyOfTheFixtures().resolve("00-prologue.json");
+        final Chapter written = bookData.writeChapter(chapterPath, Fixtures.PROLOGUE).value();
+        final Chapter updated = written.swapEntryAt(1, Fixtures.PROLOGUE_ENTRY_2.toBuilder()
+                .parameters(List.of("I make mistakes, and I make more mistakes, and some more, and that's how I learn."))
+                .build());
+
+        /* When */
+        bookData.writeChapter(chapterPath, updated);
+        final String spliced = uncheckedIo(() -> Files.readString(chapterPath, StandardCharsets.UTF_8));
+        new BookData(mapper, new AppProperties()).writeChapter(chapterPath, updated);
+
+        /* Then */
+        assertThat(spliced)
+                .contains("that's how I learn.")
+                .isEqualTo(uncheckedIo(() -> Files.readString(chapterPath, StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void shareTheStringsOfTheEntriesThatAreRead() {
+        /* Given */
+        final Path bookPath = Path.of("src/test/resources/fixtures/books/book.json");
+
+        /* When */
+        final Book book = bookData.readBook(bookPath).value();
+
+        /* Then */
+        assertThat(book).isEqualTo(Fixtures.BOOK);
+        assertThat(book.getChapters().get(2).getEntries().get(1).getType())
+                .isEqualTo("markdown")
+                .isSameAs(book.getChapters().get(1).getEntries().get(1).getType());
+    }
+
+    @Nested
+    class JournalTest {
+
+        private final AppProperties properties = journaledProperties();
+        private final BookData journaledBookData = new BookData(mapper, properties);
+
+        @Test
+        void appendTheEditsWithoutRewritingTheChapter() {
+            /* Given */
+            final Path chapterPath = copyOfTheFixtures().resolve("00-prologue.json");
+            final Entry savedEntry = Fixtures.PROLOGUE_ENTRY_2.toBuilder()
+                    .parameters(List.of("I make mistakes, and I make more mistakes, and some more, and that's how I learn."))
+                    .build();
+            final Chapter updated = Fixtures.PROLOGUE.swapEntryAt(1, savedEntry);
+
+            /* When */
+            final Result<Chapter> result = journaledBookData.writeChapterEdits(chapterPath, updated,
+                    List.of(ChapterEdit.save(savedEntry)));
+
+            /* Then */
+            assertThat(result).isEqualTo(Result.value(updated));
+            assertThat(ChapterJournal.pathOf(chapterPath)).exists();
+            assertThat(uncheckedIo(() -> Files.readString(chapterPath, StandardCharsets.UTF_8)))
+                    .doesNotContain("that's how I learn.");
+            assertThat(new BookData(mapper, properties).readChapter(chapterPath))
+                    .describedAs("The journal should be replayed when the chapter is read")
+                    .isEqualTo(Result.value(updated));
+        }
+
+        @Test
+        void foldTheJournalIntoTheChapter() {
+            /* Given */
+            final Path chapterPath = copyOfTheFixtures().resolve("00-prologue.json");
+            final Entry createdEntry = Entry.builder().id(UUID.randomUUID()).type("markdown").build();
+            final Chapter updated = Fixtures.PROLOGUE.insertEntryAt(1, createdEntry);
+            journaledBookData.writeChapterEdits(chapterPath, updated,
+                    List.of(ChapterEdit.insert(Fixtures.PROLOGUE_ENTRY_1.getId(), createdEntry)));
+
+            /* When */
+            journaledBookData.compactJournals();
+
+            /* Then */
+            assertThat(ChapterJournal.pathOf(chapterPath)).doesNotExist();
+            assertThat(new BookData(mapper, new AppProperties()).readChapter(chapterPath))
+                    .isEqualTo(Result.value(updated));
+        }
+
+        @Test
+        void deleteTheJournalWhenTheChapterChanged() {
+            /* Given */
+            final Path chapterPath = copyOfTheFixtures().resolve("00-prologue.json");
+            journaledBookData.writeChapterEdits(chapterPath, Fixtures.PROLOGUE.deleteEntryAt(0).left(),
+                    List.of(ChapterEdit.delete(Fixtures.PROLOGUE_ENTRY_1.getId())));
+            uncheckedIo(() -> Files.writeString(chapterPath, "\n", StandardOpenOption.APPEND));
+
+            /* When */
+            final Result<Chapter> result = new BookData(mapper, properties).readChapter(chapterPath);
+
+            /* Then */
+            assertThat(result).isEqualTo(Result.value(Fixtures.PROLOGUE));
+            assertThat(ChapterJournal.pathOf(chapterPath)).doesNotExist();
+        }
+    }
+
+    @Nested
+    class SnapshotTest {
+
+        private final Path snapshotDirectory = Path.of("build", "book-data", "snapshots");
+        private final AppProperties properties = snapshotProperties(snapshotDirectory);
+
+        @Test
+        void reopenTheBookWithoutParsingItsChapters() {
+            /* Given */
+            final Path bookPath = copyOfTheFixtures().resolve("book.json");
+            emptyDirectory(snapshotDirectory);
+            takeSnapshot(bookPath);
+            final BookData reopened = new BookData(mapper, properties);
+
+            /* When */
+            final Result<Book> result = reopened.readBook(bookPath);
+
+            /* Then */
+            assertThat(result).isEqualTo(Result.value(Fixtures.BOOK.withBookPath(bookPath)));
+            assertThat(reopened.cacheStats().getMisses())
+                    .describedAs("Only the book file should be parsed")
+                    .isEqualTo(1);
+        }
+
+        @Test
+        void parseTheChaptersThatChangedSinceTheSnapshot() {
+            /* Given */
+            final Path bookPath = copyOfTheFixtures().resolve("book.json");
+            emptyDirectory(snapshotDirectory);
+            takeSnapshot(bookPath);
+            final Chapter prologue = Fixtures.PROLOGUE.deleteEntryAt(0).left();
+            new BookData(mapper, new AppProperties()).writeChapter(bookPath.resolveSibling("00-prologue.json"), prologue);
+            final BookData reopened = new BookData(mapper, properties);
+
+            /* When */
+            final Result<Book> result = reopened.readBook(bookPath);
+
+            /* Then */
+            assertThat(result.value().getChapters().get(0).getEntries()).isEqualTo(prologue.getEntries());
+            assertThat(reopened.cacheStats().getMisses())
+                    .describedAs("The book file and the changed chapter should be parsed")
+                    .isEqualTo(2);
+        }
+
+        @Test
+        void parseTheChaptersWhenTheSnapshotCannotBeRead() {
+            /* Given */
+            final Path bookPath = copyOfTheFixtures().resolve("book.json");
+            emptyDirectory(snapshotDirectory);
+            takeSnapshot(bookPath);
+            final Path snapshotPath = new BookSnapshots(snapshotDirectory, mapper, mapper).pathOf(bookPath);
+            uncheckedIo(() -> Files.writeString(snapshotPath, "not a snapshot"));
+            final BookData reopened = new BookData(mapper, properties);
+
+            /* When */
+            final Result<Book> result = reopened.readBook(bookPath);
+
+            /* Then */
+            assertThat(result).isEqualTo(Result.value(Fixtures.BOOK.withBookPath(bookPath)));
+            assertThat(reopened.cacheStats().getMisses()).isEqualTo(4);
+        }
+
+        @Test
+        void parseTheChaptersWhoseContentChangedEvenWhenTheirSizeAndTimeDidNot() {
+            /* Given */
+            final Path bookPath = copyOfTheFixtures().resolve("book.json");
+            emptyDirectory(snapshotDirectory);
+            takeSnapshot(bookPath);
+            final Path prologuePath = bookPath.resolveSibling("00-prologue.json");
+            uncheckedIo(() -> {
+                final FileTime lastModified = Files.getLastModifiedTime(prologuePath);
+                Files.writeString(prologuePath, Files.readString(prologuePath).replace("Prologue", "Epilogue"));
+                Files.setLastModifiedTime(prologuePath, lastModified);
+            });
+            final BookData reopened = new BookData(mapper, properties);
+
+            /* When */
+            final Result<Book> result = reopened.readBook(bookPath);
+
+            /* Then */
+            assertThat(result.value().getChapters().get(0).getEntries().get(0).getParameters())
+                    .containsExactly("Title:1", "Epilogue");
+            assertThat(reopened.cacheStats().getMisses())
+                    .describedAs("The book file and the changed chapter should be parsed")
+                    .isEqualTo(2);
+        }
+
+        @Test
+        void keepTheSnapshotsWhereOnlyTheirOwnerCanReadThem() {
+            /* Given */
+            assumeTrue(FileSystems.getDefault().supportedFileAttributeViews().contains("posix"));
+            final Path bookPath = copyOfTheFixtures().resolve("book.json");
+            emptyDirectory(snapshotDirectory);
+
+            /* When */
+            takeSnapshot(bookPath);
+
+            /* Then */
+            final Path snapshotPath = new BookSnapshots(snapshotDirectory, mapper, mapper).pathOf(bookPath);
+            assertThat(uncheckedIo(() -> Files.getPosixFilePermissions(snapshotDirectory)))
+                    .isEqualTo(PosixFilePermissions.fromString("rwx------"));
+            assertThat(uncheckedIo(() -> Files.getPosixFilePermissions(snapshotPath)))
+                    .isEqualTo(PosixFilePermissions.fromString("rw-------"));
+        }
+
+        @Test
+        void parseTheChaptersWhenOtherUsersCanWriteTheSnapshot() {
+            /* Given */
+            assumeTrue(FileSystems.getDefault().supportedFileAttributeViews().contains("posix"));
+            final Path bookPath = copyOfTheFixtures().resolve("book.json");
+            emptyDirectory(snapshotDirectory);
+            takeSnapshot(bookPath);
+            final Path snapshotPath = new BookSnapshots(snapshotDirectory, mapper, mapper).pathOf(bookPath);
+            uncheckedIo(() -> Files.setPosixFilePermissions(snapshotPath, PosixFilePermissions.fromString("rw-rw-rw-")));
+            final BookData reopened = new BookData(mapper, properties);
+
+            /* When */
+            final Result<Book> result = reopened.readBook(bookPath);
+
+            /* Then */
+            assertThat(result).isEqualTo(Result.value(Fixtures.BOOK.withBookPath(bookPath)));
+            assertThat(reopened.cacheStats().getMisses()).isEqualTo(4);
+        }
+
+        private void takeSnapshot(final Path bookPath) {
+            final BookData snapshotBookData = new BookData(mapper, properties);
+            snapshotBookData.readBook(bookPath);
+            snapshotBookData.close();
+        }
+    }
+
+    private static AppProperties snapshotProperties(final Path snapshotDirectory) {
+        final AppProperties properties = new AppProperties();
+        properties.getBook().setSnapshotDirectory(snapshotDirectory);
+        return properties;
+    }
+
+    private static AppProperties journaledProperties() {
+        final AppProperties properties = new AppProperties();
+        properties.getStorage().getJournal().setEnabled(true);
+        properties.getStorage().getJournal().setCompactionInterval(Duration.ofHours(1));
+        return properties;
+    }
+
+    private static Path copyOfTheFixtures() {
+        final Path directory = Path.of("build", "book-data", "books");
+        emptyDirectory(directory);
+        copyDirectory(Fixtures.BOOK_DIRECTORY, directory);
+        return directory;
+    }
+
     private static ObjectMapper createObjectMapper() {
         /* TODO: This is not necessary the same used by Spring */
         return JsonMapper.builder()
@@ -6,24 +6,35 @@ import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.mockito.stubbing.Answer;
 
+import java.io.FileNotFoundException;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Supplier;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 class BookServiceTest {
 
     private final BookData data = mock(BookData.class);
-    private final BookService service = new BookService(data);
+    private final BookWatcher watcher = mock(BookWatcher.class);
+    private final BookVersions versions = new BookVersions();
+    private final BookService service = new BookService(data, watcher, versions);
 
     @BeforeEach
     void setUp() {
-        reset(data);
+        reset(data, watcher);
+        when(data.withChapterLocked(any(), any())).thenAnswer(
+                (Answer<Result<?>>) invocation -> ((Supplier<Result<?>>) invocation.getArguments()[1]).get()
+        );
     }
 
     @Nested
@@ -41,6 +52,109 @@ class BookServiceTest {
             /* Then */
             assertThat(book)
                     .isEqualTo(Result.value(Fixtures.BOOK));
+            verify(watcher, times(1)).watch(eq(bookPath));
+        }
+
+        @Test
+        void doNotWatchABookThatFailedToOpen() {
+            /* Given */
+            final BookPath bookPath = BookPath.of(Fixtures.BOOK_DIRECTORY);
+            when(data.readBook(eq(bookPath.getPath()))).thenReturn(Result.error(new FileNotFoundException()));
+
+            /* When */
+            final Result<Book> book = service.openBook(bookPath);
+
+            /* Then */
+            assertThat(book.isValuePresent()).isFalse();
+            verify(watcher, never()).watch(any());
+        }
+    }
+
+    @Nested
+    class OpenBookOutlineTest {
+
+        @Test
+        void openBookOutline() {
+            /* Given */
+            final BookPath bookPath = BookPath.of(Fixtures.BOOK_DIRECTORY);
+            when(data.readBookOutline(eq(bookPath.getPath()))).thenReturn(Result.value(Fixtures.BOOK_OUTLINE));
+
+            /* When */
+            final Result<BookOutline> outline = service.openBookOutline(bookPath);
+
+            /* Then */
+            assertThat(outline)
+                    .isEqualTo(Result.value(Fixtures.BOOK_OUTLINE));
+        }
+    }
+
+    @Nested
+    class ReadBookChangesTest {
+
+        private final BookPath bookPath = BookPath.of(Fixtures.BOOK_DIRECTORY);
+        private final List<String> chapterPaths = List.of("00-prologue.json", "01-hello-world.json", "02-broken-links.json");
+
+        @Test
+        void returnAllChaptersToClientsWithoutAVersion() {
+            /* Given */
+            when(data.readChapterPaths(eq(bookPath.getPath()))).thenReturn(Result.value(chapterPaths));
+            when(data.readChapter(any())).thenReturn(Result.value(Fixtures.PROLOGUE));
+
+            /* When */
+            final Result<BookChanges> result = service.readBookChanges(bookPath, 0);
+
+            /* Then */
+            assertThat(result.isValuePresent()).isTrue();
+            assertThat(result.value().getVersion()).isEqualTo(versions.current());
+            assertThat(result.value().getChapterPaths()).isEqualTo(chapterPaths);
+            assertThat(result.value().getChapters()).hasSize(3);
+        }
+
+        @Test
+        void returnOnlyTheChaptersSavedSinceTheVersion() {
+            /* Given */
+            final ChapterPath chapterPath = Fixtures.PROLOGUE_CHAPTER_PATH;
+            final long since = versions.current();
+            when(data.readChapterPaths(eq(bookPath.getPath()))).thenReturn(Result.value(chapterPaths));
+            when(data.readChapter(eq(chapterPath.getPath()))).thenReturn(Result.value(Fixtures.PROLOGUE));
+            when(data.writeChapterEdits(eq(chapterPath.getPath()), any(Chapter.class), any())).thenAnswer(
+                    (Answer<Result<Chapter>>) invocation -> Result.value((Chapter) invocation.getArguments()[1])
+            );
+            service.saveEntry(chapterPath, Fixtures.PROLOGUE_ENTRY_1);
+
+            /* When */
+            final Result<BookChanges> result = service.readBookChanges(bookPath, since);
+
+            /* Then */
+            assertThat(result.isValuePresent()).isTrue();
+            assertThat(result.value().getVersion()).isGreaterThan(since);
+            assertThat(result.value().getChapters()).containsExactly(Fixtures.PROLOGUE);
+        }
+
+        @Test
+        void watchTheBookWhoseChangesAreRead() {
+            /* Given */
+            when(data.readChapterPaths(eq(bookPath.getPath()))).thenReturn(Result.value(chapterPaths));
+
+            /* When */
+            service.readBookChanges(bookPath, versions.current());
+
+            /* Then */
+            verify(watcher, times(1)).watch(eq(bookPath));
+        }
+
+        @Test
+        void returnNoChaptersWhenNothingChanged() {
+            /* Given */
+            when(data.readChapterPaths(eq(bookPath.getPath()))).thenReturn(Result.value(chapterPaths));
+
+            /* When */
+            final Result<BookChanges> result = service.readBookChanges(bookPath, versions.current());
+
+            /* Then */
+            assertThat(result.isValuePresent()).isTrue();
+            assertThat(result.value().getChapters()).isEmpty();
+            verify(data, never()).readChapter(any());
         }
     }
 
@@ -93,7 +207,7 @@ class BookServiceTest {
                     .build();
             final ChapterPath chapterPath = Fixtures.PROLOGUE_CHAPTER_PATH;
             when(data.readChapter(eq(chapterPath.getPath()))).thenReturn(Result.value(Fixtures.PROLOGUE));
-            when(data.writeChapter(eq(chapterPath.getPath()), any(Chapter.class))).thenAnswer(
+            when(data.writeChapterEdits(eq(chapterPath.getPath()), any(Chapter.class), any())).thenAnswer(
                     (Answer<Result<Chapter>>) invocation -> Result.value((Chapter) invocation.getArguments()[1])
             );
 
@@ -134,7 +248,7 @@ class BookServiceTest {
                     .build();
             final ChapterPath chapterPath = Fixtures.PROLOGUE_CHAPTER_PATH;
             when(data.readChapter(eq(chapterPath.getPath()))).thenReturn(Result.value(Fixtures.PROLOGUE));
-            when(data.writeChapter(eq(chapterPath.getPath()), any(Chapter.class))).thenAnswer(
+            when(data.writeChapterEdits(eq(chapterPath.getPath()), any(Chapter.class), any())).thenAnswer(
                     (Answer<Result<Chapter>>) invocation -> Result.value((Chapter) invocation.getArguments()[1])
             );
 
@@ -147,6 +261,96 @@ class BookServiceTest {
         }
     }
 
+    @Nested
+    class FindEntryTest {
+
+        private final BookPath bookPath = BookPath.of(Fixtures.BOOK_DIRECTORY);
+        private final ChapterPath helloWorldPath = ChapterPath.of(bookPath, Path.of("01-hello-world.json"));
+
+        @BeforeEach
+        void setUp() {
+            when(data.readBook(eq(bookPath.getPath()))).thenReturn(Result.value(Fixtures.BOOK));
+            when(data.readChapter(eq(helloWorldPath.getPath()))).thenReturn(Result.value(Fixtures.HELLO_WORLD));
+        }
+
+        @Test
+        void findTheEntryWithoutItsChapter() {
+            /* Given */
+            final UUID entryId = Fixtures.HELLO_WORLD_ENTRY_2.getId();
+
+            /* When */
+            final Result<LocatedEntry> result = service.findEntry(bookPath, entryId);
+
+            /* Then */
+            assertThat(result)
+                    .isEqualTo(Result.value(LocatedEntry.builder()
+                            .chapterPath("01-hello-world.json")
+                            .index(1)
+                            .entry(Fixtures.HELLO_WORLD_ENTRY_2)
+                            .build()));
+        }
+
+        @Test
+        void useTheDirectoryOfTheOpenedBook() {
+            /* Given */
+            service.openBook(bookPath);
+
+            /* When */
+            service.findEntry(bookPath, Fixtures.HELLO_WORLD_ENTRY_1.getId());
+            service.findEntry(bookPath, Fixtures.HELLO_WORLD_ENTRY_2.getId());
+
+            /* Then */
+            verify(data, times(1)).readBook(eq(bookPath.getPath()));
+        }
+
+        @Test
+        void returnsErrorWithoutReadingTheBookAgainWhenTheEntryIsNotInTheBook() {
+            /* Given */
+            service.openBook(bookPath);
+
+            /* When */
+            final Result<LocatedEntry> result = service.findEntry(bookPath, UUID.randomUUID());
+
+            /* Then */
+            assertThat(result)
+                    .isEqualTo(Result.error(new EntryNotFoundException()));
+            verify(data, times(1)).readBook(eq(bookPath.getPath()));
+        }
+
+        @Test
+        void readTheBookAgainWhenItChanged() {
+            /* Given */
+            service.openBook(bookPath);
+            versions.changed(bookPath.getPath());
+
+            /* When */
+            service.findEntry(bookPath, UUID.randomUUID());
+
+            /* Then */
+            verify(data, times(2)).readBook(eq(bookPath.getPath()));
+        }
+
+        @Test
+        void saveTheEntryInItsChapter() {
+            /* Given */
+            final Entry updatedEntry = Fixtures.HELLO_WORLD_ENTRY_2.toBuilder()
+                    .parameters(List.of("Continuous Integration"))
+                    .build();
+            when(data.writeChapterEdits(eq(helloWorldPath.getPath()), any(Chapter.class), any())).thenAnswer(
+                    (Answer<Result<Chapter>>) invocation -> Result.value((Chapter) invocation.getArguments()[1])
+            );
+
+            /* When */
+            final Result<Entry> result = service.saveEntry(bookPath, updatedEntry);
+
+            /* Then */
+            assertThat(result)
+                    .isEqualTo(Result.value(updatedEntry));
+            verify(data, times(1)).writeChapterEdits(eq(helloWorldPath.getPath()), any(Chapter.class),
+                    eq(List.of(ChapterEdit.save(updatedEntry))));
+        }
+    }
+
     @Nested
     class DeleteEntryTest {
 
@@ -172,7 +376,7 @@ class BookServiceTest {
             final ChapterPath chapterPath = Fixtures.PROLOGUE_CHAPTER_PATH;
             final Chapter writtenChapter = Chapter.builder().chapterPath("00-prologue.json").entry(Fixtures.PROLOGUE_ENTRY_2).build();
             when(data.readChapter(eq(chapterPath.getPath()))).thenReturn(Result.value(Fixtures.PROLOGUE));
-            when(data.writeChapter(eq(chapterPath.getPath()), eq(writtenChapter))).thenReturn(Result.value(writtenChapter));
+            when(data.writeChapterEdits(eq(chapterPath.getPath()), eq(writtenChapter), eq(List.of(ChapterEdit.delete(entryId))))).thenReturn(Result.value(writtenChapter));
 
             /* When */
             final Result<Entry> result = service.deleteEntry(chapterPath, entryId);
@@ -189,7 +393,7 @@ class BookServiceTest {
             final ChapterPath chapterPath = Fixtures.PROLOGUE_CHAPTER_PATH;
             final Chapter writtenChapter = Chapter.builder().chapterPath("00-prologue.json").entry(Fixtures.PROLOGUE_ENTRY_1).build();
             when(data.readChapter(eq(chapterPath.getPath()))).thenReturn(Result.value(Fixtures.PROLOGUE));
-            when(data.writeChapter(eq(chapterPath.getPath()), eq(writtenChapter))).thenReturn(Result.value(writtenChapter));
+            when(data.writeChapterEdits(eq(chapterPath.getPath()), eq(writtenChapter), eq(List.of(ChapterEdit.delete(entryId))))).thenReturn(Result.value(writtenChapter));
 
             /* When */
             final Result<Entry> result = service.deleteEntry(chapterPath, entryId);
@@ -199,4 +403,78 @@ class BookServiceTest {
             assertThat(result.value().getId()).isEqualTo(entryId);
         }
     }
+
+    @Nested
+    class ApplyEntryOperationsTest {
+
+        @Test
+        void applyAllOperationsAndWriteTheChapterOnce() {
+            /* Given */
+            final ChapterPath chapterPath = Fixtures.PROLOGUE_CHAPTER_PATH;
+            final Entry savedEntry = Fixtures.PROLOGUE_ENTRY_2.toBuilder()
+                    .parameters(List.of("I make mistakes, and I make more mistakes, and some more, and that's how I learn."))
+                    .build();
+            final List<EntryOperation> operations = List.of(
+                    EntryOperation.builder().operation(EntryOperation.Operation.SAVE).entry(savedEntry).build(),
+                    EntryOperation.builder().operation(EntryOperation.Operation.MOVE).entryId(savedEntry.getId()).build(),
+                    EntryOperation.builder().operation(EntryOperation.Operation.CREATE).type("markdown").afterEntryWithId(Fixtures.PROLOGUE_ENTRY_1.getId()).build(),
+                    EntryOperation.builder().operation(EntryOperation.Operation.DELETE).entryId(Fixtures.PROLOGUE_ENTRY_1.getId()).build());
+            when(data.readChapter(eq(chapterPath.getPath()))).thenReturn(Result.value(Fixtures.PROLOGUE));
+            when(data.writeChapterEdits(eq(chapterPath.getPath()), any(Chapter.class), any())).thenAnswer(
+                    (Answer<Result<Chapter>>) invocation -> Result.value((Chapter) invocation.getArguments()[1])
+            );
+
+            /* When */
+            final Result<List<Entry>> result = service.applyEntryOperations(chapterPath, operations);
+
+            /* Then */
+            assertThat(result.isValuePresent()).isTrue();
+            assertThat(result.value()).hasSize(4);
+            assertThat(result.value().get(0)).isEqualTo(savedEntry);
+            assertThat(result.value().get(1)).isEqualTo(savedEntry);
+            assertThat(result.value().get(2).getType()).isEqualTo("markdown");
+            assertThat(result.value().get(3)).isEqualTo(Fixtures.PROLOGUE_ENTRY_1);
+
+            final Chapter expected = Chapter.builder()
+                    .chapterPath("00-prologue.json")
+                    .entry(savedEntry)
+                    .entry(result.value().get(2))
+                    .build();
+            verify(data, times(1)).writeChapterEdits(eq(chapterPath.getPath()), eq(expected), any());
+        }
+
+        @Test
+        void returnTheFailedOperationAndWriteNothing() {
+            /* Given */
+            final ChapterPath chapterPath = Fixtures.PROLOGUE_CHAPTER_PATH;
+            final List<EntryOperation> operations = List.of(
+                    EntryOperation.builder().operation(EntryOperation.Operation.DELETE).entryId(Fixtures.PROLOGUE_ENTRY_1.getId()).build(),
+                    EntryOperation.builder().operation(EntryOperation.Operation.DELETE).entryId(Fixtures.PROLOGUE_ENTRY_1.getId()).build());
+            when(data.readChapter(eq(chapterPath.getPath()))).thenReturn(Result.value(Fixtures.PROLOGUE));
+
+            /* When */
+            final Result<List<Entry>> result = service.applyEntryOperations(chapterPath, operations);
+
+            /* Then */
+            assertThat(result)
+                    .isEqualTo(Result.error(new EntryOperationException(1, new EntryNotFoundException())));
+            verify(data, never()).writeChapterEdits(any(), any(), any());
+        }
+
+        @Test
+        void doNotWriteTheChapterWhenNothingChanged() {
+            /* Given */
+            final ChapterPath chapterPath = Fixtures.PROLOGUE_CHAPTER_PATH;
+            final List<EntryOperation> operations = List.of(
+                    EntryOperation.builder().operation(EntryOperation.Operation.SAVE).entry(Fixtures.PROLOGUE_ENTRY_2).build());
+            when(data.readChapter(eq(chapterPath.getPath()))).thenReturn(Result.value(Fixtures.PROLOGUE));
+
+            /* When */
+            final Result<List<Entry>> result = service.applyEntryOperations(chapterPath, operations);
+
+            /* Then */
+            assertThat(result).isEqualTo(Result.value(List.of(Fixtures.PROLOGUE_ENTRY_2)));
+            verify(data, never()).writeChapterEdits(any(), any(), any());
+        }
+    }
 }
@@ -0,0 +1,129 @@
+package aa.sw.book;
+
+import aa.sw.config.AppProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+
+import static aa.sw.IoUtils.copyDirectory;
+import static aa.sw.IoUtils.emptyDirectory;
+import static aa.sw.common.UncheckedIo.uncheckedIo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+class BookWatcherTest {
+
+    private final SimpMessageSendingOperations messaging = mock(SimpMessageSendingOperations.class);
+    private final AppProperties properties = createProperties();
+    private final BookData data = new BookData(new ObjectMapper(), properties);
+    private final BookVersions versions = spy(new BookVersions());
+    private final BookWatcher watcher = new BookWatcher(messaging, data, versions, properties);
+
+    @AfterEach
+    void tearDown() {
+        watcher.close();
+        data.close();
+    }
+
+    @Test
+    void publishOneChangeForABurstOfEvents() {
+        /* Given */
+        final BookPath bookPath = BookPath.of(copyOfTheFixtures().resolve("book.json"));
+        final Path chapterPath = bookPath.getDirectory().resolve("00-prologue.json");
+        watcher.watch(bookPath);
+
+        /* When */
+        for (int i = 0; i < 10; i++) {
+            uncheckedIo(() -> Files.writeString(chapterPath, "\n", StandardOpenOption.APPEND));
+        }
+
+        /* Then */
+        final BookChange change = BookChange.of(bookPath.toString(), "00-prologue.json");
+        verify(messaging, timeout(5_000)).convertAndSend(eq(BookWatcher.DESTINATION), eq(change));
+        verify(messaging, after(500)).convertAndSend(eq(BookWatcher.DESTINATION), any(BookChange.class));
+    }
+
+    @Test
+    void publishTheBookWhenTheBookFileChanges() {
+        /* Given */
+        final BookPath bookPath = BookPath.of(copyOfTheFixtures().resolve("book.json"));
+        watcher.watch(bookPath);
+
+        /* When */
+        uncheckedIo(() -> Files.writeString(bookPath.getPath(), "\n", StandardOpenOption.APPEND));
+
+        /* Then */
+        verify(messaging, timeout(5_000))
+                .convertAndSend(eq(BookWatcher.DESTINATION), eq(BookChange.of(bookPath.toString(), null)));
+    }
+
+    @Test
+    void doNotPublishTheChaptersWrittenByTheApplication() {
+        /* Given */
+        final BookPath bookPath = BookPath.of(copyOfTheFixtures().resolve("book.json"));
+        final Path chapterPath = bookPath.getDirectory().resolve("00-prologue.json");
+        watcher.watch(bookPath);
+
+        /* When */
+        data.writeChapter(chapterPath, Fixtures.PROLOGUE.deleteEntryAt(0).left());
+
+        /* Then */
+        verify(messaging, after(1_000).never()).convertAndSend(eq(BookWatcher.DESTINATION), any(BookChange.class));
+    }
+
+    @Test
+    void publishTheChaptersChangedOutsideOfTheApplicationEvenWhenReadSince() {
+        /* Given */
+        final BookPath bookPath = BookPath.of(copyOfTheFixtures().resolve("book.json"));
+        final Path chapterPath = bookPath.getDirectory().resolve("00-prologue.json");
+        watcher.watch(bookPath);
+        data.writeChapter(chapterPath, Fixtures.PROLOGUE);
+
+        /* When */
+        uncheckedIo(() -> Files.writeString(chapterPath, "\n", StandardOpenOption.APPEND));
+        data.readChapter(chapterPath);
+
+        /* Then */
+        final BookChange change = BookChange.of(bookPath.toString(), "00-prologue.json");
+        verify(messaging, timeout(5_000)).convertAndSend(eq(BookWatcher.DESTINATION), eq(change));
+    }
+
+    @Test
+    void changeTheVersionOfTheChaptersWrittenByTheApplication() {
+        /* Given */
+        final BookPath bookPath = BookPath.of(copyOfTheFixtures().resolve("book.json"));
+        final Path chapterPath = bookPath.getDirectory().resolve("00-prologue.json");
+        watcher.watch(bookPath);
+
+        /* When */
+        data.writeChapter(chapterPath, Fixtures.PROLOGUE.deleteEntryAt(0).left());
+
+        /* Then */
+        verify(versions, timeout(5_000)).changed(eq(chapterPath.toAbsolutePath()));
+    }
+
+    private static Path copyOfTheFixtures() {
+        final Path directory = Path.of("build", "book-watcher", "books");
+        emptyDirectory(directory);
+        copyDirectory(Fixtures.BOOK_DIRECTORY, directory);
+        return directory;
+    }
+
+    private static AppProperties createProperties() {
+        final AppProperties properties = new AppProperties();
+        properties.getBook().setWatchQuietPeriod(Duration.ofMillis(100));
+        return properties;
+    }
+}
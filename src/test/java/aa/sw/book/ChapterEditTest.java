@@ -0,0 +1,57 @@
+package aa.sw.book;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ChapterEditTest {
+
+    @Test
+    void applyTheEditsInOrder() {
+        /* Given */
+        final Entry createdEntry = Entry.builder().id(UUID.randomUUID()).type("markdown").build();
+        final Entry savedEntry = createdEntry.toBuilder().type("code").build();
+        final List<ChapterEdit> edits = List.of(
+                ChapterEdit.insert(null, createdEntry),
+                ChapterEdit.delete(Fixtures.PROLOGUE_ENTRY_1.getId()),
+                ChapterEdit.save(savedEntry));
+
+        /* When */
+        final Chapter result = ChapterEdit.applyAll(Fixtures.PROLOGUE, edits);
+
+        /* Then */
+        assertThat(result).isEqualTo(Chapter.builder()
+                .chapterPath("00-prologue.json")
+                .entry(savedEntry)
+                .entry(Fixtures.PROLOGUE_ENTRY_2)
+                .build());
+    }
+
+    @Test
+    void insertAfterTheGivenEntry() {
+        /* Given */
+        final Entry createdEntry = Entry.builder().id(UUID.randomUUID()).type("markdown").build();
+
+        /* When */
+        final Chapter result = ChapterEdit.insert(Fixtures.PROLOGUE_ENTRY_1.getId(), createdEntry)
+                .apply(Fixtures.PROLOGUE);
+
+        /* Then */
+        assertThat(result.getEntries())
+                .containsExactly(Fixtures.PROLOGUE_ENTRY_1, createdEntry, Fixtures.PROLOGUE_ENTRY_2);
+    }
+
+    @Test
+    void failWhenTheEntryIsNotFound() {
+        /* Given */
+        final ChapterEdit edit = ChapterEdit.delete(UUID.randomUUID());
+
+        /* When/Then */
+        assertThatThrownBy(() -> edit.apply(Fixtures.PROLOGUE))
+                .isInstanceOf(EntryNotFoundException.class);
+    }
+}
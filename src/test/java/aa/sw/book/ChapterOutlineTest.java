@@ -0,0 +1,41 @@
+package aa.sw.book;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChapterOutlineTest {
+
+    @Test
+    void useTheTitleOfTheFirstChapterEntry() {
+        /* Given */
+        final List<Entry> entries = List.of(
+                Entry.builder().type("markdown").parameters(List.of("Title:1", "Not a title")).build(),
+                Entry.builder().type("chapter").parameters(List.of("Title:2", "Line 1", "Line 2", "Description:1", "Test")).build());
+
+        /* When */
+        final ChapterOutline outline = ChapterOutline.of("chapter-path", entries);
+
+        /* Then */
+        assertThat(outline).isEqualTo(ChapterOutline.builder()
+                .chapterPath("chapter-path")
+                .title("Line 1\nLine 2")
+                .numberOfEntries(2)
+                .build());
+    }
+
+    @Test
+    void leaveTheTitleEmptyWhenTheChapterHasNoTitle() {
+        /* Given */
+        final List<Entry> entries = List.of(Entry.builder().type("chapter").parameters(List.of("Description:1", "Test")).build());
+
+        /* When */
+        final ChapterOutline outline = ChapterOutline.of("chapter-path", entries);
+
+        /* Then */
+        assertThat(outline.getTitle()).isNull();
+        assertThat(outline.getNumberOfEntries()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,113 @@
+package aa.sw.book;
+
+import aa.sw.common.CustomPrettyPrinter;
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static aa.sw.common.UncheckedIo.uncheckedIo;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChapterSplicerTest {
+
+    private final ObjectMapper mapper = createObjectMapper();
+    private final ChapterSplicer splicer = uncheckedIo(() -> new ChapterSplicer(CustomPrettyPrinter.of(mapper),
+            mapper.getFactory()));
+
+    private final EntryList entries = EntryList.of(List.of(
+            createEntry("First"),
+            createEntry("Second"),
+            createEntry("Third")
+    ));
+
+    @Test
+    void spliceTheEntryThatChanged() throws Exception {
+        /* Given */
+        final ChapterSplicer.Layout previous = splicer.write(entries);
+        final EntryList changed = entries.swap(1, entries.get(1).toBuilder()
+                .parameters(List.of("A much longer second entry than before"))
+                .values(Map.of("language", "java"))
+                .build());
+
+        /* When */
+        final ChapterSplicer.Layout layout = splicer.splice(previous, changed);
+
+        /* Then */
+        assertThat(layout.getContent()).isEqualTo(splicer.write(changed).getContent());
+    }
+
+    @Test
+    void spliceTheEntriesThatWereInsertedOrDeleted() throws Exception {
+        /* Given */
+        final ChapterSplicer.Layout previous = splicer.write(entries);
+        final List<EntryList> changes = List.of(
+                entries.insert(0, createEntry("Before the first")),
+                entries.insert(2, createEntry("In the middle")),
+                entries.insert(3, createEntry("After the last")),
+                entries.delete(0),
+                entries.delete(1),
+                entries.delete(2),
+                entries.delete(2).insert(0, entries.get(2))
+        );
+
+        for (final EntryList changed : changes) {
+            /* When */
+            final ChapterSplicer.Layout layout = splicer.splice(previous, changed);
+
+            /* Then */
+            assertThat(layout.getContent()).isEqualTo(splicer.write(changed).getContent());
+        }
+    }
+
+    @Test
+    void spliceAChapterThatWasSplicedBefore() throws Exception {
+        /* Given */
+        final ChapterSplicer.Layout first = splicer.splice(splicer.write(entries), entries.delete(1));
+        final EntryList changed = entries.delete(1).insert(1, createEntry("Last"));
+
+        /* When */
+        final ChapterSplicer.Layout layout = splicer.splice(first, changed);
+
+        /* Then */
+        assertThat(layout.getContent()).isEqualTo(splicer.write(changed).getContent());
+    }
+
+    @Test
+    void writeTheChapterWholeWhenAllItsEntriesAreDeleted() throws Exception {
+        /* Given */
+        final ChapterSplicer.Layout previous = splicer.write(entries);
+
+        /* When */
+        final ChapterSplicer.Layout layout = splicer.splice(previous, EntryList.of());
+
+        /* Then */
+        assertThat(layout.getContent()).isEqualTo(splicer.write(EntryList.of()).getContent());
+    }
+
+    private static Entry createEntry(final String text) {
+        return Entry.builder()
+                .type("markdown")
+                .id(UUID.randomUUID())
+                .parameters(List.of(text))
+                .build();
+    }
+
+    private static ObjectMapper createObjectMapper() {
+        return JsonMapper.builder()
+                .addModule(new Jdk8Module())
+                .addModule(new JavaTimeModule())
+                .serializationInclusion(JsonInclude.Include.NON_NULL)
+                .visibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE)
+                .visibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY)
+                .build();
+    }
+}
@@ -0,0 +1,97 @@
+package aa.sw.book;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EntryListTest {
+
+    @Test
+    void findEntriesByTheirId() {
+        /* Given */
+        final Entry a = createEntry();
+        final Entry b = createEntry();
+        final EntryList entries = EntryList.of(List.of(a, b));
+
+        /* When/Then */
+        assertThat(entries.indexOfId(a.getId())).isEqualTo(0);
+        assertThat(entries.indexOfId(b.getId())).isEqualTo(1);
+        assertThat(entries.indexOfId(UUID.randomUUID())).isEqualTo(-1);
+        assertThat(entries.indexOfId(null)).isEqualTo(-1);
+    }
+
+    @Test
+    void findTheFirstEntryWhenTheIdsAreNotUnique() {
+        /* Given */
+        final Entry a = createEntry();
+        final Entry b = createEntry();
+        final EntryList entries = EntryList.of(List.of(b, a, a));
+
+        /* When */
+        final EntryList updated = entries.delete(1);
+
+        /* Then */
+        assertThat(entries.indexOfId(a.getId())).isEqualTo(1);
+        assertThat(updated.indexOfId(a.getId())).isEqualTo(1);
+        assertThat(updated.delete(0).indexOfId(a.getId())).isEqualTo(0);
+    }
+
+    @Test
+    void deriveTheIndexOfChangedLists() {
+        /* Given */
+        final Random random = new Random(7);
+        final List<Entry> expected = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            expected.add(createEntry());
+        }
+        EntryList entries = EntryList.of(expected);
+        entries.indexOfId(expected.get(0).getId());
+
+        /* When/Then */
+        for (int i = 0; i < 500; i++) {
+            final int operation = random.nextInt(3);
+            if (operation == 0 || expected.isEmpty()) {
+                final int index = random.nextInt(expected.size() + 1);
+                final Entry entry = createEntry();
+                expected.add(index, entry);
+                entries = entries.insert(index, entry);
+            } else if (operation == 1) {
+                final int index = random.nextInt(expected.size());
+                expected.remove(index);
+                entries = entries.delete(index);
+            } else {
+                final int index = random.nextInt(expected.size());
+                final Entry entry = random.nextBoolean()
+                        ? expected.get(index).toBuilder().type("code").build()
+                        : createEntry();
+                expected.set(index, entry);
+                entries = entries.swap(index, entry);
+            }
+
+            assertThat(entries).isEqualTo(expected);
+            for (final Entry entry : expected) {
+                assertThat(entries.indexOfId(entry.getId())).isEqualTo(expected.indexOf(entry));
+            }
+        }
+    }
+
+    @Test
+    void doNotAllowTheListToBeModified() {
+        /* Given */
+        final EntryList entries = EntryList.of(List.of(createEntry()));
+
+        /* When/Then */
+        assertThatThrownBy(() -> entries.add(createEntry()))
+                .isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    private static Entry createEntry() {
+        return Entry.builder().id(UUID.randomUUID()).type("markdown").build();
+    }
+}
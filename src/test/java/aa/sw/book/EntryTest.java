@@ -0,0 +1,78 @@
+package aa.sw.book;
+
+import aa.sw.config.JacksonConfiguration;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EntryTest {
+
+    private final ObjectMapper mapper = new JacksonConfiguration().createObjectMapper();
+
+    @Test
+    void keepTheFlagsThatAreNotSetApartFromTheFalseOnes() {
+        /* Given */
+        final Entry.EntryBuilder builder = Entry.builder()
+                .ignoreErrors(true)
+                .pushChanges(false)
+                .sensitive(true);
+
+        /* When */
+        final Entry entry = builder.build();
+
+        /* Then */
+        assertThat(entry.getIgnoreErrors()).isTrue();
+        assertThat(entry.getPushChanges()).isFalse();
+        assertThat(entry.getDryRun()).isNull();
+        assertThat(entry.getSensitive()).isTrue();
+    }
+
+    @Test
+    void changeOneFlagWithoutTheOthers() {
+        /* Given */
+        final Entry entry = Entry.builder()
+                .ignoreErrors(true)
+                .dryRun(true)
+                .build();
+
+        /* When */
+        final Entry changed = entry.toBuilder()
+                .ignoreErrors(null)
+                .dryRun(false)
+                .build();
+
+        /* Then */
+        assertThat(changed.getIgnoreErrors()).isNull();
+        assertThat(changed.getDryRun()).isFalse();
+        assertThat(changed).isNotEqualTo(entry);
+        assertThat(changed.toBuilder().ignoreErrors(true).dryRun(true).build()).isEqualTo(entry);
+    }
+
+    @Test
+    void writeTheFlagsInPlaceOfTheirFields() throws Exception {
+        /* Given */
+        final Entry entry = Entry.builder()
+                .type("code")
+                .id(UUID.fromString("3a50daae-ab81-426f-a118-b505e7eecb49"))
+                .parameters(List.of("git status"))
+                .values(Map.of("branch", "main"))
+                .ignoreErrors(false)
+                .dryRun(true)
+                .expectedExitValue(1)
+                .build();
+
+        /* When */
+        final String json = mapper.writeValueAsString(entry);
+
+        /* Then */
+        assertThat(json).isEqualTo("{\"type\":\"code\",\"id\":\"3a50daae-ab81-426f-a118-b505e7eecb49\","
+                + "\"parameters\":[\"git status\"],\"values\":{\"branch\":\"main\"},\"ignoreErrors\":false,"
+                + "\"dryRun\":true,\"expectedExitValue\":1}");
+        assertThat(mapper.readValue(json, Entry.class)).isEqualTo(entry);
+    }
+}
@@ -75,6 +75,15 @@ class Fixtures {
             .chapter(BROKEN_LINKS)
             .build();
 
+    static final BookOutline BOOK_OUTLINE = BookOutline.builder()
+            .title("Programming")
+            .description("A book about programming")
+            .bookPath(resolve("book.json"))
+            .chapter(ChapterOutline.builder().chapterPath("00-prologue.json").title("Prologue").numberOfEntries(2).build())
+            .chapter(ChapterOutline.builder().chapterPath("01-hello-world.json").title("Hello World").numberOfEntries(2).build())
+            .chapter(ChapterOutline.builder().chapterPath("02-broken-links.json").title("Broken Links").numberOfEntries(2).build())
+            .build();
+
     static Path resolve(final String name) {
         return BOOK_DIRECTORY.resolve(name);
     }
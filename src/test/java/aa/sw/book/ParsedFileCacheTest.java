@@ -0,0 +1,177 @@
+package aa.sw.book;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.FileNotFoundException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static aa.sw.IoUtils.emptyDirectory;
+import static aa.sw.common.UncheckedIo.uncheckedIo;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ParsedFileCacheTest {
+
+    private static final Path DIRECTORY = Path.of("build", "parsed-file-cache");
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        emptyDirectory(DIRECTORY);
+        uncheckedIo(() -> Files.createDirectories(DIRECTORY));
+    }
+
+    @Test
+    void returnCachedValueWhenFileHasNotChanged() throws Exception {
+        /* Given */
+        final ParsedFileCache cache = new ParsedFileCache(1024);
+        final Path file = write("a.txt", "hello");
+
+        /* When */
+        final String first = cache.get(file, String.class, this::load);
+        final String second = cache.get(file, String.class, this::load);
+
+        /* Then */
+        assertThat(first).isEqualTo("hello");
+        assertThat(second).isSameAs(first);
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(cache.stats()).isEqualTo(new ParsedFileCache.Stats(1, 1, 0, 1));
+    }
+
+    @Test
+    void reloadValueWhenFileHasChanged() throws Exception {
+        /* Given */
+        final ParsedFileCache cache = new ParsedFileCache(1024);
+        final Path file = write("a.txt", "hello");
+        cache.get(file, String.class, this::load);
+        write("a.txt", "hello world");
+
+        /* When */
+        final String value = cache.get(file, String.class, this::load);
+
+        /* Then */
+        assertThat(value).isEqualTo("hello world");
+        assertThat(loads.get()).isEqualTo(2);
+        assertThat(cache.stats().getMisses()).isEqualTo(2);
+    }
+
+    @Test
+    void cacheValueReadElsewhereOnlyWhenFileHasNotChanged() throws Exception {
+        /* Given */
+        final ParsedFileCache cache = new ParsedFileCache(1024);
+        final Path file = write("a.txt", "hello");
+        final BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+
+        /* When */
+        final boolean unchanged = cache.putIfUnchanged(file, "hello", attributes.size(), attributes.lastModifiedTime());
+        final boolean changed = cache.putIfUnchanged(file, "hi", attributes.size() + 1, attributes.lastModifiedTime());
+
+        /* Then */
+        assertThat(unchanged).isTrue();
+        assertThat(changed).isFalse();
+        assertThat(cache.get(file, String.class, this::load)).isEqualTo("hello");
+        assertThat(loads.get()).isZero();
+    }
+
+    @Test
+    void reloadValueWhenCacheWasInvalidated() throws Exception {
+        /* Given */
+        final ParsedFileCache cache = new ParsedFileCache(1024);
+        final Path file = write("a.txt", "hello");
+        cache.get(file, String.class, this::load);
+
+        /* When */
+        cache.invalidate(file);
+        cache.get(file, String.class, this::load);
+
+        /* Then */
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    void evictFilesWhenTheCacheIsFull() throws Exception {
+        /* Given */
+        final ParsedFileCache cache = new ParsedFileCache(0);
+        final Path file = write("a.txt", "hello");
+
+        /* When */
+        cache.get(file, String.class, this::load);
+        cache.get(file, String.class, this::load);
+
+        /* Then */
+        assertThat(loads.get()).isEqualTo(2);
+        assertThat(cache.stats().getEvictions()).isEqualTo(2);
+    }
+
+    @Test
+    void returnTheAttachmentCachedWithTheValue() throws Exception {
+        /* Given */
+        final ParsedFileCache cache = new ParsedFileCache(1024);
+        final Path file = write("a.txt", "hello");
+
+        /* When */
+        cache.put(file, "hello", "attachment", 10);
+
+        /* Then */
+        assertThat(cache.getAttachmentIfFresh(file, String.class)).contains("attachment");
+        assertThat(cache.get(file, String.class, this::load)).isEqualTo("hello");
+        assertThat(loads.get()).isZero();
+    }
+
+    @Test
+    void dropTheAttachmentWhenTheFileHasChanged() throws Exception {
+        /* Given */
+        final ParsedFileCache cache = new ParsedFileCache(1024);
+        final Path file = write("a.txt", "hello");
+        cache.put(file, "hello", "attachment", 10);
+
+        /* When */
+        write("a.txt", "hello world");
+
+        /* Then */
+        assertThat(cache.getAttachmentIfFresh(file, String.class)).isEmpty();
+    }
+
+    @Test
+    void weighTheAttachmentTogetherWithTheFile() throws Exception {
+        /* Given */
+        final ParsedFileCache cache = new ParsedFileCache(16);
+        final Path file = write("a.txt", "hello");
+        cache.put(file, "hello", "small", 11);
+
+        /* When */
+        cache.put(file, "hello", "large", 12);
+
+        /* Then */
+        assertThat(cache.getAttachmentIfFresh(file, String.class)).isEmpty();
+        assertThat(cache.stats().getEvictions()).isEqualTo(1);
+    }
+
+    @Test
+    void throwFileNotFoundWhenFileDoesNotExists() {
+        /* Given */
+        final ParsedFileCache cache = new ParsedFileCache(1024);
+        final Path file = DIRECTORY.resolve("missing.txt");
+
+        /* When/Then */
+        assertThatThrownBy(() -> cache.get(file, String.class, this::load))
+                .isInstanceOf(FileNotFoundException.class);
+    }
+
+    private String load(final Path path) {
+        loads.incrementAndGet();
+        return uncheckedIo(() -> Files.readString(path, StandardCharsets.UTF_8));
+    }
+
+    private static Path write(final String name, final String content) {
+        final Path file = DIRECTORY.resolve(name);
+        uncheckedIo(() -> Files.writeString(file, content, StandardCharsets.UTF_8));
+        return file;
+    }
+}
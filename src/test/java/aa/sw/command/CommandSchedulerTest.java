@@ -0,0 +1,151 @@
+package aa.sw.command;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CommandSchedulerTest {
+
+    private final List<CommandScheduler> schedulers = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        schedulers.forEach(CommandScheduler::close);
+    }
+
+    @Test
+    void runTheCommandsOfDifferentWorkspacesAtTheSameTime() throws Exception {
+        /* Given */
+        final CommandScheduler scheduler = create(2);
+        final CountDownLatch bothRunning = new CountDownLatch(2);
+        final Runnable command = () -> {
+            bothRunning.countDown();
+            await(bothRunning);
+        };
+
+        /* When */
+        final CompletableFuture<Void> first = scheduler.submit("session", "workspace-1", command);
+        final CompletableFuture<Void> second = scheduler.submit("session", "workspace-2", command);
+
+        /* Then */
+        CompletableFuture.allOf(first, second).get(5, TimeUnit.SECONDS);
+        assertThat(bothRunning.getCount()).isZero();
+    }
+
+    @Test
+    void runTheCommandsOfTheSameWorkspaceOneAfterTheOther() throws Exception {
+        /* Given */
+        final CommandScheduler scheduler = create(4);
+        final List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+
+        /* When */
+        final List<CompletableFuture<Void>> commands = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            final int index = i;
+            commands.add(scheduler.submit("session-" + i % 3, "workspace", () -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                order.add(index);
+                running.decrementAndGet();
+            }));
+        }
+
+        /* Then */
+        CompletableFuture.allOf(commands.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+        assertThat(order).containsExactly(0, 1, 2, 3, 4, 5, 6, 7, 8, 9);
+        assertThat(maxRunning.get()).isEqualTo(1);
+    }
+
+    @Test
+    void takeTurnsBetweenTheSessions() throws Exception {
+        /* Given */
+        final CommandScheduler scheduler = create(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<String> order = Collections.synchronizedList(new ArrayList<>());
+        scheduler.submit("blocking", "blocking", () -> await(release));
+
+        /* When */
+        final List<CompletableFuture<Void>> commands = new ArrayList<>();
+        commands.add(scheduler.submit("busy", "a1", () -> order.add("a1")));
+        commands.add(scheduler.submit("busy", "a2", () -> order.add("a2")));
+        commands.add(scheduler.submit("busy", "a3", () -> order.add("a3")));
+        commands.add(scheduler.submit("quiet", "b1", () -> order.add("b1")));
+        release.countDown();
+
+        /* Then */
+        CompletableFuture.allOf(commands.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+        assertThat(order).containsExactly("a1", "b1", "a2", "a3");
+    }
+
+    @Test
+    void reportTheQueueDepthAndTheWaitTime() throws Exception {
+        /* Given */
+        final CommandScheduler scheduler = create(1);
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        scheduler.submit("session", "workspace-1", () -> {
+            started.countDown();
+            await(release);
+        });
+        final CompletableFuture<Void> second = scheduler.submit("session", "workspace-2", () -> { });
+        final CompletableFuture<Void> third = scheduler.submit("session", "workspace-3", () -> { });
+        started.await(5, TimeUnit.SECONDS);
+
+        /* When */
+        final CommandScheduler.Stats queued = scheduler.stats();
+        TimeUnit.MILLISECONDS.sleep(20);
+        release.countDown();
+        CompletableFuture.allOf(second, third).get(5, TimeUnit.SECONDS);
+        final CommandScheduler.Stats done = scheduler.stats();
+
+        /* Then */
+        assertThat(queued.getRunning()).isEqualTo(1);
+        assertThat(queued.getQueued()).isEqualTo(2);
+        assertThat(done.getQueued()).isZero();
+        assertThat(done.getStarted()).isEqualTo(3);
+        assertThat(done.getMaxWaitMillis()).isGreaterThanOrEqualTo(20);
+    }
+
+    @Test
+    void completeTheCommandExceptionallyWhenItFails() {
+        /* Given */
+        final CommandScheduler scheduler = create(1);
+
+        /* When */
+        final CompletableFuture<Void> command = scheduler.submit("session", "workspace", () -> {
+            throw new IllegalStateException("Failed");
+        });
+
+        /* Then */
+        assertThatThrownBy(() -> command.get(5, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(IllegalStateException.class);
+        assertThat(scheduler.submit("session", "workspace", () -> { }))
+                .describedAs("The workspace should be free for the next command")
+                .succeedsWithin(5, TimeUnit.SECONDS);
+    }
+
+    private CommandScheduler create(final int parallelism) {
+        final CommandScheduler scheduler = new CommandScheduler(parallelism);
+        schedulers.add(scheduler);
+        return scheduler;
+    }
+
+    private static void await(final CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package aa.sw.command;
+
+import aa.sw.config.AppProperties.OutputOverflow;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OutputBufferTest {
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    private final ExecutorService sender = Executors.newSingleThreadExecutor();
+    private final List<String> sent = new CopyOnWriteArrayList<>();
+
+    /* The client is slow until released, and takes the first chunk before it is */
+    private final CountDownLatch entered = new CountDownLatch(1);
+    private final CountDownLatch released = new CountDownLatch(1);
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdownNow();
+        sender.shutdownNow();
+    }
+
+    @Test
+    void sendTheOutputInOrder() {
+        /* Given */
+        final OutputBuffer buffer = createBuffer(OutputOverflow.BLOCK, 4);
+        released.countDown();
+
+        /* When */
+        lines(1000).forEach(buffer::accept);
+        buffer.close();
+
+        /* Then */
+        assertThat(sent).containsExactlyElementsOf(lines(1000));
+    }
+
+    @Test
+    void blockTheWriterUntilTheClientCatchesUp() throws Exception {
+        /* Given */
+        final OutputBuffer buffer = createBuffer(OutputOverflow.BLOCK, 2);
+        final Thread writer = new Thread(() -> writeWhileTheClientIsSlow(buffer));
+
+        /* When */
+        writer.start();
+        writer.join(200);
+        final boolean blocked = writer.isAlive();
+        released.countDown();
+        writer.join();
+        buffer.close();
+
+        /* Then */
+        assertThat(blocked).isTrue();
+        assertThat(sent).containsExactlyElementsOf(lines(10));
+    }
+
+    @Test
+    void spillTheOutputOfAWriterInterruptedWhileWaitingForRoom() throws Exception {
+        /* Given */
+        final OutputBuffer buffer = createBuffer(OutputOverflow.BLOCK, 2);
+        final Thread writer = new Thread(() -> writeWhileTheClientIsSlow(buffer));
+
+        /* When */
+        writer.start();
+        writer.join(200);
+        writer.interrupt();
+        writer.join();
+        released.countDown();
+        buffer.close();
+
+        /* Then */
+        assertThat(sent).containsExactlyElementsOf(lines(10));
+    }
+
+    @Test
+    void dropTheOutputThatDoesNotFitAndTellHowManyLinesWereSkipped() {
+        /* Given */
+        final OutputBuffer buffer = createBuffer(OutputOverflow.DROP, 2);
+
+        /* When */
+        writeWhileTheClientIsSlow(buffer);
+        released.countDown();
+        buffer.close();
+
+        /* Then */
+        assertThat(sent).containsExactly(
+                String.format("line 0%n"),
+                String.format("line 1%n"),
+                String.format("line 2%n"),
+                String.format("... 7 lines skipped ...%n"));
+    }
+
+    @Test
+    void spillTheOutputThatDoesNotFitAndSendItOnceTheClientCatchesUp() {
+        /* Given */
+        final OutputBuffer buffer = createBuffer(OutputOverflow.SPILL, 2);
+
+        /* When */
+        writeWhileTheClientIsSlow(buffer);
+        released.countDown();
+        buffer.close();
+
+        /* Then */
+        assertThat(sent).containsExactlyElementsOf(lines(10));
+    }
+
+    @Test
+    void returnFromEachDrainOnceTheOutputBeforeItIsSent() throws Exception {
+        /* Given */
+        final OutputBuffer buffer = createBuffer(OutputOverflow.SPILL, 2);
+        final List<Thread> writers = List.of(
+                new Thread(() -> writeAndDrain(buffer, "first")),
+                new Thread(() -> writeAndDrain(buffer, "second")));
+
+        /* When */
+        buffer.accept(String.format("line 0%n"));
+        entered.await();
+        writers.forEach(Thread::start);
+        released.countDown();
+        for (final Thread writer : writers) {
+            writer.join(5000);
+        }
+
+        /* Then */
+        assertThat(writers).noneMatch(Thread::isAlive);
+        assertThat(sent).containsExactlyInAnyOrder(
+                String.format("line 0%n"),
+                String.format("first%n"),
+                String.format("second%n"));
+    }
+
+    /* The coalescer sends each chunk as it comes, as these are larger than its batches */
+    private OutputBuffer createBuffer(final OutputOverflow overflow, final int capacity) {
+        final OutputCoalescer coalescer = new OutputCoalescer(this::sendSlowly, Duration.ofHours(1), 1, scheduler);
+        return new OutputBuffer(coalescer, overflow, capacity, sender);
+    }
+
+    private void sendSlowly(final String output) {
+        entered.countDown();
+        try {
+            released.await();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        sent.add(output);
+    }
+
+    /* The first line is taken by the client, two more fill the ring, and the rest do not fit */
+    private void writeWhileTheClientIsSlow(final OutputBuffer buffer) {
+        final List<String> lines = lines(10);
+        buffer.accept(lines.get(0));
+        try {
+            entered.await();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        lines.subList(1, lines.size()).forEach(buffer::accept);
+    }
+
+    private static void writeAndDrain(final OutputBuffer buffer, final String line) {
+        buffer.accept(String.format("%s%n", line));
+        buffer.drain();
+    }
+
+    private static List<String> lines(final int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> String.format("line %d%n", i))
+                .collect(Collectors.toList());
+    }
+}
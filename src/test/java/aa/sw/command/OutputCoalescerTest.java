@@ -0,0 +1,83 @@
+package aa.sw.command;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OutputCoalescerTest {
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    private final List<String> sent = new CopyOnWriteArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    void sendTheLinesTogetherWhenFlushed() {
+        /* Given */
+        final OutputCoalescer coalescer = new OutputCoalescer(sent::add, Duration.ofHours(1), 1024, scheduler);
+        coalescer.accept("first\n");
+        coalescer.accept("second\n");
+
+        /* When */
+        final List<String> beforeFlush = List.copyOf(sent);
+        coalescer.flush();
+
+        /* Then */
+        assertThat(beforeFlush).isEmpty();
+        assertThat(sent).containsExactly("first\nsecond\n");
+    }
+
+    @Test
+    void sendTheBatchOnceItIsLargeEnough() {
+        /* Given */
+        final OutputCoalescer coalescer = new OutputCoalescer(sent::add, Duration.ofHours(1), 10, scheduler);
+
+        /* When */
+        coalescer.accept("first\n");
+        coalescer.accept("second\n");
+        coalescer.accept("third\n");
+
+        /* Then */
+        assertThat(sent).containsExactly("first\nsecond\n");
+    }
+
+    @Test
+    void sendTheBatchOnceItIsOldEnough() throws Exception {
+        /* Given */
+        final OutputCoalescer coalescer = new OutputCoalescer(sent::add, Duration.ofMillis(10), 1024, scheduler);
+
+        /* When */
+        coalescer.accept("first\n");
+        coalescer.accept("second\n");
+
+        /* Then */
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (sent.isEmpty() && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(5);
+        }
+        assertThat(sent).containsExactly("first\nsecond\n");
+    }
+
+    @Test
+    void sendNothingWhenThereIsNoOutput() {
+        /* Given */
+        final OutputCoalescer coalescer = new OutputCoalescer(sent::add, Duration.ofHours(1), 1024, scheduler);
+
+        /* When */
+        coalescer.close();
+
+        /* Then */
+        assertThat(sent).isEmpty();
+    }
+}
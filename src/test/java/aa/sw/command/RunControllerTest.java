@@ -0,0 +1,120 @@
+package aa.sw.command;
+
+import aa.sw.command.run.Cancellation;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@AutoConfigureMockMvc
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class RunControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private CommandScheduler scheduler;
+
+    @MockBean
+    private RunRegistry runs;
+
+    @Test
+    void returnTheSchedulerStats() throws Exception {
+        /* Given */
+        when(scheduler.stats()).thenReturn(new CommandScheduler.Stats(1, 2, 3, 40, 50));
+
+        /* When */
+        final ResultActions result = mockMvc.perform(get("/api/run/stats"));
+
+        /* Then */
+        result.andExpect(status().isOk())
+                .andExpect(jsonPath("$.running", is(1)))
+                .andExpect(jsonPath("$.queued", is(2)))
+                .andExpect(jsonPath("$.started", is(3)))
+                .andExpect(jsonPath("$.averageWaitMillis", is(40)))
+                .andExpect(jsonPath("$.maxWaitMillis", is(50)));
+    }
+
+    @Test
+    void cancelTheRun() throws Exception {
+        /* Given */
+        final UUID runId = UUID.randomUUID();
+        final MockHttpSession session = new MockHttpSession();
+        final Cancellation cancellation = new Cancellation(Duration.ofSeconds(1));
+        when(runs.find(runId))
+                .thenReturn(Optional.of(new RunRegistry.Run(runId, "user", session.getId(), cancellation)));
+
+        /* When */
+        final ResultActions result = mockMvc.perform(post("/api/run/{runId}/cancel", runId).session(session));
+
+        /* Then */
+        result.andExpect(status().isAccepted());
+        assertThat(cancellation.isCancelled()).isTrue();
+    }
+
+    @Test
+    void doNotCancelTheRunOfAnotherSession() throws Exception {
+        /* Given */
+        final UUID runId = UUID.randomUUID();
+        final Cancellation cancellation = new Cancellation(Duration.ofSeconds(1));
+        when(runs.find(runId))
+                .thenReturn(Optional.of(new RunRegistry.Run(runId, "user", "other-session", cancellation)));
+
+        /* When */
+        final ResultActions result = mockMvc.perform(post("/api/run/{runId}/cancel", runId)
+                .session(new MockHttpSession()));
+
+        /* Then */
+        result.andExpect(status().isUnprocessableEntity())
+                .andExpect(jsonPath("$.message", is("Run not found")));
+        assertThat(cancellation.isCancelled()).isFalse();
+    }
+
+    @Test
+    void doNotCancelTheRunWithoutASession() throws Exception {
+        /* Given */
+        final UUID runId = UUID.randomUUID();
+        final Cancellation cancellation = new Cancellation(Duration.ofSeconds(1));
+        when(runs.find(runId)).thenReturn(Optional.of(new RunRegistry.Run(runId, "user", null, cancellation)));
+
+        /* When */
+        final ResultActions result = mockMvc.perform(post("/api/run/{runId}/cancel", runId));
+
+        /* Then */
+        result.andExpect(status().isUnprocessableEntity())
+                .andExpect(jsonPath("$.message", is("Run not found")));
+        assertThat(cancellation.isCancelled()).isFalse();
+    }
+
+    @Test
+    void returnAnErrorWhenTheRunIsNotFound() throws Exception {
+        /* Given */
+        final UUID runId = UUID.randomUUID();
+        when(runs.find(runId)).thenReturn(Optional.empty());
+
+        /* When */
+        final ResultActions result = mockMvc.perform(post("/api/run/{runId}/cancel", runId)
+                .session(new MockHttpSession()));
+
+        /* Then */
+        result.andExpect(status().isUnprocessableEntity())
+                .andExpect(jsonPath("$.message", is("Run not found")));
+    }
+}
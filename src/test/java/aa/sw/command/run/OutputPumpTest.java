@@ -0,0 +1,119 @@
+package aa.sw.command.run;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OutputPumpTest {
+
+    private static final String NL = System.lineSeparator();
+
+    @Test
+    void handsWholeLinesInOneChunkPerRead() throws IOException {
+        /* Given */
+        final List<String> chunks = new ArrayList<>();
+        final OutputPump pump = new OutputPump(chunks::add);
+
+        /* When */
+        pump.pump(input("Albert\nAttard\n"));
+
+        /* Then */
+        assertThat(chunks).containsExactly("Albert" + NL + "Attard" + NL);
+    }
+
+    @Test
+    void endsLinesWithTheLineSeparatorWhateverTheOutputEndsThemWith() throws IOException {
+        /* Given */
+        final List<String> chunks = new ArrayList<>();
+        final OutputPump pump = new OutputPump(chunks::add, 4);
+
+        /* When */
+        pump.pump(input("a\r\nb\rc\n\nd"));
+
+        /* Then */
+        assertThat(String.join("", chunks)).isEqualTo("a" + NL + "b" + NL + "c" + NL + NL + "d" + NL);
+    }
+
+    @Test
+    void decodesCharactersSplitBetweenReads() throws IOException {
+        /* Given */
+        final List<String> chunks = new ArrayList<>();
+        final OutputPump pump = new OutputPump(chunks::add, 4);
+
+        /* When */
+        pump.pump(new OneByteAtATime(input("\u20ac \u2013 \u00fc\n\u20ac\u20ac\n")));
+
+        /* Then */
+        assertThat(String.join("", chunks)).isEqualTo("\u20ac \u2013 \u00fc" + NL + "\u20ac\u20ac" + NL);
+    }
+
+    @Test
+    void handsLinesLongerThanTheBufferInParts() throws IOException {
+        /* Given */
+        final List<String> chunks = new ArrayList<>();
+        final OutputPump pump = new OutputPump(chunks::add, 4);
+
+        /* When */
+        pump.pump(input("0123456789\nab\n"));
+
+        /* Then */
+        assertThat(chunks).allSatisfy(chunk -> assertThat(chunk.length()).isLessThanOrEqualTo(4 + NL.length()));
+        assertThat(String.join("", chunks)).isEqualTo("0123456789" + NL + "ab" + NL);
+    }
+
+    @Test
+    void replacesMalformedInput() throws IOException {
+        /* Given */
+        final List<String> chunks = new ArrayList<>();
+        final OutputPump pump = new OutputPump(chunks::add);
+
+        /* When */
+        pump.pump(new ByteArrayInputStream(new byte[] { 'a', (byte) 0xff, 'b' }));
+
+        /* Then */
+        assertThat(String.join("", chunks)).isEqualTo("a\ufffdb" + NL);
+    }
+
+    @Test
+    void handsNothingWhenThereIsNoOutput() throws IOException {
+        /* Given */
+        final List<String> chunks = new ArrayList<>();
+        final OutputPump pump = new OutputPump(chunks::add);
+
+        /* When */
+        pump.pump(input(""));
+
+        /* Then */
+        assertThat(chunks).isEmpty();
+    }
+
+    private static InputStream input(final String output) {
+        return new ByteArrayInputStream(output.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static class OneByteAtATime extends InputStream {
+
+        private final InputStream delegate;
+
+        private OneByteAtATime(final InputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return delegate.read();
+        }
+
+        @Override
+        public int read(final byte[] buffer, final int offset, final int length) throws IOException {
+            return length == 0 ? 0 : delegate.read(buffer, offset, 1);
+        }
+    }
+}
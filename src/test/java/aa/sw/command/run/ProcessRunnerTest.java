@@ -15,8 +15,11 @@ import java.time.Duration;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -153,6 +156,70 @@ class ProcessRunnerTest {
         assertEquals(ProcessResult.finishedWithExitValue(0), result);
     }
 
+    @Test
+    void cancelTheProcessAndTheProcessesItStarted() throws Exception {
+        /* Given */
+        final File workingDirectory = createWorkingDirectory();
+        final File childPid = new File(workingDirectory, "child.pid");
+        Files.deleteIfExists(childPid.toPath());
+        final File script = new File(workingDirectory, "run-with-child");
+        writeToFile("""
+                #!/bin/sh
+                sleep 30 &
+                echo $! > child.pid
+                sleep 30
+                """, script);
+        assertTrue(script.setExecutable(true));
+        final Cancellation cancellation = new Cancellation(Duration.ofSeconds(1));
+        final CommandRunnerContext cancellableContext = CommandRunnerContext.builder()
+                .output(output)
+                .cancellation(cancellation)
+                .build();
+        final CompletableFuture<ProcessResult> run = CompletableFuture.supplyAsync(() -> ProcessRunner.builder()
+                .command(List.of("./run-with-child"))
+                .executionDirectory(workingDirectory)
+                .context(cancellableContext)
+                .commandTimeout(Duration.ofSeconds(30))
+                .build()
+                .run());
+        while (!childPid.exists() || Files.readString(childPid.toPath()).isBlank()) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        final long child = Long.parseLong(Files.readString(childPid.toPath()).trim());
+
+        /* When */
+        cancellation.cancel();
+
+        /* Then */
+        assertEquals(ProcessResult.cancelled(), run.get(10, TimeUnit.SECONDS));
+        ProcessHandle.of(child).ifPresent(handle ->
+                assertDoesNotThrow(() -> handle.onExit().get(5, TimeUnit.SECONDS), "The child should be terminated"));
+        assertTrue(output.toString().contains("Process was cancelled"));
+    }
+
+    @Test
+    void reportTheExitValueOfAProcessThatExitedBeforeTheRunWasCancelled() {
+        /* Given */
+        final Cancellation cancellation = new Cancellation(Duration.ofSeconds(1));
+        final CommandRunnerContext cancelledOnExit = CommandRunnerContext.builder()
+                .output(output)
+                .cancellation(cancellation)
+                .flush(cancellation::cancel)
+                .build();
+
+        /* When */
+        final ProcessResult result = ProcessRunner.builder()
+                .command(List.of("sh", "-c", "exit 3"))
+                .executionDirectory(createWorkingDirectory())
+                .context(cancelledOnExit)
+                .build()
+                .run();
+
+        /* Then */
+        assertEquals(ProcessResult.finishedWithExitValue(3), result);
+        assertTrue(cancellation.isCancelled());
+    }
+
     private static File createWorkingDirectory() {
         final File workingDirectory = new File("build/command-runner");
         assertTrue(workingDirectory.exists() || workingDirectory.mkdirs());
@@ -11,6 +11,7 @@ import java.util.Map;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 class RunnableEntryRunnerTest {
@@ -30,6 +31,25 @@ class RunnableEntryRunnerTest {
         assertThat(writer.toString()).isEqualTo("Cannot run an entry that is flagged as dry run!!");
     }
 
+    @Test
+    void returnCancelledIfTheRunWasCancelledBeforeItStarted() {
+        /* Given */
+        final RunnableEntry entry = RunnableEntry.builder().type("something").build();
+        final RunnableEntryExecutionStrategy strategy = mock(RunnableEntryExecutionStrategy.class);
+        final RunnableEntryRunner runner = new RunnableEntryRunner(Map.of("something", (e) -> strategy));
+        final StringWriter writer = new StringWriter();
+        final Cancellation cancellation = Cancellation.none();
+        cancellation.cancel();
+
+        /* When */
+        final CommandResult result = runner.run(entry, writer::write, cancellation, () -> { });
+
+        /* Then */
+        assertThat(result).isEqualTo(CommandResult.cancelled());
+        assertThat(writer.toString()).isEqualTo("The run was cancelled before it started");
+        verifyNoInteractions(strategy);
+    }
+
     @Test
     void returnExecutionStrategyNotFoundIfNoStrategyIsAvailableForEntry() {
         /* Given */
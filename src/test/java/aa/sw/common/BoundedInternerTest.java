@@ -0,0 +1,57 @@
+package aa.sw.common;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BoundedInternerTest {
+
+    @Test
+    void returnTheSameInstanceForEqualStrings() {
+        /* Given */
+        final BoundedInterner interner = new BoundedInterner(16, 100);
+        final String first = interner.intern(new String("markdown"));
+
+        /* When */
+        final String second = interner.intern(new String("markdown"));
+
+        /* Then */
+        assertThat(second).isSameAs(first);
+    }
+
+    @Test
+    void returnLongStringsAsTheyAre() {
+        /* Given */
+        final BoundedInterner interner = new BoundedInterner(16, 4);
+        interner.intern(new String("markdown"));
+        final String value = new String("markdown");
+
+        /* When */
+        final String interned = interner.intern(value);
+
+        /* Then */
+        assertThat(interned).isSameAs(value);
+    }
+
+    @Test
+    void replaceTheStringsInTheSameSlot() {
+        /* Given */
+        final BoundedInterner interner = new BoundedInterner(1, 100);
+        interner.intern(new String("markdown"));
+        interner.intern(new String("code"));
+        final String value = new String("markdown");
+
+        /* When */
+        final String interned = interner.intern(value);
+
+        /* Then */
+        assertThat(interned).isSameAs(value);
+    }
+
+    @Test
+    void failWhenTheNumberOfSlotsIsNotAPowerOfTwo() {
+        assertThatThrownBy(() -> new BoundedInterner(10, 100))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
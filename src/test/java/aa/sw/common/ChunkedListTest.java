@@ -0,0 +1,93 @@
+package aa.sw.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ChunkedListTest {
+
+    @Test
+    void containTheGivenElementsInOrder() {
+        /* Given */
+        final List<Integer> elements = IntStream.range(0, 1000).boxed().collect(Collectors.toList());
+
+        /* When */
+        final ChunkedList<Integer> list = ChunkedList.of(elements);
+
+        /* Then */
+        assertThat(list).isEqualTo(elements);
+        assertThat(list.get(999)).isEqualTo(999);
+        assertThat(list.toArray()).isEqualTo(elements.toArray());
+    }
+
+    @Test
+    void leaveTheOriginalListUnchanged() {
+        /* Given */
+        final ChunkedList<String> list = ChunkedList.of(List.of("a", "b", "c"));
+
+        /* When */
+        final ChunkedList<String> updated = list.replace(1, "x").insert(0, "y").delete(3);
+
+        /* Then */
+        assertThat(list).containsExactly("a", "b", "c");
+        assertThat(updated).containsExactly("y", "a", "x");
+    }
+
+    @Test
+    void matchAnArrayListAfterRandomChanges() {
+        /* Given */
+        final Random random = new Random(11);
+        final List<Integer> expected = new ArrayList<>();
+        ChunkedList<Integer> list = ChunkedList.of();
+
+        /* When/Then */
+        for (int i = 0; i < 20_000; i++) {
+            final int operation = random.nextInt(4);
+            if (operation <= 1 || expected.isEmpty()) {
+                /* Insert more than delete, mostly towards the end like new entries in a chapter */
+                final int index = random.nextBoolean() ? expected.size() : random.nextInt(expected.size() + 1);
+                expected.add(index, i);
+                list = list.insert(index, i);
+            } else if (operation == 2) {
+                final int index = random.nextInt(expected.size());
+                expected.remove(index);
+                list = list.delete(index);
+            } else {
+                final int index = random.nextInt(expected.size());
+                expected.set(index, -i);
+                list = list.replace(index, -i);
+            }
+
+            assertThat(list.size()).isEqualTo(expected.size());
+            if (i % 500 == 0) {
+                assertThat(list).isEqualTo(expected);
+                assertThat(list.height()).isLessThanOrEqualTo(maximumHeight(expected.size()));
+            }
+        }
+        assertThat(list).isEqualTo(expected);
+    }
+
+    @Test
+    void doNotAllowTheListToBeModified() {
+        /* Given */
+        final ChunkedList<String> list = ChunkedList.of(List.of("a"));
+
+        /* When/Then */
+        assertThatThrownBy(() -> list.add("b"))
+                .isInstanceOf(UnsupportedOperationException.class);
+        assertThatThrownBy(() -> list.get(1))
+                .isInstanceOf(IndexOutOfBoundsException.class);
+    }
+
+    /* The height of an AVL tree with n nodes is less than 1.45 log2(n + 2) */
+    private static int maximumHeight(final int size) {
+        return (int) Math.ceil(1.45 * Math.log(size + 2) / Math.log(2)) + 1;
+    }
+}
@@ -0,0 +1,113 @@
+package aa.sw.search;
+
+import aa.sw.book.BookPath;
+import aa.sw.common.Result;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.io.FileNotFoundException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static aa.sw.MockHttpUtils.get;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.core.Is.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@AutoConfigureMockMvc
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class SearchControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private SearchService service;
+
+    @Test
+    void returnTheHitsOfTheQuery() throws Exception {
+        /* Given */
+        final BookPath bookPath = BookPath.of(Path.of("path-to-book"));
+        final Map<String, Object> params = Map.of("bookPath", bookPath, "q", "automation");
+        final SearchHit hit = SearchHit.builder()
+                .chapterPath("01-hello-world.json")
+                .entryId(UUID.fromString("c7a233ba-5327-447c-ae63-aa53f79c3791"))
+                .snippet("Automation")
+                .score(1.5)
+                .build();
+        when(service.search(bookPath, "automation", 20)).thenReturn(Result.value(List.of(hit)));
+
+        /* When */
+        final ResultActions result = makeSearchRequest(params);
+
+        /* Then */
+        result.andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].chapterPath", is("01-hello-world.json")))
+                .andExpect(jsonPath("$[0].entryId", is("c7a233ba-5327-447c-ae63-aa53f79c3791")))
+                .andExpect(jsonPath("$[0].snippet", is("Automation")))
+                .andExpect(jsonPath("$[0].score", is(1.5)));
+    }
+
+    @Test
+    void capTheNumberOfHits() throws Exception {
+        /* Given */
+        final BookPath bookPath = BookPath.of(Path.of("path-to-book"));
+        final Map<String, Object> params = Map.of("bookPath", bookPath, "q", "automation", "limit", 1000);
+        when(service.search(bookPath, "automation", SearchController.MAX_LIMIT)).thenReturn(Result.value(List.of()));
+
+        /* When */
+        final ResultActions result = makeSearchRequest(params);
+
+        /* Then */
+        result.andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+    }
+
+    @Test
+    void returnAnErrorWhenTheLimitIsNotPositive() throws Exception {
+        /* Given */
+        final Map<String, Object> params = Map.of("bookPath", "path-to-book", "q", "automation", "limit", 0);
+
+        /* When */
+        final ResultActions result = makeSearchRequest(params);
+
+        /* Then */
+        result.andExpect(status().isUnprocessableEntity())
+                .andExpect(jsonPath("message", is("The limit must be at least 1")));
+        verify(service, never()).search(any(), anyString(), anyInt());
+    }
+
+    @Test
+    void returnAnErrorWhenTheBookDoesNotExist() throws Exception {
+        /* Given */
+        final BookPath bookPath = BookPath.of(Path.of("path-to-book"));
+        final Map<String, Object> params = Map.of("bookPath", bookPath, "q", "automation");
+        when(service.search(bookPath, "automation", 20)).thenReturn(Result.error(new FileNotFoundException()));
+
+        /* When */
+        final ResultActions result = makeSearchRequest(params);
+
+        /* Then */
+        result.andExpect(status().isUnprocessableEntity())
+                .andExpect(jsonPath("message", is("Book not found")));
+    }
+
+    private ResultActions makeSearchRequest(final Map<String, Object> params) throws Exception {
+        return mockMvc.perform(get("/api/search", params));
+    }
+}
@@ -0,0 +1,181 @@
+package aa.sw.search;
+
+import aa.sw.book.BookData;
+import aa.sw.book.BookPath;
+import aa.sw.book.Chapter;
+import aa.sw.book.Entry;
+import aa.sw.common.Result;
+import aa.sw.config.AppProperties;
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+
+import java.io.FileNotFoundException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static aa.sw.IoUtils.copyDirectory;
+import static aa.sw.IoUtils.emptyDirectory;
+import static aa.sw.common.UncheckedIo.uncheckedIo;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class SearchServiceTest {
+
+    private static final UUID AUTOMATION_ID = UUID.fromString("c7a233ba-5327-447c-ae63-aa53f79c3791");
+
+    private final ObjectMapper mapper = createObjectMapper();
+    private final BookData data = new BookData(mapper, new AppProperties());
+    private final SearchService service = new SearchService(data, mapper);
+
+    @Test
+    void findTheEntriesThatMatchTheQuery() {
+        /* Given */
+        final BookPath bookPath = copyOfTheFixtures();
+
+        /* When */
+        final Result<List<SearchHit>> result = service.search(bookPath, "AUTOMATION", 10);
+
+        /* Then */
+        assertThat(result.isValuePresent()).isTrue();
+        assertThat(result.value())
+                .extracting(SearchHit::getChapterPath, SearchHit::getEntryId, SearchHit::getSnippet)
+                .containsExactly(tuple("01-hello-world.json", AUTOMATION_ID, "Automation"));
+    }
+
+    @Test
+    void rankTheEntriesThatMatchMoreTermsFirst() {
+        /* Given */
+        final BookPath bookPath = copyOfTheFixtures();
+
+        /* When */
+        final Result<List<SearchHit>> result = service.search(bookPath, "we make mistakes", 10);
+
+        /* Then */
+        assertThat(result.value())
+                .extracting(SearchHit::getChapterPath)
+                .containsExactly("00-prologue.json");
+        assertThat(result.value().get(0).getScore()).isPositive();
+    }
+
+    @Test
+    void returnNoHitsWhenNothingMatches() {
+        /* Given */
+        final BookPath bookPath = copyOfTheFixtures();
+
+        /* When */
+        final Result<List<SearchHit>> result = service.search(bookPath, "nothing-like-this", 10);
+
+        /* Then */
+        assertThat(result).isEqualTo(Result.value(List.of()));
+    }
+
+    @Test
+    void indexTheChaptersThatChangedSinceTheLastSearch() {
+        /* Given */
+        final BookPath bookPath = copyOfTheFixtures();
+        service.search(bookPath, "automation", 10);
+        writeHelloWorld(bookPath, "Continuous Integration");
+
+        /* When */
+        final Result<List<SearchHit>> oldText = service.search(bookPath, "automation", 10);
+        final Result<List<SearchHit>> newText = service.search(bookPath, "integration", 10);
+
+        /* Then */
+        assertThat(oldText).isEqualTo(Result.value(List.of()));
+        assertThat(newText.value())
+                .extracting(SearchHit::getEntryId)
+                .containsExactly(AUTOMATION_ID);
+    }
+
+    @Test
+    void keepTheIndexNextToTheBook() {
+        /* Given */
+        final BookPath bookPath = copyOfTheFixtures();
+        service.search(bookPath, "automation", 10);
+
+        /* When */
+        final Result<List<SearchHit>> result = new SearchService(data, mapper).search(bookPath, "automation", 10);
+
+        /* Then */
+        assertThat(bookPath.getDirectory().resolve(".book.json.search/manifest.json")).exists();
+        assertThat(result.value())
+                .extracting(SearchHit::getEntryId)
+                .containsExactly(AUTOMATION_ID);
+    }
+
+    @Test
+    void mergeTheSegmentsWhenThereAreTooMany() {
+        /* Given */
+        final BookPath bookPath = copyOfTheFixtures();
+        for (int i = 0; i <= BookIndex.MAX_SEGMENTS; i++) {
+            writeHelloWorld(bookPath, "Revision " + i);
+            service.search(bookPath, "revision", 10);
+        }
+
+        /* When */
+        final Result<List<SearchHit>> result = service.search(bookPath, "revision", 10);
+
+        /* Then */
+        assertThat(countSegments(bookPath)).isLessThanOrEqualTo(BookIndex.MAX_SEGMENTS);
+        assertThat(result.value())
+                .extracting(SearchHit::getSnippet)
+                .containsExactly("Revision " + BookIndex.MAX_SEGMENTS);
+        assertThat(service.search(bookPath, "broken", 10).value())
+                .extracting(SearchHit::getChapterPath)
+                .containsExactly("02-broken-links.json");
+    }
+
+    @Test
+    void returnAnErrorWhenTheBookDoesNotExist() {
+        /* Given */
+        final BookPath bookPath = BookPath.of(Path.of("build", "search", "missing", "book.json"));
+
+        /* When */
+        final Result<List<SearchHit>> result = service.search(bookPath, "automation", 10);
+
+        /* Then */
+        assertThat(result.isValuePresent()).isFalse();
+        assertThat(result.error()).isInstanceOf(FileNotFoundException.class);
+    }
+
+    private void writeHelloWorld(final BookPath bookPath, final String text) {
+        final Path chapterPath = bookPath.getDirectory().resolve("01-hello-world.json");
+        final Chapter chapter = data.readChapter(chapterPath).value();
+        final Entry entry = chapter.findEntryWithId(AUTOMATION_ID).orElseThrow().getEntry();
+        data.writeChapter(chapterPath, chapter.swapEntryAt(1, entry.toBuilder().parameters(List.of(text)).build()));
+    }
+
+    private static long countSegments(final BookPath bookPath) {
+        return uncheckedIo(() -> {
+            try (Stream<Path> files = Files.list(bookPath.getDirectory().resolve(".book.json.search"))) {
+                return files.filter(file -> file.toString().endsWith(".seg")).count();
+            }
+        });
+    }
+
+    private static BookPath copyOfTheFixtures() {
+        final Path directory = Path.of("build", "search", "books");
+        emptyDirectory(directory);
+        copyDirectory(Path.of("src/test/resources/fixtures/books"), directory);
+        return BookPath.of(directory);
+    }
+
+    private static ObjectMapper createObjectMapper() {
+        return JsonMapper.builder()
+                .addModule(new Jdk8Module())
+                .addModule(new JavaTimeModule())
+                .serializationInclusion(JsonInclude.Include.NON_NULL)
+                .visibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE)
+                .visibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY)
+                .build();
+    }
+}